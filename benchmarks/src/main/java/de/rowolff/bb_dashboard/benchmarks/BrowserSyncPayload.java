@@ -0,0 +1,128 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.character.CharacterResource;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.storage.MappedCharacterRepository;
+import de.rowolff.bb_dashboard.transfer.BrowserStorageImport;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Compares reading the characters saved in the browser's local storage the way the dashboard did before the
+ * characters moved to the server, a round trip for the list of keys and one per loaded character each returning
+ * its JSON entry, with the single round trip of {@link BrowserStorageImport#PACK_SCRIPT}, and times importing
+ * the packed characters.
+ * <p>
+ * Run with {@code java -cp benchmarks/target/benchmarks.jar de.rowolff.bb_dashboard.benchmarks.BrowserSyncPayload
+ * [characters...]}.
+ */
+public final class BrowserSyncPayload {
+
+    private BrowserSyncPayload() {}
+
+    public static void main(String[] args) throws IOException {
+        RulePackRegistry rulePacks = new RulePackRegistry(new CharacterResourceService());
+        RuleSnapshot rules = rulePacks.getDefault();
+        String[] sizes = args.length > 0 ? args : new String[]{"1000", "10000"};
+        System.out.printf("%10s %14s %14s %14s %14s %10s%n", "characters", "before trips", "before bytes",
+                "after trips", "after bytes", "import ms");
+        for (String size : sizes) {
+            int characters = Integer.parseInt(size);
+            List<JsonObject> entries = createEntries(rules, characters);
+
+            JsonArray keys = Json.createArray();
+            long beforeBytes = 0;
+            for (JsonObject entry : entries) {
+                keys.set(keys.length(), CHAR_PREFIX + entry.getString("name"));
+                beforeBytes += bytes(entry.toJson());
+            }
+            beforeBytes += bytes(keys.toJson());
+            JsonArray packed = pack(rules, entries);
+
+            Path storageDirectory = Files.createTempDirectory("browser-sync-");
+            Path file = storageDirectory.resolve("characters.log");
+            try (MappedCharacterRepository repository = new MappedCharacterRepository(file)) {
+                long start = System.nanoTime();
+                int imported = new BrowserStorageImport(repository, rulePacks).importPacked(packed).size();
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                if (imported != characters) {
+                    throw new IllegalStateException(imported + " of " + characters + " characters imported");
+                }
+                System.out.printf("%10d %14d %14d %14d %14d %10d%n", characters, 1 + characters, beforeBytes, 1,
+                        bytes(packed.toJson()), millis);
+            } finally {
+                Files.deleteIfExists(file);
+                Files.delete(storageDirectory);
+            }
+        }
+    }
+
+    /**
+     * @return local storage entries in the format the dashboard used to write, with valid picks
+     */
+    private static List<JsonObject> createEntries(RuleSnapshot rules, int count) {
+        List<String> archetypes = new ArrayList<>(rules.archetypes().keySet());
+        List<String> classes = new ArrayList<>(rules.classes().keySet());
+        List<JsonObject> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String charClass = classes.get(i % classes.size());
+            CharacterResource classStats = rules.classes().get(charClass);
+            List<String> backgrounds = new ArrayList<>(classStats.getBackgrounds().keySet());
+            JsonObject entry = Json.createObject();
+            entry.put("name", String.format("Hero %06d", i));
+            entry.put(ARCHETYPE, archetypes.get(i % archetypes.size()));
+            entry.put(CLASS, charClass);
+            entry.put(BACKGROUND, backgrounds.get(i % backgrounds.size()));
+            for (int attribute = 0; attribute < rules.attributeSchema().size(); attribute++) {
+                int spent = attribute == i % rules.attributeSchema().size() ? i % (MAX_SPENDABLE_POINTS + 1) : 0;
+                entry.put(rules.attributeSchema().name(attribute), spent);
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * @return what {@link BrowserStorageImport#PACK_SCRIPT} returns for these entries
+     */
+    private static JsonArray pack(RuleSnapshot rules, List<JsonObject> entries) {
+        JsonArray strings = Json.createArray();
+        Map<String, Integer> indexes = new HashMap<>();
+        JsonArray codes = Json.createArray();
+        for (JsonObject entry : entries) {
+            for (String field : List.of("name", ARCHETYPE, CLASS, BACKGROUND)) {
+                String text = entry.getString(field);
+                int index = indexes.computeIfAbsent(text, key -> {
+                    strings.set(strings.length(), key);
+                    return strings.length() - 1;
+                });
+                codes.set(codes.length(), index);
+            }
+            for (String attribute : rules.attributeSchema().names()) {
+                codes.set(codes.length(), entry.getNumber(attribute));
+            }
+        }
+        JsonArray packed = Json.createArray();
+        packed.set(0, strings);
+        packed.set(1, codes);
+        return packed;
+    }
+
+    private static long bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,153 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.api.BuildController;
+import de.rowolff.bb_dashboard.character.CharacterResource;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Throughput of the build API of a running application, {@code POST /api/builds}. A fixed number of requests is
+ * kept in flight over HTTP/1.1 keep-alive connections, each sending the next one as soon as its response arrived,
+ * with valid builds of the bundled rules. After a warm-up the requests and builds per second and the latency
+ * percentiles are reported.
+ * <p>
+ * The client runs in this JVM, so on the same machine as the application it takes a share of the cores; run it from
+ * another machine for the throughput of the server alone.
+ * <p>
+ * Run with {@code java -cp benchmarks/target/benchmarks.jar de.rowolff.bb_dashboard.benchmarks.BuildApiLoad
+ * [base url] [requests in flight] [builds per request] [seconds] [warm-up seconds]}.
+ */
+public final class BuildApiLoad {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int BODIES = 64;
+
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final HttpClient client;
+    private final List<HttpRequest> bodies;
+    private volatile boolean running = true;
+
+    private BuildApiLoad(HttpClient client, List<HttpRequest> bodies) {
+        this.client = client;
+        this.bodies = bodies;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int buildsPerRequest = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int warmUpSeconds = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+        URI uri = URI.create(baseUrl + BuildController.PATH);
+        List<String> builds = createBuilds(new CharacterResourceService().getSnapshot());
+        List<HttpRequest> requests = new ArrayList<>(BODIES);
+        for (int i = 0; i < BODIES; i++) {
+            String body = buildsPerRequest == 1 ? builds.get(i % builds.size()) : batch(builds, i, buildsPerRequest);
+            requests.add(HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                    .build());
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build();
+        HttpResponse<String> check = client.send(requests.get(0), HttpResponse.BodyHandlers.ofString());
+        if (check.statusCode() != 200 || !check.body().contains("\"totals\"")) {
+            throw new IllegalStateException("Unexpected response " + check.statusCode() + ": " + check.body());
+        }
+
+        BuildApiLoad load = new BuildApiLoad(client, requests);
+        for (int i = 0; i < inFlight; i++) {
+            load.send(i);
+        }
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmUpSeconds));
+        load.latencies.reset();
+        load.requests.reset();
+        load.failures.reset();
+        long start = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        long duration = System.nanoTime() - start;
+        long sent = load.requests.sum();
+        long failed = load.failures.sum();
+        load.running = false;
+        executor.shutdownNow();
+
+        double measured = duration / 1e9;
+        System.out.printf("%s, %d requests in flight, %d builds per request, %d client threads, %.1f s%n", uri,
+                inFlight, buildsPerRequest, threads, measured);
+        System.out.printf("%.0f requests/s, %.0f builds/s, %d failed%n", sent / measured,
+                sent * buildsPerRequest / measured, failed);
+        System.out.printf("latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+                millis(load.latencies.getValueAtPercentile(50)), millis(load.latencies.getValueAtPercentile(90)),
+                millis(load.latencies.getValueAtPercentile(99)), millis(load.latencies.getValueAtPercentile(99.9)),
+                millis(load.latencies.getMaxValue()));
+    }
+
+    private void send(int index) {
+        if (!running) {
+            return;
+        }
+        long start = System.nanoTime();
+        client.sendAsync(bodies.get(index % bodies.size()), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    latencies.recordValue(Math.min(MAX_LATENCY_NANOS, System.nanoTime() - start));
+                    requests.increment();
+                    if (failure != null || response.statusCode() != 200) {
+                        failures.increment();
+                    }
+                    send(index + 1);
+                });
+    }
+
+    /**
+     * @return a valid build JSON for every class, with varying archetypes, backgrounds and spent points
+     */
+    private static List<String> createBuilds(RuleSnapshot rules) {
+        List<String> archetypes = new ArrayList<>(rules.archetypes().keySet());
+        List<String> builds = new ArrayList<>();
+        int i = 0;
+        for (CharacterResource charClass : rules.classes().values()) {
+            for (String background : charClass.getBackgrounds().keySet()) {
+                String attribute = rules.attributeSchema().name(i % rules.attributeSchema().size());
+                builds.add(String.format("{\"archetype\":\"%s\",\"class\":\"%s\",\"background\":\"%s\","
+                                + "\"spentPoints\":{\"%s\":%d}}", archetypes.get(i % archetypes.size()),
+                        charClass.name(), background, attribute, i % (MAX_SPENDABLE_POINTS + 1)));
+                i++;
+            }
+        }
+        return builds;
+    }
+
+    private static String batch(List<String> builds, int offset, int size) {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            batch.append(i > 0 ? "," : "").append(builds.get((offset + i) % builds.size()));
+        }
+        return batch.append(']').toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,67 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.api.BuildCalculation;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The work of a request of the build API without HTTP: parsing a single build or a batch of 100 with
+ * {@link BuildCalculation} and writing the results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildCalculationBenchmark {
+
+    private static final String BUILD = "{\"archetype\":\"Enforcer\",\"class\":\"Assassin\",\"background\":\"Ghost\","
+            + "\"spentPoints\":{\"Damage\":2,\"Speed\":1}}";
+
+    private RuleSnapshot rules;
+    private byte[] single;
+    private byte[] batch;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void setUp() {
+        rules = new CharacterResourceService().getSnapshot();
+        single = BUILD.getBytes(StandardCharsets.UTF_8);
+        batch = ("[" + String.join(",", Collections.nCopies(100, BUILD)) + "]")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int singleBuild() throws IOException {
+        return calculate(single);
+    }
+
+    @Benchmark
+    public int batchOf100() throws IOException {
+        return calculate(batch);
+    }
+
+    private int calculate(byte[] request) throws IOException {
+        out.reset();
+        BuildCalculation.parse(rules, new ByteArrayInputStream(request)).writeTo(out);
+        return out.size();
+    }
+}
@@ -0,0 +1,68 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResource;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stat lookups and point spending on a fully equipped {@link Character}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharacterBenchmark {
+
+    private Character character;
+
+    @Setup
+    public void setUp() {
+        CharacterResourceService loader = new CharacterResourceService();
+        AttributeSchema schema = loader.getAttributeSchema();
+        CharacterResource charClass = loader.getClasses().get("Assassin");
+
+        character = new Character(schema);
+        character.setArchetype(Character.Stats.of("Enforcer", schema, loader.getArchetypeAttributes("Enforcer")));
+        character.setCharClass(Character.Stats.of("Assassin", schema, charClass.getAttributes()));
+        character.setBackground(Character.Stats.of("Ghost", schema,
+                charClass.getBackgrounds().get("Ghost").getAttributes()));
+        character.spendPoint("Damage");
+    }
+
+    @Benchmark
+    public Character.Stats getTotalStats() {
+        return character.getTotalStats();
+    }
+
+    @Benchmark
+    public int getTotalStatByName() {
+        return character.getTotalStatByName("Speed");
+    }
+
+    @Benchmark
+    public int getModifierByName() {
+        return character.getModifierByName("Mastery");
+    }
+
+    @Benchmark
+    public int spendAndRefundPoint() {
+        character.spendPoint("Accuracy");
+        character.refundPoint("Accuracy");
+        return character.getAvailablePointsToSpend();
+    }
+}
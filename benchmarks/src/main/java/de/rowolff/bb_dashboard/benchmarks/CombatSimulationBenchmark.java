@@ -0,0 +1,52 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.simulation.AttackReport;
+import de.rowolff.bb_dashboard.simulation.CombatProfile;
+import de.rowolff.bb_dashboard.simulation.CombatSimulator;
+import de.rowolff.bb_dashboard.simulation.DuelReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full {@link CombatSimulator} run of one million attack rounds and of 200000 duels, on all cores, against
+ * answering the same comparison again from the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CombatSimulationBenchmark {
+
+    private static final CombatProfile FIRST = new CombatProfile(2, 1, 1, 0);
+    private static final CombatProfile SECOND = new CombatProfile(0, 2, 0, 1);
+
+    private final CombatSimulator uncached = new CombatSimulator(CombatSimulator.DEFAULT_ROUNDS,
+            CombatSimulator.DEFAULT_ENCOUNTERS, 0);
+    private final CombatSimulator cached = new CombatSimulator();
+
+    @Benchmark
+    public AttackReport attack() {
+        return uncached.attack(FIRST);
+    }
+
+    @Benchmark
+    public DuelReport duel() {
+        return uncached.duel(FIRST, SECOND);
+    }
+
+    @Benchmark
+    public DuelReport cachedDuel() {
+        return cached.duel(FIRST, SECOND);
+    }
+}
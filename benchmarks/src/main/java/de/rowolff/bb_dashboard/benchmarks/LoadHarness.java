@@ -0,0 +1,425 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.ItemClickEvent;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.internal.StateTree;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.server.VaadinSession;
+import de.rowolff.bb_dashboard.MainView;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.character.CharacterResource;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.components.AttributeEditor;
+import de.rowolff.bb_dashboard.components.RosterComponent;
+import de.rowolff.bb_dashboard.history.CharacterHistoryStore;
+import de.rowolff.bb_dashboard.optimizer.BuildOptimizer;
+import de.rowolff.bb_dashboard.party.PartyBroadcaster;
+import de.rowolff.bb_dashboard.simulation.CombatSimulator;
+import de.rowolff.bb_dashboard.storage.MappedCharacterRepository;
+import de.rowolff.bb_dashboard.storage.SaveQueue;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import de.rowolff.bb_dashboard.transfer.BrowserStorageImport;
+import de.rowolff.bb_dashboard.transfer.RosterTransferService;
+import de.rowolff.bb_dashboard.validation.RosterValidator;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Headless load test of many concurrent users in one JVM, without a browser or servlet container.
+ * <p>
+ * Every simulated user gets a {@link VaadinSession} holding one or more {@link UI}s (browser tabs) with a
+ * {@link MainView}, all backed by one {@link MappedCharacterRepository}. Each UI repeatedly runs a scripted
+ * flow: select an archetype, class and background, spend points, save the character, load it from the roster
+ * and refund the points. Every action is handled like a request: the session lock is taken, the component
+ * event is fired and the resulting state tree changes are collected as for a response.
+ * <p>
+ * The actions run on a scheduled thread pool; the think time between two actions of a user is a scheduled
+ * delay, so it does not occupy a thread. The latency of an action is measured from the moment it was due,
+ * so time spent queueing for an overloaded pool is included. Reported are the latency percentiles per action,
+ * the throughput, how often and how long a request waited for its session lock, and the heap retained per
+ * session.
+ * <p>
+ * Run with {@code java -cp benchmarks/target/benchmarks.jar de.rowolff.bb_dashboard.benchmarks.LoadHarness
+ * [sessions] [uis per session] [iterations] [threads] [think time ms]}.
+ */
+public final class LoadHarness {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final RuleSnapshot rules;
+    private final RulePackRegistry rulePacks;
+    private final MappedCharacterRepository repository;
+    private final CharacterHistoryStore historyStore;
+    private final BuildOptimizer optimizer;
+    private final PartyBroadcaster partyBroadcaster;
+    private final CombatSimulator combatSimulator = new CombatSimulator();
+    private final RosterValidator validator;
+    private final SaveQueue saveQueue;
+    private final ScheduledExecutorService executor;
+    private final int iterations;
+    private final long thinkTimeNanos;
+
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Histogram lockWaits = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    private final AtomicLong lockAcquisitions = new AtomicLong();
+    private final AtomicLong contendedAcquisitions = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private LoadHarness(CharacterResourceService loader, MappedCharacterRepository repository,
+                        CharacterHistoryStore historyStore, ScheduledExecutorService executor, int iterations,
+                        long thinkTimeNanos) {
+        this.rulePacks = new RulePackRegistry(loader);
+        this.validator = new RosterValidator(repository, rulePacks);
+        this.rules = loader.getSnapshot();
+        this.repository = repository;
+        this.historyStore = historyStore;
+        this.optimizer = new BuildOptimizer(loader);
+        this.partyBroadcaster = new PartyBroadcaster(executor);
+        // saves are written at once, so that the load following a save finds the character
+        this.saveQueue = new SaveQueue(repository, 0);
+        this.executor = executor;
+        this.iterations = iterations;
+        this.thinkTimeNanos = thinkTimeNanos;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int uisPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors() * 2;
+        long thinkTimeMillis = args.length > 4 ? Long.parseLong(args[4]) : 200;
+
+        Path storageDirectory = Files.createTempDirectory("load-harness-");
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads);
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(storageDirectory.resolve("characters.log"))) {
+            LoadHarness harness = new LoadHarness(new CharacterResourceService(), repository,
+                    new CharacterHistoryStore(storageDirectory), executor, iterations,
+                    TimeUnit.MILLISECONDS.toNanos(thinkTimeMillis));
+            // warm up class loading and shared state before measuring
+            harness.createUser(0, 1).get(0).runSynchronously();
+            harness.latencies.clear();
+
+            long heapBefore = usedHeapAfterGc();
+            List<SimulatedUi> uis = new ArrayList<>(sessions * uisPerSession);
+            for (int i = 1; i <= sessions; i++) {
+                uis.addAll(harness.createUser(i, uisPerSession));
+            }
+
+            CountDownLatch finished = new CountDownLatch(uis.size());
+            long start = System.nanoTime();
+            for (SimulatedUi ui : uis) {
+                ui.start(finished);
+            }
+            finished.await();
+            long duration = System.nanoTime() - start;
+            long heapAfter = usedHeapAfterGc();
+
+            harness.report(sessions, uis.size(), threads, duration, (heapAfter - heapBefore) / sessions);
+        } finally {
+            executor.shutdownNow();
+            try (var files = Files.list(storageDirectory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(storageDirectory);
+        }
+    }
+
+    private List<SimulatedUi> createUser(int user, int uiCount) {
+        HeadlessSession session = new HeadlessSession(executor);
+        List<SimulatedUi> uis = new ArrayList<>(uiCount);
+        for (int i = 0; i < uiCount; i++) {
+            uis.add(new SimulatedUi(session, "load-" + user + "-" + i, new Random(31L * user + i)));
+        }
+        return uis;
+    }
+
+    private void report(int sessions, int uis, int threads, long durationNanos, long heapPerSession) {
+        long actions = latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        System.out.printf("%d sessions, %d UIs, %d threads, %d actions in %.1f s, %.0f actions/s, %d failed%n",
+                sessions, uis, threads, actions, durationNanos / 1e9, actions / (durationNanos / 1e9), failures.get());
+        System.out.printf("%n%-18s %9s %9s %9s %9s %9s%n", "action (us)", "count", "p50", "p95", "p99", "max");
+        new TreeMap<>(latencies).forEach((action, histogram) -> printPercentiles(action, histogram));
+        System.out.printf("%nsession lock: %d of %d acquisitions contended (%.2f %%)%n", contendedAcquisitions.get(),
+                lockAcquisitions.get(), 100.0 * contendedAcquisitions.get() / Math.max(1, lockAcquisitions.get()));
+        if (lockWaits.getTotalCount() > 0) {
+            printPercentiles("lock wait", lockWaits);
+        }
+        System.out.printf("%n%d bytes retained per session%n", heapPerSession);
+    }
+
+    private static void printPercentiles(String name, Histogram histogram) {
+        System.out.printf("%-18s %9d %9d %9d %9d %9d%n", name, histogram.getTotalCount(),
+                micros(histogram.getValueAtPercentile(50)), micros(histogram.getValueAtPercentile(95)),
+                micros(histogram.getValueAtPercentile(99)), micros(histogram.getMaxValue()));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static Stream<Component> descendants(Component component) {
+        return component.getChildren().flatMap(child -> Stream.concat(Stream.of(child), descendants(child)));
+    }
+
+    private static <T extends Component> List<T> descendants(Component component, Class<T> type) {
+        return descendants(component).filter(type::isInstance).map(type::cast).toList();
+    }
+
+    /**
+     * A session without servlet container. Only its lock is used, taken by the harness the way the request
+     * handling of Vaadin takes it, and by {@link #access} for commands from background threads.
+     */
+    private static final class HeadlessSession extends VaadinSession {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Executor accessExecutor;
+
+        HeadlessSession(Executor accessExecutor) {
+            super(null);
+            this.accessExecutor = accessExecutor;
+        }
+
+        /**
+         * Runs the command on the harness threads. The lock is taken here, so the session never unlocks it
+         * completely, which would need a {@code VaadinService}.
+         */
+        @Override
+        public Future<Void> access(Command command) {
+            return CompletableFuture.runAsync(() -> {
+                lock.lock();
+                try {
+                    command.execute();
+                } finally {
+                    lock.unlock();
+                }
+            }, accessExecutor);
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+
+        @Override
+        public boolean hasLock() {
+            return lock.isHeldByCurrentThread();
+        }
+    }
+
+    /**
+     * One browser tab: a {@link UI} with a {@link MainView} and the script of actions the user performs in it.
+     */
+    private final class SimulatedUi {
+
+        private final HeadlessSession session;
+        private final String characterName;
+        private final Random random;
+        private final UI ui = new UI();
+        private final List<Runnable> script = new ArrayList<>();
+        private final List<String> actionNames = new ArrayList<>();
+
+        private List<ComboBox<String>> comboBoxes;
+        private AttributeEditor attributeEditor;
+        private int batch;
+        private TextField nameInput;
+        private Button saveButton;
+        private TextField rosterNameFilter;
+        private Grid<SavedCharacter> rosterGrid;
+        private final int[] spentAttributes = new int[MAX_SPENDABLE_POINTS];
+
+        private CountDownLatch finished;
+        private int step;
+
+        SimulatedUi(HeadlessSession session, String characterName, Random random) {
+            this.session = session;
+            this.characterName = characterName;
+            this.random = random;
+            handle("open", this::open);
+            for (int i = 0; i < iterations; i++) {
+                addIteration();
+            }
+        }
+
+        void runSynchronously() {
+            for (int i = 0; i < script.size(); i++) {
+                handle(actionNames.get(i), script.get(i));
+            }
+        }
+
+        void start(CountDownLatch finished) {
+            this.finished = finished;
+            schedule((long) (random.nextDouble() * thinkTimeNanos * 5));
+        }
+
+        private void addIteration() {
+            addAction("selectArchetype", () -> select(0, List.copyOf(rules.archetypes().keySet())));
+            addAction("selectClass", () -> select(1, List.copyOf(rules.classes().keySet())));
+            addAction("selectBackground", () -> {
+                CharacterResource charClass = rules.classes().get(comboBoxes.get(1).getValue());
+                select(2, List.copyOf(charClass.getBackgrounds().keySet()));
+            });
+            // the browser sends all quick clicks of the attribute editor as one batch
+            addAction("spendPoints", () -> {
+                JsonArray changes = Json.createArray();
+                for (int point = 0; point < MAX_SPENDABLE_POINTS; point++) {
+                    spentAttributes[point] = random.nextInt(rules.attributeSchema().size());
+                    changes.set(point, spentAttributes[point] + 1);
+                }
+                attributeEditor.applyChanges(++batch, changes);
+            });
+            addAction("save", () -> {
+                nameInput.setValue(characterName);
+                saveButton.click();
+            });
+            addAction("load", () -> {
+                rosterNameFilter.setValue(characterName);
+                SavedCharacter saved = rosterGrid.getLazyDataView().getItems()
+                        .filter(item -> item.name().equals(characterName))
+                        .findFirst()
+                        .orElseThrow();
+                String key = rosterGrid.getDataCommunicator().getKeyMapper().key(saved);
+                ComponentUtil.fireEvent(rosterGrid, new ItemClickEvent<>(rosterGrid, true, key, null,
+                        0, 0, 0, 0, 1, 0, false, false, false, false));
+            });
+            addAction("refundPoints", () -> {
+                JsonArray changes = Json.createArray();
+                for (int point = 0; point < MAX_SPENDABLE_POINTS; point++) {
+                    changes.set(point, -spentAttributes[point] - 1);
+                }
+                attributeEditor.applyChanges(++batch, changes);
+            });
+        }
+
+        private void addAction(String name, Runnable action) {
+            actionNames.add(name);
+            script.add(action);
+        }
+
+        private void open() {
+            ui.getInternals().setSession(session);
+            MainView view = new MainView(rulePacks, repository, historyStore, optimizer,
+                    new RosterTransferService(repository, rulePacks, Runnable::run), partyBroadcaster,
+                    saveQueue, combatSimulator, validator, new BrowserStorageImport(repository, rulePacks));
+            ui.add(view);
+
+            comboBoxes = descendants(view).filter(ComboBox.class::isInstance)
+                    .map(component -> (ComboBox<String>) component)
+                    .limit(3)
+                    .toList();
+            attributeEditor = descendants(view, AttributeEditor.class).get(0);
+            nameInput = descendants(view, TextField.class).stream()
+                    .filter(field -> "Your character's name".equals(field.getLabel()))
+                    .findFirst()
+                    .orElseThrow();
+            saveButton = descendants(view, Button.class).stream()
+                    .filter(button -> "Save Character".equals(button.getText()))
+                    .findFirst()
+                    .orElseThrow();
+            RosterComponent roster = descendants(view, RosterComponent.class).get(0);
+            rosterNameFilter = descendants(roster, TextField.class).get(0);
+            rosterGrid = descendants(roster).filter(Grid.class::isInstance)
+                    .map(component -> (Grid<SavedCharacter>) component)
+                    .findFirst()
+                    .orElseThrow();
+        }
+
+        private void select(int comboBox, List<String> items) {
+            comboBoxes.get(comboBox).setValue(items.get(random.nextInt(items.size())));
+        }
+
+        private void schedule(long delayNanos) {
+            long due = System.nanoTime() + delayNanos;
+            executor.schedule(() -> runStep(due), delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void runStep(long due) {
+            handle(actionNames.get(step), script.get(step), due);
+            if (++step < script.size()) {
+                schedule((long) ((0.5 + random.nextDouble()) * thinkTimeNanos));
+            } else {
+                finished.countDown();
+            }
+        }
+
+        private void handle(String action, Runnable handler) {
+            handle(action, handler, System.nanoTime());
+        }
+
+        /**
+         * Handles an action like a request from the browser: under the session lock, with the current
+         * instances set, followed by collecting the changes a response would carry.
+         */
+        private void handle(String action, Runnable handler, long due) {
+            Lock lock = session.getLockInstance();
+            lockAcquisitions.incrementAndGet();
+            if (!lock.tryLock()) {
+                contendedAcquisitions.incrementAndGet();
+                long waitStart = System.nanoTime();
+                lock.lock();
+                lockWaits.recordValue(Math.min(System.nanoTime() - waitStart, MAX_LATENCY_NANOS));
+            }
+            Map<Class<?>, CurrentInstance> previous = CurrentInstance.setCurrent(ui);
+            try {
+                handler.run();
+                StateTree stateTree = ui.getInternals().getStateTree();
+                stateTree.runExecutionsBeforeClientResponse();
+                stateTree.collectChanges(change -> {});
+                ui.getInternals().dumpPendingJavaScriptInvocations();
+            } catch (RuntimeException e) {
+                if (failures.getAndIncrement() == 0) {
+                    e.printStackTrace();
+                }
+            } finally {
+                CurrentInstance.restoreInstances(previous);
+                lock.unlock();
+            }
+            latencies.computeIfAbsent(action, name -> new ConcurrentHistogram(MAX_LATENCY_NANOS, 3))
+                    .recordValue(Math.min(System.nanoTime() - due, MAX_LATENCY_NANOS));
+        }
+    }
+}
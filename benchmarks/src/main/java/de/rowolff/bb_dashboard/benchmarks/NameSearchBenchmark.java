@@ -0,0 +1,90 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.search.NameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches of a {@link NameIndex} of generated character names, one page of 50 results as fetched by a
+ * {@code ComboBox}: an exact prefix, a prefix with one typo, and a query matching nothing, which makes the
+ * fuzzy search visit every branch within the allowed typos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class NameSearchBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "ra", "zed", "mo", "ze", "lin", "tor", "va", "shi", "dun", "el",
+            "ar", "bex", "qu", "is", "nor", "ya", "fen", "gal", "o"};
+    private static final int PAGE_SIZE = 50;
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "1000000"})
+    public int nameCount;
+
+    private NameIndex index;
+    private final String[] prefixes = new String[QUERIES];
+    private final String[] typos = new String[QUERIES];
+    private final String[] misses = new String[QUERIES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>(nameCount);
+        for (int i = 0; i < nameCount; i++) {
+            names.add(name(random) + " " + name(random));
+        }
+        index = NameIndex.of(names);
+        for (int i = 0; i < QUERIES; i++) {
+            String name = names.get(random.nextInt(nameCount));
+            prefixes[i] = name.substring(0, 4);
+            char[] typo = name.substring(0, 6).toCharArray();
+            typo[1 + random.nextInt(4)] = 'x';
+            typos[i] = new String(typo);
+            misses[i] = "w" + name.substring(1, 6);
+        }
+    }
+
+    @Benchmark
+    public List<String> prefix() {
+        return index.search(prefixes[next++ & (QUERIES - 1)], 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<String> typo() {
+        return index.search(typos[next++ & (QUERIES - 1)], 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<String> miss() {
+        return index.search(misses[next++ & (QUERIES - 1)], 0, PAGE_SIZE);
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 3 + random.nextInt(2);
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+}
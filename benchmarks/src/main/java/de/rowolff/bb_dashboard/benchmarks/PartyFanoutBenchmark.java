@@ -0,0 +1,149 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.party.PartyBroadcaster;
+import de.rowolff.bb_dashboard.party.PartyListener;
+import de.rowolff.bb_dashboard.party.PartyMember;
+import de.rowolff.bb_dashboard.party.PartyUpdate;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Push fan-out of {@link PartyBroadcaster} under load, without browsers: many rooms whose members publish builds
+ * at a fixed rate. Healthy members finish every update at once; slow members never finish one and should be shed
+ * after the slow consumer timeout without delaying the others.
+ * <p>
+ * Every published build carries its publishing time, so the latency of a delivered row is the age of the build it
+ * shows, which includes the wait for the next frame. Reported are publishes and deliveries per second, how many
+ * builds were coalesced into one row, the shed members and the latency percentiles of the healthy members.
+ * <p>
+ * Run with {@code java -cp benchmarks/target/benchmarks.jar de.rowolff.bb_dashboard.benchmarks.PartyFanoutBenchmark
+ * [rooms] [members per room] [publishes per member and second] [seconds] [slow members %]}.
+ */
+public final class PartyFanoutBenchmark {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    private final LongAdder publishes = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder healthyShed = new LongAdder();
+
+    private PartyFanoutBenchmark() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int membersPerRoom = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        double publishRate = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 15;
+        int slowPercent = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ScheduledThreadPoolExecutor publishers = new ScheduledThreadPoolExecutor(threads);
+        ExecutorService deliveryExecutor = Executors.newFixedThreadPool(threads);
+        PartyBroadcaster broadcaster = new PartyBroadcaster(deliveryExecutor);
+        PartyFanoutBenchmark benchmark = new PartyFanoutBenchmark();
+        RuleSnapshot rules = new CharacterResourceService().getSnapshot();
+        Character character = new Character(rules.attributeSchema());
+        character.setArchetype(rules.archetypeStats(rules.archetypes().keySet().iterator().next()));
+        Character.Stats totals = character.getTotalStats();
+        AttributeSchema schema = rules.attributeSchema();
+
+        Random random = new Random(42);
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / publishRate);
+        List<PartyBroadcaster.Subscription> subscriptions = new ArrayList<>();
+        int slowMembers = 0;
+        for (int room = 0; room < rooms; room++) {
+            for (int member = 0; member < membersPerRoom; member++) {
+                boolean slow = random.nextInt(100) < slowPercent;
+                slowMembers += slow ? 1 : 0;
+                PartyBroadcaster.Subscription subscription = broadcaster.join("room-" + room,
+                        build(schema, totals), slow ? benchmark.slowMember() : benchmark.healthyMember());
+                subscriptions.add(subscription);
+                publishers.scheduleAtFixedRate(() -> {
+                    benchmark.publishes.increment();
+                    subscription.publish(build(schema, totals));
+                }, random.nextLong(periodNanos), periodNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        long start = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        publishers.shutdownNow();
+        long duration = System.nanoTime() - start;
+        subscriptions.forEach(PartyBroadcaster.Subscription::close);
+        broadcaster.close();
+        deliveryExecutor.shutdownNow();
+
+        benchmark.report(rooms * membersPerRoom, slowMembers, membersPerRoom, threads, duration);
+    }
+
+    private static PartyMember build(AttributeSchema schema, Character.Stats totals) {
+        return new PartyMember("", String.valueOf(System.nanoTime()), "", "", "", schema, totals);
+    }
+
+    private PartyListener healthyMember() {
+        return new PartyListener() {
+            @Override
+            public void deliver(PartyUpdate update, Runnable done) {
+                long now = System.nanoTime();
+                for (PartyMember member : update.changed()) {
+                    latencies.recordValue(Math.min(MAX_LATENCY_NANOS, now - Long.parseLong(member.characterName())));
+                }
+                updates.increment();
+                rows.add(update.changed().size());
+                done.run();
+            }
+
+            @Override
+            public void shed() {
+                healthyShed.increment();
+            }
+        };
+    }
+
+    private PartyListener slowMember() {
+        return new PartyListener() {
+            @Override
+            public void deliver(PartyUpdate update, Runnable done) {
+                // never finishes, like a browser that stopped reading
+            }
+
+            @Override
+            public void shed() {
+                shed.increment();
+            }
+        };
+    }
+
+    private void report(int members, int slowMembers, int membersPerRoom, int threads, long durationNanos) {
+        double seconds = durationNanos / 1e9;
+        long published = publishes.sum();
+        System.out.printf("%d members (%d slow), %d threads, %.1f s%n", members, slowMembers, threads, seconds);
+        System.out.printf("%.0f publishes/s, %.0f updates/s, %.0f rows/s%n",
+                published / seconds, updates.sum() / seconds, rows.sum() / seconds);
+        System.out.printf("%.1f builds per delivered row (%d fan-out targets, %d rows)%n",
+                published * (membersPerRoom - 1) / (double) Math.max(1, rows.sum()),
+                published * (membersPerRoom - 1), rows.sum());
+        System.out.printf("shed: %d of %d slow members, %d healthy members%n", shed.sum(), slowMembers,
+                healthyShed.sum());
+        System.out.printf("%n%-18s %9s %9s %9s %9s %9s%n", "latency (ms)", "count", "p50", "p95", "p99", "max");
+        System.out.printf("%-18s %9d %9.1f %9.1f %9.1f %9.1f%n", "healthy rows", latencies.getTotalCount(),
+                latencies.getValueAtPercentile(50) / 1e6, latencies.getValueAtPercentile(95) / 1e6,
+                latencies.getValueAtPercentile(99) / 1e6, latencies.getMaxValue() / 1e6);
+    }
+}
@@ -0,0 +1,51 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of generated rule packs of increasing size by {@link CharacterResourceService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleLoadingBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int classCount;
+
+    private Path rulesDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        rulesDirectory = RulePackGenerator.generate(Math.max(4, classCount / 10), classCount);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        RulePackGenerator.delete(rulesDirectory);
+    }
+
+    @Benchmark
+    public CharacterResourceService loadCharacterData() {
+        return new CharacterResourceService(rulesDirectory);
+    }
+}
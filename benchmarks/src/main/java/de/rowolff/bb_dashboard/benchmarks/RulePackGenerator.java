@@ -0,0 +1,67 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Writes synthetic {@code archetypes.json} and {@code classes.json} files of a given size, so rule
+ * loading can be measured for rule packs much larger than the bundled one.
+ */
+final class RulePackGenerator {
+
+    static final List<String> ATTRIBUTES = List.of("Accuracy", "Damage", "Speed", "Mastery");
+    static final int BACKGROUNDS_PER_CLASS = 5;
+
+    private RulePackGenerator() {}
+
+    static Path generate(int archetypeCount, int classCount) throws IOException {
+        Random random = new Random(42);
+        Path directory = Files.createTempDirectory("rule-pack-");
+
+        Map<String, Map<String, Integer>> archetypes = new LinkedHashMap<>();
+        for (int i = 0; i < archetypeCount; i++) {
+            archetypes.put("Archetype " + i, randomAttributes(random, 4));
+        }
+
+        Map<String, Map<String, Object>> classes = new LinkedHashMap<>();
+        for (int i = 0; i < classCount; i++) {
+            Map<String, Map<String, Integer>> backgrounds = new LinkedHashMap<>();
+            for (int j = 0; j < BACKGROUNDS_PER_CLASS; j++) {
+                backgrounds.put("Background " + i + "-" + j, randomAttributes(random, 1));
+            }
+            Map<String, Object> charClass = new LinkedHashMap<>();
+            charClass.put("attributes", randomAttributes(random, 2));
+            charClass.put("backgrounds", backgrounds);
+            classes.put("Class " + i, charClass);
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.writeValue(directory.resolve("archetypes.json").toFile(), archetypes);
+        mapper.writeValue(directory.resolve("classes.json").toFile(), classes);
+        return directory;
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static Map<String, Integer> randomAttributes(Random random, int maxBonus) {
+        Map<String, Integer> attributes = new LinkedHashMap<>();
+        for (String attribute : ATTRIBUTES) {
+            attributes.put(attribute, random.nextInt(maxBonus + 1));
+        }
+        return attributes;
+    }
+}
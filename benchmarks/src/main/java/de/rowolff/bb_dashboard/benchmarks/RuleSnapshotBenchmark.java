@@ -0,0 +1,75 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.RulePackReader;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.character.RuleSnapshotCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of the rule data: parsing the JSON rule files against decoding the binary snapshot the
+ * build compiles from them. Single-shot, so every measurement is a cold load as on application start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 20)
+@Fork(5)
+public class RuleSnapshotBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int classCount;
+
+    private Path rulesDirectory;
+    private Path snapshotFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        rulesDirectory = RulePackGenerator.generate(Math.max(4, classCount / 10), classCount);
+        snapshotFile = rulesDirectory.resolve(RuleSnapshotCodec.FILE_NAME);
+        Files.write(snapshotFile, RuleSnapshotCodec.encode(json()));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        RulePackGenerator.delete(rulesDirectory);
+    }
+
+    @Benchmark
+    public RuleSnapshot json() throws IOException {
+        RulePackReader reader = new RulePackReader();
+        AttributeSchema schema;
+        try (InputStream is = getClass().getResourceAsStream("/attributes.json")) {
+            schema = reader.readAttributes(is);
+        }
+        try (InputStream archetypes = Files.newInputStream(rulesDirectory.resolve("archetypes.json"));
+             InputStream classes = Files.newInputStream(rulesDirectory.resolve("classes.json"))) {
+            return new RuleSnapshot(1, schema, reader.readArchetypes(archetypes, schema),
+                    reader.readClasses(classes, schema));
+        }
+    }
+
+    @Benchmark
+    public RuleSnapshot binary() throws IOException {
+        return RuleSnapshotCodec.decode(ByteBuffer.wrap(Files.readAllBytes(snapshotFile)), 1);
+    }
+}
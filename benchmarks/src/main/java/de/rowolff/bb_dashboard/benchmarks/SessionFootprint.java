@@ -0,0 +1,131 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.combobox.ComboBox;
+import de.rowolff.bb_dashboard.MainView;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.components.AttributeEditor;
+import de.rowolff.bb_dashboard.history.CharacterHistoryStore;
+import de.rowolff.bb_dashboard.optimizer.BuildOptimizer;
+import de.rowolff.bb_dashboard.party.PartyBroadcaster;
+import de.rowolff.bb_dashboard.simulation.CombatSimulator;
+import de.rowolff.bb_dashboard.storage.MappedCharacterRepository;
+import de.rowolff.bb_dashboard.storage.SaveQueue;
+import de.rowolff.bb_dashboard.transfer.BrowserStorageImport;
+import de.rowolff.bb_dashboard.transfer.RosterTransferService;
+import de.rowolff.bb_dashboard.validation.RosterValidator;
+import elemental.json.Json;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reports the heap retained per session: the used heap after a full GC is compared before and after
+ * creating many detached {@link MainView}s with a selected archetype, class and background and spent points,
+ * and the same for the {@link Character} model alone.
+ * <p>
+ * Run with {@code java -cp benchmarks/target/benchmarks.jar de.rowolff.bb_dashboard.benchmarks.SessionFootprint [sessions]}.
+ */
+public final class SessionFootprint {
+
+    // the party panel is never opened, the broadcaster is only needed to create the views
+    private static final PartyBroadcaster PARTY_BROADCASTER = new PartyBroadcaster(Runnable::run);
+    private static final CombatSimulator COMBAT_SIMULATOR = new CombatSimulator();
+
+    private SessionFootprint() {}
+
+    public static void main(String[] args) throws IOException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        Path storageDirectory = Files.createTempDirectory("session-footprint-");
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(storageDirectory.resolve("characters.log"))) {
+            CharacterResourceService loader = new CharacterResourceService();
+            CharacterHistoryStore historyStore = new CharacterHistoryStore(storageDirectory);
+            BuildOptimizer optimizer = new BuildOptimizer(loader);
+            RulePackRegistry rulePacks = new RulePackRegistry(loader);
+            RosterValidator validator = new RosterValidator(repository, rulePacks);
+            SaveQueue saveQueue = new SaveQueue(repository);
+            // warm up class loading and shared state before measuring
+            createSession(rulePacks, repository, historyStore, optimizer, saveQueue, validator);
+
+            long before = usedHeapAfterGc();
+            List<MainView> views = new ArrayList<>(sessions);
+            for (int i = 0; i < sessions; i++) {
+                views.add(createSession(rulePacks, repository, historyStore, optimizer, saveQueue, validator));
+            }
+            long after = usedHeapAfterGc();
+
+            System.out.printf("%d sessions, %d bytes retained per session%n", views.size(),
+                    (after - before) / views.size());
+
+            before = usedHeapAfterGc();
+            List<Character> characters = new ArrayList<>(sessions);
+            for (int i = 0; i < sessions; i++) {
+                characters.add(createCharacter(loader.getSnapshot()));
+            }
+            after = usedHeapAfterGc();
+
+            System.out.printf("%d characters, %d bytes retained per character%n", characters.size(),
+                    (after - before) / characters.size());
+        } finally {
+            try (var files = Files.list(storageDirectory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(storageDirectory);
+        }
+    }
+
+    private static MainView createSession(RulePackRegistry rulePacks, MappedCharacterRepository repository,
+                                          CharacterHistoryStore historyStore, BuildOptimizer optimizer,
+                                          SaveQueue saveQueue, RosterValidator validator) {
+        MainView view = new MainView(rulePacks, repository, historyStore, optimizer,
+                new RosterTransferService(repository, rulePacks, Runnable::run), PARTY_BROADCASTER,
+                saveQueue, COMBAT_SIMULATOR, validator, new BrowserStorageImport(repository, rulePacks));
+        List<ComboBox<String>> comboBoxes = descendants(view)
+                .filter(ComboBox.class::isInstance)
+                .map(component -> (ComboBox<String>) component)
+                .toList();
+        comboBoxes.get(0).setValue("Enforcer");
+        comboBoxes.get(1).setValue("Assassin");
+        comboBoxes.get(2).setValue("Ghost");
+        descendants(view)
+                .filter(AttributeEditor.class::isInstance)
+                .map(AttributeEditor.class::cast)
+                .findFirst()
+                .orElseThrow()
+                .applyChanges(1, Json.instance().parse("[1, 2]"));
+        return view;
+    }
+
+    private static Character createCharacter(RuleSnapshot rules) {
+        Character character = new Character(rules.attributeSchema());
+        character.setArchetype(rules.archetypeStats("Enforcer"));
+        character.setCharClass(rules.classStats("Assassin"));
+        character.setBackground(rules.backgroundStats("Assassin", "Ghost"));
+        character.spendPoint(0);
+        character.spendPoint(1);
+        return character;
+    }
+
+    private static Stream<Component> descendants(Component component) {
+        return component.getChildren().flatMap(child -> Stream.concat(Stream.of(child), descendants(child)));
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,87 @@
+package de.rowolff.bb_dashboard.benchmarks;
+
+import de.rowolff.bb_dashboard.MainView;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.components.AttributeEditor;
+import de.rowolff.bb_dashboard.history.CharacterHistoryStore;
+import de.rowolff.bb_dashboard.optimizer.BuildOptimizer;
+import de.rowolff.bb_dashboard.party.PartyBroadcaster;
+import de.rowolff.bb_dashboard.simulation.CombatSimulator;
+import de.rowolff.bb_dashboard.storage.MappedCharacterRepository;
+import de.rowolff.bb_dashboard.storage.SaveQueue;
+import de.rowolff.bb_dashboard.transfer.BrowserStorageImport;
+import de.rowolff.bb_dashboard.transfer.RosterTransferService;
+import de.rowolff.bb_dashboard.validation.RosterValidator;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side cost of a "+" and a "-" click on an attribute of a detached {@link MainView}, sent by the browser
+ * as one batch: the point is spent and refunded and the bound fields, including the state of the
+ * {@link AttributeEditor}, are updated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewUpdateBenchmark {
+
+    private Path storageDirectory;
+    private MappedCharacterRepository repository;
+    private AttributeEditor attributeEditor;
+    private final JsonArray changes = Json.instance().parse("[2, -2]");
+    private int batch;
+
+    @Setup
+    public void setUp() throws IOException {
+        storageDirectory = Files.createTempDirectory("view-benchmark-");
+        repository = new MappedCharacterRepository(storageDirectory.resolve("characters.log"));
+        CharacterResourceService loader = new CharacterResourceService();
+        RulePackRegistry rulePacks = new RulePackRegistry(loader);
+        MainView view = new MainView(rulePacks, repository, new CharacterHistoryStore(storageDirectory),
+                new BuildOptimizer(loader),
+                new RosterTransferService(repository, rulePacks, Runnable::run), new PartyBroadcaster(Runnable::run),
+                new SaveQueue(repository), new CombatSimulator(),
+                new RosterValidator(repository, rulePacks), new BrowserStorageImport(repository, rulePacks));
+
+        attributeEditor = (AttributeEditor) view.getChildren()
+                .filter(AttributeEditor.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+        try (var files = Files.list(storageDirectory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(storageDirectory);
+    }
+
+    @Benchmark
+    public void incrementAndDecrement() {
+        attributeEditor.applyChanges(++batch, changes);
+    }
+}
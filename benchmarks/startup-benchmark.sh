@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+# Startup benchmark: time from launching the JVM to the first served MainView, and the resident memory at that
+# point, for the plain jar and for the fast-start mode (Spring AOT and the AppCDS archive of the training run).
+#
+# Build both with `mvn -Pproduction,fast-start package` first, then run from the project root:
+#   benchmarks/startup-benchmark.sh [runs=5]
+set -euo pipefail
+
+RUNS=${1:-5}
+TARGET=${TARGET:-target}
+PORT=${PORT:-18080}
+MANAGEMENT_PORT=${MANAGEMENT_PORT:-18081}
+MARKER="Save Character"
+
+JAR=$(find "$TARGET" -maxdepth 1 -name '*.jar' ! -name '*-plain.jar' | head -n 1)
+FAST_START="$TARGET/fast-start"
+if [[ -z "$JAR" || ! -f "$FAST_START/application.jsa" ]]; then
+    echo "Build the application with: mvn -Pproduction,fast-start package" >&2
+    exit 1
+fi
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+# Opens a MainView like a browser: the bootstrap page, the UI init and the navigation event rendering the route
+open_main_view() {
+    local cookies=$1 root="http://localhost:$PORT/" init token
+    curl -sf -c "$cookies" -b "$cookies" -o /dev/null "$root" || return 1
+    init=$(curl -sf -c "$cookies" -b "$cookies" "$root?v-r=init&location=") || return 1
+    token=$(grep -o '"Vaadin-Security-Key":"[^"]*"' <<< "$init" | cut -d'"' -f4)
+    curl -sf -b "$cookies" -H 'Content-Type: application/json' "$root?v-r=uidl&v-uiId=0" \
+        -d "{\"csrfToken\":\"$token\",\"rpc\":[{\"type\":\"event\",\"node\":1,\"event\":\"ui-navigate\",\
+\"data\":{\"route\":\"\",\"query\":\"\",\"appShellTitle\":\"\",\"historyState\":{\"idx\":0},\"trigger\":\"\"}}],\
+\"syncId\":0,\"clientId\":0}" | grep -q "$MARKER"
+}
+
+# Prints the milliseconds to the first served MainView and the resident set in MB of one start
+measure() {
+    local work pid start rss
+    work=$(mktemp -d)
+    start=$(now_ms)
+    java "$@" --server.port="$PORT" --management.server.port="$MANAGEMENT_PORT" --vaadin.launch-browser=false \
+        --bb-dashboard.storage.file="$work/characters.log" --bb-dashboard.history.directory="$work/history" \
+        > "$work/application.log" 2>&1 &
+    pid=$!
+    until open_main_view "$work/cookies"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "The application did not start, see $work/application.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    echo -n "$(($(now_ms) - start)) "
+    rss=$(awk '/^VmRSS:/ { print $2 }' "/proc/$pid/status")
+    echo $((rss / 1024))
+    kill "$pid"
+    wait "$pid" || true
+    rm -rf "$work"
+}
+
+report() {
+    local mode=$1
+    shift
+    local results
+    results=$(for ((run = 1; run <= RUNS; run++)); do measure "$@"; done)
+    awk -v mode="$mode" '{ time += $1; rss += $2; if (NR == 1 || $1 < best) best = $1 }
+        END { printf "%-12s first MainView %6.0f ms (best %5d ms), resident %5.0f MB\n", mode, time / NR, best,
+              rss / NR }' <<< "$results"
+}
+
+echo "Average of $RUNS starts on $(nproc) cores"
+report "plain jar" -jar "$JAR"
+report "fast-start" -XX:SharedArchiveFile="$FAST_START/application.jsa" -Dspring.aot.enabled=true \
+    -jar "$FAST_START/application.jar"
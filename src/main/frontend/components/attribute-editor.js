@@ -0,0 +1,153 @@
+import { css, html, LitElement } from 'lit';
+import '@vaadin/button';
+
+/**
+ * Spends and refunds the points of all attributes of a character right in the browser.
+ *
+ * A click applies the same rules as the server's Character at once and is only queued; once the clicks pause
+ * for `debounce` milliseconds, the queue goes to the server as one batch of changes, each the attribute index
+ * plus one, positive to spend a point and negative to refund one. The server replays the batch through its
+ * Character and answers with its state and the number of the last batch it applied. What is shown is always
+ * that state with the batches still on their way and the queued clicks replayed on top, so the server's answer
+ * replaces the prediction without flicker, and changes made on the server, such as a new class, are picked up
+ * the same way.
+ */
+class AttributeEditor extends LitElement {
+  static properties = {
+    // name and shortName of every attribute, set once
+    attributes: { type: Array },
+    // the server's state: batch, maxPoints, availablePoints and the base and spent points per attribute
+    state: { type: Object },
+    debounce: { type: Number },
+    _shown: { state: true },
+  };
+
+  static styles = css`
+    :host {
+      display: grid;
+      grid-template-columns: auto auto auto auto auto;
+      align-items: baseline;
+      column-gap: var(--lumo-space-m);
+      row-gap: var(--lumo-space-xs);
+    }
+
+    .header {
+      color: var(--lumo-secondary-text-color);
+      font-size: var(--lumo-font-size-s);
+    }
+
+    .number {
+      text-align: end;
+      font-variant-numeric: tabular-nums;
+    }
+  `;
+
+  constructor() {
+    super();
+    this.attributes = [];
+    this.state = null;
+    this.debounce = 150;
+    this._shown = null;
+    this._queued = [];
+    this._sent = [];
+    this._batch = 0;
+    this._timer = undefined;
+  }
+
+  willUpdate(changed) {
+    if (changed.has('state')) {
+      // the server has applied these batches, its state includes them
+      this._sent = this._sent.filter((batch) => batch.batch > this.state.batch);
+      // a new element for the same server component continues its numbering
+      this._batch = Math.max(this._batch, this.state.batch);
+      this._predict();
+    }
+  }
+
+  disconnectedCallback() {
+    super.disconnectedCallback();
+    this._send();
+  }
+
+  render() {
+    if (!this._shown) {
+      return html``;
+    }
+    return html`
+      <span class="header">Attribute</span>
+      <span class="header number">Value</span>
+      <span class="header number">Modifier</span>
+      <span></span>
+      <span></span>
+      ${this.attributes.map((attribute, index) => {
+        const total = this._shown.base[index] + this._shown.spent[index];
+        return html`
+          <span>${attribute.name} (${attribute.shortName})</span>
+          <span class="number">${total}</span>
+          <span class="number">${Math.trunc(total / 2)}</span>
+          <vaadin-button theme="small" aria-label="Spend a point on ${attribute.name}"
+                         ?disabled=${!canSpend(this._shown)}
+                         @click=${() => this._change(index + 1)}>+</vaadin-button>
+          <vaadin-button theme="small" aria-label="Refund a point of ${attribute.name}"
+                         ?disabled=${!canRefund(this._shown, index)}
+                         @click=${() => this._change(-index - 1)}>-</vaadin-button>
+        `;
+      })}
+    `;
+  }
+
+  _change(change) {
+    if (!this._shown || !apply(this._shown, change)) {
+      return;
+    }
+    this._queued.push(change);
+    this.requestUpdate();
+    clearTimeout(this._timer);
+    this._timer = setTimeout(() => this._send(), this.debounce);
+  }
+
+  _send() {
+    clearTimeout(this._timer);
+    if (this._queued.length === 0 || !this.$server) {
+      return;
+    }
+    const batch = { batch: ++this._batch, changes: this._queued };
+    this._queued = [];
+    this._sent.push(batch);
+    this.$server.applyChanges(batch.batch, batch.changes);
+  }
+
+  _predict() {
+    const shown = {
+      maxPoints: this.state.maxPoints,
+      availablePoints: this.state.availablePoints,
+      base: this.state.base,
+      spent: [...this.state.spent],
+    };
+    this._sent.forEach((batch) => batch.changes.forEach((change) => apply(shown, change)));
+    // a queued click the server's state no longer allows is dropped, as the server would
+    this._queued = this._queued.filter((change) => apply(shown, change));
+    this._shown = shown;
+  }
+}
+
+// the rules of Character.spendPoint and Character.refundPoint
+function canSpend(shown) {
+  return shown.availablePoints > 0;
+}
+
+function canRefund(shown, index) {
+  return shown.spent[index] > 0 && shown.availablePoints < shown.maxPoints;
+}
+
+function apply(shown, change) {
+  const index = Math.abs(change) - 1;
+  if (change > 0 ? !canSpend(shown) : !canRefund(shown, index)) {
+    return false;
+  }
+  shown.spent[index] += Math.sign(change);
+  shown.availablePoints -= Math.sign(change);
+  return true;
+}
+
+customElements.define('attribute-editor', AttributeEditor);
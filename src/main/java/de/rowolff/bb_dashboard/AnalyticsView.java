@@ -0,0 +1,112 @@
+package de.rowolff.bb_dashboard;
+
+import de.rowolff.bb_dashboard.analytics.RosterAnalytics;
+import de.rowolff.bb_dashboard.analytics.RosterStatistics;
+import de.rowolff.bb_dashboard.analytics.ValueHistogram;
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.H3;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.router.RouterLink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Distribution of the picks, attribute totals and spent points over all saved characters. The view reads
+ * the incrementally maintained {@link RosterStatistics}, so it renders in the same time for any roster size.
+ */
+@Route("analytics")
+public class AnalyticsView extends VerticalLayout {
+
+    private final RosterAnalytics analytics;
+
+    private final Span summary = new Span();
+    private final Grid<Share> archetypeGrid = createShareGrid(ARCHETYPE);
+    private final Grid<Share> classGrid = createShareGrid(CLASS);
+    private final Grid<Share> backgroundGrid = createShareGrid(BACKGROUND);
+    private final Grid<AttributeRow> attributeGrid = new Grid<>(AttributeRow.class, false);
+
+    record Share(String name, long count, double percent) {}
+
+    record AttributeRow(String attribute, double mean, int min, int median, int p90, int p99, int max,
+                        long spentPoints, double spentPercent, long spenders) {}
+
+    public AnalyticsView(RosterAnalytics rosterAnalytics) {
+        analytics = rosterAnalytics;
+
+        attributeGrid.addColumn(AttributeRow::attribute).setHeader("Attribute");
+        attributeGrid.addColumn(row -> String.format("%.2f", row.mean())).setHeader("Mean Total");
+        attributeGrid.addColumn(AttributeRow::min).setHeader("Min");
+        attributeGrid.addColumn(AttributeRow::median).setHeader("Median");
+        attributeGrid.addColumn(AttributeRow::p90).setHeader("P90");
+        attributeGrid.addColumn(AttributeRow::p99).setHeader("P99");
+        attributeGrid.addColumn(AttributeRow::max).setHeader("Max");
+        attributeGrid.addColumn(AttributeRow::spentPoints).setHeader("Spent Points");
+        attributeGrid.addColumn(row -> String.format("%.1f %%", row.spentPercent())).setHeader("Share of Spent");
+        attributeGrid.addColumn(AttributeRow::spenders).setHeader("Characters Spending");
+        attributeGrid.setAllRowsVisible(true);
+
+        Button refreshButton = new Button("Refresh", e -> refresh());
+        HorizontalLayout header = new HorizontalLayout(new RouterLink("Back to the builder", MainView.class),
+                refreshButton, summary);
+        header.setAlignItems(Alignment.BASELINE);
+
+        HorizontalLayout picks = new HorizontalLayout(archetypeGrid, classGrid, backgroundGrid);
+        picks.setWidth("100%");
+
+        addClassName("centered-content");
+        add(header, new H3("Picks"), picks, new H3("Attribute Totals and Spent Points"), attributeGrid);
+        refresh();
+    }
+
+    private void refresh() {
+        RosterStatistics statistics = analytics.getStatistics();
+        summary.setText(statistics.getCharacters() + " saved characters");
+        archetypeGrid.setItems(shares(statistics.getArchetypes(), statistics.getCharacters()));
+        classGrid.setItems(shares(statistics.getClasses(), statistics.getCharacters()));
+        backgroundGrid.setItems(shares(statistics.getBackgrounds(), statistics.getCharacters()));
+
+        AttributeSchema schema = statistics.getSchema();
+        long allSpentPoints = 0;
+        for (int i = 0; i < schema.size(); i++) {
+            allSpentPoints += statistics.getSpentPoints(i);
+        }
+        List<AttributeRow> rows = new ArrayList<>(schema.size());
+        for (int i = 0; i < schema.size(); i++) {
+            ValueHistogram totals = statistics.getTotals(i);
+            rows.add(new AttributeRow(schema.name(i), totals.mean(), totals.min(), totals.percentile(0.5),
+                    totals.percentile(0.9), totals.percentile(0.99), totals.max(), statistics.getSpentPoints(i),
+                    percent(statistics.getSpentPoints(i), allSpentPoints), statistics.getSpenders(i)));
+        }
+        attributeGrid.setItems(rows);
+    }
+
+    private static List<Share> shares(Map<String, Long> counts, long total) {
+        List<Share> shares = new ArrayList<>(counts.size());
+        counts.forEach((name, count) -> shares.add(new Share(name.isEmpty() ? "(none)" : name, count,
+                percent(count, total))));
+        return shares;
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+
+    private static Grid<Share> createShareGrid(String header) {
+        Grid<Share> grid = new Grid<>(Share.class, false);
+        grid.addColumn(Share::name).setHeader(header);
+        grid.addColumn(Share::count).setHeader("Picks");
+        grid.addColumn(share -> String.format("%.1f %%", share.percent())).setHeader("Share");
+        grid.setAllRowsVisible(true);
+        return grid;
+    }
+}
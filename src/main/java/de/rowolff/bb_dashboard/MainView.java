@@ -1,44 +1,83 @@
 package de.rowolff.bb_dashboard;
 
-import de.rowolff.bb_dashboard.components.AttributeComponent;
-import elemental.json.Json;
-import elemental.json.JsonArray;
-import elemental.json.JsonObject;
-import elemental.json.impl.JreJsonArray;
-import elemental.json.impl.JreJsonObject;
-
+import de.rowolff.bb_dashboard.components.AttributeEditor;
+import de.rowolff.bb_dashboard.components.BuildOptimizerComponent;
+import de.rowolff.bb_dashboard.components.CharacterBinder;
+import de.rowolff.bb_dashboard.components.CombatSimulatorComponent;
+import de.rowolff.bb_dashboard.components.HistoryComponent;
+import de.rowolff.bb_dashboard.components.PartyComponent;
+import de.rowolff.bb_dashboard.components.RosterComponent;
+import de.rowolff.bb_dashboard.components.RosterTransferComponent;
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import de.rowolff.bb_dashboard.history.CharacterHistory;
+import de.rowolff.bb_dashboard.history.CharacterHistoryStore;
+import de.rowolff.bb_dashboard.optimizer.BuildOptimizer;
+import de.rowolff.bb_dashboard.party.PartyBroadcaster;
+import de.rowolff.bb_dashboard.simulation.CombatSimulator;
+import de.rowolff.bb_dashboard.storage.CharacterRepository;
+import de.rowolff.bb_dashboard.storage.SaveQueue;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import de.rowolff.bb_dashboard.transfer.BrowserStorageImport;
+import de.rowolff.bb_dashboard.transfer.RosterTransferService;
+import de.rowolff.bb_dashboard.validation.RosterValidator;
+
+import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.Key;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.details.Details;
+import com.vaadin.flow.component.html.Anchor;
+import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
-import com.vaadin.flow.component.page.Page;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.VaadinSession;
+import elemental.json.JsonArray;
 
-import java.util.Map;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 
 import jakarta.validation.constraints.NotNull;
 import org.springframework.lang.Contract;
 import de.rowolff.bb_dashboard.character.Character;
-import de.rowolff.bb_dashboard.character.CharacterResource;
-import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
 
 import static de.rowolff.bb_dashboard.utils.Constants.*;
 
 @Route
 public class MainView extends VerticalLayout {
 
-    private final Character character = new Character();
-
-    private final AttributeComponent accuracyBox;
-    private final AttributeComponent damageBox;
-    private final AttributeComponent speedBox;
-    private final AttributeComponent masteryBox;
-
-    private final CharacterResourceService loader;
+    // session attributes: the picked rule pack, and a character of another pack to load after switching to it
+    private static final String RULE_PACK_ATTRIBUTE = "bb-dashboard.rulePack";
+    private static final String PENDING_CHARACTER_ATTRIBUTE = "bb-dashboard.pendingCharacter";
+    // set once the characters saved in the browser have been looked for
+    private static final String BROWSER_STORAGE_ATTRIBUTE = "bb-dashboard.browserStorageImported";
+
+    private final Character character;
+
+    // the rules this session started with, reloads only affect new sessions
+    private final RuleSnapshot rules;
+    // the rule pack of the session, null for the default one
+    private final String rulePack;
+    private final RulePackRegistry rulePacks;
+    private final CharacterRepository repository;
+    private final CharacterHistoryStore historyStore;
+    private final SaveQueue saveQueue;
+    private final RosterValidator validator;
+    private final BrowserStorageImport browserStorageImport;
+
+    // replaced when a saved character is loaded
+    private CharacterHistory history;
+    private boolean historyCommitScheduled;
+    private HistoryComponent historyComponent;
 
     private final TextField archetypeBonusesLabel;
     private final TextField classBonusesLabel;
@@ -50,33 +89,61 @@ public class MainView extends VerticalLayout {
     private final ComboBox<String> classComboBox = new ComboBox<>();
     private final ComboBox<String> backgroundComboBox = new ComboBox<>();
 
-    private final HorizontalLayout characterList = new HorizontalLayout();
+    private final RosterComponent roster;
+
+    public MainView(RulePackRegistry rulePackRegistry, CharacterRepository characterRepository,
+                    CharacterHistoryStore characterHistoryStore, BuildOptimizer buildOptimizer,
+                    RosterTransferService rosterTransferService, PartyBroadcaster partyBroadcaster,
+                    SaveQueue characterSaveQueue, CombatSimulator combatSimulator, RosterValidator rosterValidator,
+                    BrowserStorageImport browserStorage) {
+        rulePacks = rulePackRegistry;
+        VaadinSession session = VaadinSession.getCurrent();
+        String sessionRulePack = session == null ? null : (String) session.getAttribute(RULE_PACK_ATTRIBUTE);
+        Optional<RuleSnapshot> sessionRules = rulePacks.find(sessionRulePack);
+        rulePack = sessionRules.isPresent() && !rulePacks.isDefault(sessionRulePack) ? sessionRulePack : null;
+        rules = sessionRules.orElseGet(rulePacks::getDefault);
+        repository = characterRepository;
+        historyStore = characterHistoryStore;
+        saveQueue = characterSaveQueue;
+        validator = rosterValidator;
+        browserStorageImport = browserStorage;
+        character = new Character(rules.attributeSchema());
+        CharacterBinder binder = new CharacterBinder(this, character);
+        history = new CharacterHistory(character, this::applyCharacter);
+        character.addChangeListener((change, attributeIndex) -> {
+            history.characterChanged(change, attributeIndex);
+            scheduleHistoryCommit();
+        });
 
-    public MainView(CharacterResourceService characterResourceService) {
-        loader = characterResourceService;
-        loadAllCharacters();
+        // RULE PACK SELECTION, only offered if there is a choice
+        List<String> availablePacks = rulePacks.availablePacks();
+        if (availablePacks.size() > 1) {
+            ComboBox<String> rulePackComboBox = new ComboBox<>("Rule Pack", availablePacks);
+            rulePackComboBox.setValue(rules.rulePack());
+            rulePackComboBox.addValueChangeListener(event -> {
+                if (event.isFromClient() && event.getValue() != null) {
+                    switchRulePack(event.getValue(), null);
+                }
+            });
+            add(rulePackComboBox);
+        }
 
         // ATTRIBUTE OVERVIEW
-        accuracyBox = new AttributeComponent(ACCURACY, "ACC", character, this);
-        accuracyBox.setAlignItems(Alignment.BASELINE);
-        damageBox = new AttributeComponent(DAMAGE, "DMG", character, this);
-        damageBox.setAlignItems(Alignment.BASELINE);
-        speedBox = new AttributeComponent(SPEED, "SPD", character, this);
-        speedBox.setAlignItems(Alignment.BASELINE);
-        masteryBox = new AttributeComponent(MASTERY, "MST", character, this);
-        masteryBox.setAlignItems(Alignment.BASELINE);
+        AttributeEditor attributeEditor = new AttributeEditor(character, binder);
 
         // ARCHETYPE SELECTION
-        archetypeComboBox.setItems(loader.getArchetypes().keySet());
+        archetypeComboBox.setItems(query ->
+                rules.searchArchetypes(query.getFilter().orElse(""), query.getOffset(), query.getLimit()).stream());
         archetypeComboBox.addValueChangeListener(
                 event -> updateArchetypeAttributes(event.getValue()));
         archetypeBonusesLabel = new TextField(String.format(BONUS_LABEL, ARCHETYPE, BONUSES));
         HorizontalLayout archetypeLayout = createComboBoxLayout(ARCHETYPE, archetypeComboBox, archetypeBonusesLabel);
 
         // CLASS SELECTION
-        classComboBox.setItems(loader.getClasses().keySet());
+        classComboBox.setItems(query ->
+                rules.searchClasses(query.getFilter().orElse(""), query.getOffset(), query.getLimit()).stream());
         classComboBox.addValueChangeListener(event -> {
-            character.setBackground(Character.Stats.builder().build());
+            character.setBackground(Character.Stats.empty(character.getSchema()));
             updateClassAttributes(event.getValue(), backgroundComboBox);
         });
         classBonusesLabel = new TextField(String.format(BONUS_LABEL, CLASS, BONUSES));
@@ -100,6 +167,10 @@ public class MainView extends VerticalLayout {
         pointsLayout.setAlignItems(Alignment.CENTER);
         pointsField.setWidth("50%");
         spentPointsLabel.setWidth("50%");
+        binder.bind(Character.Change.AVAILABLE_POINTS, () ->
+                pointsField.setValue(String.valueOf(character.getAvailablePointsToSpend())));
+        binder.bind(Character.Change.SPENT_POINTS, () ->
+                spentPointsLabel.setValue(this.formatBonuses(character::getSpentPoints)));
 
         // SAVE CHARACTER
         TextField characterNameInput = new TextField("Your character's name");
@@ -111,107 +182,201 @@ public class MainView extends VerticalLayout {
         saveButton.addClickShortcut(Key.ENTER);
 
         // EXISTING CHARACTERS
-        characterList.setWidth("100%");
+        roster = new RosterComponent(repository, rules, validator, this::loadCharacter);
+        roster.setWidth("100%");
+        Details transferPanel = createLazyDetails("Import / Export", () ->
+                new RosterTransferComponent(rosterTransferService, roster::refresh));
+
+        // BUILD OPTIMIZER
+        Details optimizerPanel = createLazyDetails("Find Best Build", () -> new BuildOptimizerComponent(buildOptimizer,
+                rules, build -> applyCharacter(build.toSavedCharacter(character.getCharacterName()))));
+
+        // COMBAT SIMULATION
+        Details simulationPanel = createLazyDetails("Combat Simulation", () ->
+                new CombatSimulatorComponent(combatSimulator, repository, rules, character));
+
+        // HISTORY
+        Details historyPanel = createLazyDetails("History", () -> {
+            historyComponent = new HistoryComponent(() -> history);
+            return historyComponent;
+        });
+
+        // PARTY
+        Details partyPanel = createLazyDetails("Party", () -> new PartyComponent(partyBroadcaster, character));
 
         // STYLING
         addClassName("centered-content");
 
+        // METRICS
+        addAttachListener(event -> DashboardMetrics.ACTIVE_SESSIONS.incrementAndGet());
+        addDetachListener(event -> DashboardMetrics.ACTIVE_SESSIONS.decrementAndGet());
+
+        // CHARACTERS SAVED IN THE BROWSER BY OLDER VERSIONS
+        addAttachListener(event -> importBrowserStorage(event.getUI()));
+
         // ADD EVERYTHING TO THE LAYOUT
-        add(accuracyBox, damageBox, speedBox, masteryBox,
-                archetypeLayout, classLayout, backgroundLayout, pointsLayout,
-                characterNameInput, saveButton, characterList
+        add(attributeEditor, archetypeLayout, classLayout, backgroundLayout, pointsLayout,
+                characterNameInput, saveButton, historyPanel, partyPanel, roster, transferPanel,
+                optimizerPanel, simulationPanel,
+                new Anchor("analytics", "Roster Analytics")
         );
+
+        String pendingCharacter = session == null ? null : (String) session.getAttribute(PENDING_CHARACTER_ATTRIBUTE);
+        if (pendingCharacter != null) {
+            session.setAttribute(PENDING_CHARACTER_ATTRIBUTE, null);
+            repository.findByName(pendingCharacter).ifPresent(this::loadCharacter);
+        }
     }
 
-    public void updateSpentPoints() {
-        pointsField.setValue(String.valueOf(character.getAvailablePointsToSpend()));
-        spentPointsLabel.setValue(this.formatBonuses(
-                character.getSpentPoints().getAccuracy(),
-                character.getSpentPoints().getDamage(),
-                character.getSpentPoints().getSpeed(),
-                character.getSpentPoints().getMastery())
-        );
+    private void applyCharacter(@NotNull SavedCharacter savedCharacter) {
+        character.reset();
+
+        updateArchetypeAttributes(savedCharacter.archetype());
+        updateClassAttributes(savedCharacter.charClass(), backgroundComboBox);
+
+        int pointsToSpend = MAX_SPENDABLE_POINTS;
+        for (int i = 0; i < character.getSchema().size(); i++) {
+            int spent = savedCharacter.getSpentPoints(character.getSchema().name(i));
+            character.setSpentPoints(i, spent);
+            pointsToSpend -= spent;
+        }
+
+        character.setAvailablePointsToSpend(pointsToSpend);
+
+        archetypeComboBox.setValue(character.getArchetype().getName());
+        classComboBox.setValue(character.getCharClass().getName());
+
+        updateBackgroundAttributes(savedCharacter.background());
+        backgroundComboBox.setValue(character.getBackground().getName());
     }
 
-    private void loadAllCharacters() {
-        UI ui = UI.getCurrent();
-        if (ui != null) {
-            Page page = ui.getPage();
-            page.executeJs("return Object.keys(localStorage).filter(key => key.startsWith('" + CHAR_PREFIX + "'));")
-                    .then(jsonValue -> {
-                        JsonArray characters = ((JreJsonArray) jsonValue);
-                        for (int i = 0; i < characters.length(); i++) {
-                            String characterName = characters.getString(i).split(CHAR_PREFIX)[1];
-                            characterList.add(new Button(characterName, e -> loadCharacter(characterName)));
-                        }
-                    });
+    /**
+     * Loads a saved character together with its history. The history is only used if it ends with the saved
+     * build, which it does unless the character was overwritten elsewhere, e.g. by an import.
+     * <p>
+     * A character of another rule pack switches the session to that pack first. Whatever does not fit the rules
+     * is left out and reported.
+     */
+    private void loadCharacter(@NotNull SavedCharacter savedCharacter) {
+        String characterRulePack = rulePacks.isDefault(savedCharacter.rulePack()) ? null : savedCharacter.rulePack();
+        if (!Objects.equals(characterRulePack, rulePack)) {
+            if (rulePacks.find(characterRulePack).isPresent()) {
+                switchRulePack(characterRulePack, savedCharacter.name());
+            } else {
+                Notification.show("The rule pack " + characterRulePack + " of " + savedCharacter.name()
+                        + " is not available");
+            }
+            return;
+        }
+        Optional<CharacterHistory> saved = historyStore.load(savedCharacter.name(), character, this::applyCharacter)
+                .filter(loaded -> loaded.endsAt(savedCharacter));
+        if (saved.isPresent()) {
+            history = saved.get();
+            history.restoreLatest();
+        } else {
+            history.withoutRecording(() -> applyCharacter(savedCharacter));
+            history = new CharacterHistory(character, this::applyCharacter);
+        }
+        if (historyComponent != null) {
+            historyComponent.refresh();
         }
+        List<String> problems = validator.getProblems(savedCharacter.name());
+        if (!problems.isEmpty()) {
+            Notification.show(savedCharacter.name() + " does not fit the rules: " + String.join("; ", problems));
+        }
+    }
+
+    /**
+     * The rules of a session never change, so it is rebuilt with the new pack, loading the character afterwards.
+     */
+    private void switchRulePack(String newRulePack, String characterToLoad) {
+        VaadinSession session = VaadinSession.getCurrent();
+        session.setAttribute(RULE_PACK_ATTRIBUTE, newRulePack);
+        session.setAttribute(PENDING_CHARACTER_ATTRIBUTE, characterToLoad);
+        getUI().ifPresent(ui -> ui.getPage().reload());
     }
 
-    private void loadCharacter(String characterName) {
-        UI ui = UI.getCurrent();
-        if (ui != null) {
-            Page page = ui.getPage();
-            page.executeJs("return JSON.parse(localStorage.getItem($0));", CHAR_PREFIX + characterName)
-                    .then(jsonValue -> {
-                        JsonObject characterData = ((JreJsonObject) jsonValue);
-                        character.reset();
-
-                        updateArchetypeAttributes(characterData.getString(ARCHETYPE));
-                        updateClassAttributes(characterData.getString(CLASS), backgroundComboBox);
-
-                        int spentAccuracy = (int) characterData.getNumber(ACCURACY);
-                        int spentDamage = (int) characterData.getNumber(DAMAGE);
-                        int spentSpeed = (int) characterData.getNumber(SPEED);
-                        int spentMastery = (int) characterData.getNumber(MASTERY);
-                        int pointsToSpend = new Character().getAvailablePointsToSpend()
-                                - spentAccuracy
-                                - spentDamage
-                                - spentSpeed
-                                - spentMastery;
-
-                        character.setAvailablePointsToSpend(pointsToSpend);
-
-                        character.setSpentPoints(Character.Stats.builder()
-                                .accuracy(spentAccuracy)
-                                .damage(spentDamage)
-                                .speed(spentSpeed)
-                                .mastery(spentMastery)
-                                .build());
-
-                        archetypeComboBox.setValue(character.getArchetype().getName());
-                        classComboBox.setValue(character.getCharClass().getName());
-
-                        updateBackgroundAttributes(characterData.getString(BACKGROUND));
-                        backgroundComboBox.setValue(character.getBackground().getName());
-
-                        updateSpentPoints();
-                        updateAllBoxes();
-                    });
+    /**
+     * Once per session, moves the characters older versions saved in the browser's local storage to the server.
+     * Reading all of them takes one round trip, removing the imported ones none.
+     */
+    private void importBrowserStorage(UI ui) {
+        VaadinSession session = ui.getSession();
+        if (session.getAttribute(BROWSER_STORAGE_ATTRIBUTE) != null) {
+            return;
         }
+        session.setAttribute(BROWSER_STORAGE_ATTRIBUTE, Boolean.TRUE);
+        ui.getPage().executeJs(BrowserStorageImport.PACK_SCRIPT, browserStorageImport.packScriptParameters())
+                .then(JsonArray.class, packed -> {
+                    List<String> imported = browserStorageImport.importPacked(packed);
+                    if (!imported.isEmpty()) {
+                        ui.getPage().executeJs(BrowserStorageImport.REMOVE_SCRIPT,
+                                BrowserStorageImport.removeScriptParameters(imported));
+                        roster.refresh();
+                        Notification.show(String.format("Moved %d characters saved in this browser to the server",
+                                imported.size()));
+                    }
+                });
     }
 
+    /**
+     * Queues the character and its history for writing; the roster shows it once it is on disk.
+     */
     private void saveCharacter(String characterName) {
         character.setCharacterName(characterName);
-        JsonObject characterData = Json.createObject();
-        characterData.put("name", character.getCharacterName());
-        characterData.put(ARCHETYPE, character.getArchetype().getName());
-        characterData.put(CLASS, character.getCharClass().getName());
-        characterData.put(BACKGROUND, character.getBackground().getName());
-        characterData.put(ACCURACY, character.getSpentPoints().getAccuracy());
-        characterData.put(DAMAGE, character.getSpentPoints().getDamage());
-        characterData.put(SPEED, character.getSpentPoints().getSpeed());
-        characterData.put(MASTERY, character.getSpentPoints().getMastery());
-
-        UI ui = UI.getCurrent();
-        if (ui != null) {
-            Page page = ui.getPage();
-            page.executeJs("localStorage.setItem($0, JSON.stringify($1));", CHAR_PREFIX
-                    + characterName, characterData);
-            characterList.add(new Button(characterName, e -> loadCharacter(characterName)));
+        byte[] encodedHistory = historyStore.encode(history);
+        Optional<UI> ui = getUI();
+        SavedCharacter savedCharacter = SavedCharacter.of(character).withRulePack(rulePack);
+        saveQueue.save(savedCharacter, historyStore, () -> historyStore.write(characterName, encodedHistory))
+                .whenComplete((saved, error) -> ui.ifPresent(current -> current.access(() -> {
+                    if (error != null) {
+                        Notification.show("Could not save " + characterName);
+                    } else {
+                        roster.refresh();
+                        Notification.show("Saved " + characterName);
+                    }
+                })));
+    }
+
+    /**
+     * All changes of one round trip become a single step of the history.
+     */
+    private void scheduleHistoryCommit() {
+        if (historyCommitScheduled) {
+            return;
+        }
+        Optional<UI> ui = getUI();
+        if (ui.isEmpty()) {
+            commitHistory();
+        } else {
+            historyCommitScheduled = true;
+            ui.get().beforeClientResponse(this, context -> commitHistory());
         }
     }
 
+    private void commitHistory() {
+        historyCommitScheduled = false;
+        history.commit();
+        if (historyComponent != null) {
+            historyComponent.refresh();
+        }
+    }
+
+    /**
+     * Most sessions never open these panels, so their content is only created on first open.
+     */
+    @NotNull
+    private static Details createLazyDetails(String summary, @NotNull Supplier<Component> content) {
+        Details details = new Details(summary);
+        details.addOpenedChangeListener(event -> {
+            if (event.isOpened() && details.getContent().findAny().isEmpty()) {
+                details.add(content.get());
+            }
+        });
+        details.setWidth("100%");
+        return details;
+    }
+
     @NotNull
     private HorizontalLayout createComboBoxLayout(
             String label, @NotNull ComboBox<String> comboBox, @NotNull TextField textField) {
@@ -223,28 +388,15 @@ public class MainView extends VerticalLayout {
         comboBox.setWidth("50%");
         textField.setWidth("50%");
 
-        addComboBoxListeners(comboBox);
-
         return layout;
     }
 
     private void updateArchetypeAttributes(String archetypeName) {
-        if (archetypeName != null && loader.getArchetypes().containsKey(archetypeName)) {
-            Map<String, Integer> bonuses = loader.getArchetypeAttributes(archetypeName);
-
-            character.setArchetype(Character.Stats.builder()
-                    .name(archetypeName)
-                    .accuracy(bonuses.get(ACCURACY))
-                    .damage(bonuses.get(DAMAGE))
-                    .speed(bonuses.get(SPEED))
-                    .mastery(bonuses.get(MASTERY))
-                    .build());
-
-            archetypeBonusesLabel.setValue(this.formatBonuses(
-                    character.getArchetype().getAccuracy(),
-                    character.getArchetype().getDamage(),
-                    character.getArchetype().getSpeed(),
-                    character.getArchetype().getMastery()));
+        Character.Stats archetype = rules.archetypeStats(archetypeName);
+        if (archetype != null) {
+            character.setArchetype(archetype);
+
+            archetypeBonusesLabel.setValue(this.formatBonuses(character.getArchetype()::get));
         } else {
             archetypeBonusesLabel.clear();
             archetypeComboBox.clear();
@@ -252,25 +404,14 @@ public class MainView extends VerticalLayout {
     }
 
     private void updateClassAttributes(String className, ComboBox<String> backgroundCombobox) {
-        if (className != null && loader.getClasses().containsKey(className)) {
-            CharacterResource characterResource = loader.getClasses().get(className);
-            Map<String, Integer> bonuses = characterResource.getAttributes();
-
-            character.setCharClass(Character.Stats.builder()
-                    .name(className)
-                    .accuracy(bonuses.get(ACCURACY))
-                    .damage(bonuses.get(DAMAGE))
-                    .speed(bonuses.get(SPEED))
-                    .mastery(bonuses.get(MASTERY))
-                    .build());
-
-            classBonusesLabel.setValue(this.formatBonuses(
-                    character.getCharClass().getAccuracy(),
-                    character.getCharClass().getDamage(),
-                    character.getCharClass().getSpeed(),
-                    character.getCharClass().getMastery()));
-
-            backgroundCombobox.setItems(characterResource.getBackgrounds().keySet());
+        Character.Stats charClass = rules.classStats(className);
+        if (charClass != null) {
+            character.setCharClass(charClass);
+
+            classBonusesLabel.setValue(this.formatBonuses(character.getCharClass()::get));
+
+            backgroundCombobox.setItems(query -> rules.searchBackgrounds(className, query.getFilter().orElse(""),
+                    query.getOffset(), query.getLimit()).stream());
             backgroundCombobox.setEnabled(true);
         } else {
             classBonusesLabel.clear();
@@ -281,30 +422,14 @@ public class MainView extends VerticalLayout {
 
     private void updateBackgroundAttributes(String backgroundName) {
         if (backgroundName != null) {
-            String className = character.getCharClass().getName();
-            if (className != null && loader.getClasses().containsKey(className)) {
-                CharacterResource characterResource = loader.getClasses().get(className);
-                CharacterResource.Background loadedBackground = characterResource.getBackgrounds().get(backgroundName);
-                if (loadedBackground == null) {
-                    backgroundBonusesLabel.setValue("");
-                    return;
-                }
-                Map<String, Integer> bonuses = loadedBackground.getAttributes();
-
-                character.setBackground(Character.Stats.builder()
-                        .name(backgroundName)
-                        .accuracy(bonuses.get(ACCURACY))
-                        .damage(bonuses.get(DAMAGE))
-                        .speed(bonuses.get(SPEED))
-                        .mastery(bonuses.get(MASTERY))
-                        .build());
-
-                backgroundBonusesLabel.setValue(this.formatBonuses(
-                        character.getBackground().getAccuracy(),
-                        character.getBackground().getDamage(),
-                        character.getBackground().getSpeed(),
-                        character.getBackground().getMastery()));
+            Character.Stats background = rules.backgroundStats(character.getCharClass().getName(), backgroundName);
+            if (background == null) {
+                backgroundBonusesLabel.setValue("");
+                return;
             }
+            character.setBackground(background);
+
+            backgroundBonusesLabel.setValue(this.formatBonuses(character.getBackground()::get));
         } else {
             backgroundBonusesLabel.clear();
             backgroundComboBox.clear();
@@ -314,19 +439,11 @@ public class MainView extends VerticalLayout {
 
     @NotNull
     @Contract
-    private String formatBonuses(int accuracy, int damage, int speed, int mastery) {
-        String formattedBonuses = String.format("ACC +%d, DMG +%d, SPD +%d, MST +%d", accuracy, damage, speed, mastery);
-        return formattedBonuses.replace("+-", "-");
-    }
-
-    private void addComboBoxListeners(@NotNull ComboBox<String> comboBox) {
-        comboBox.addValueChangeListener(event -> updateAllBoxes());
-    }
-
-    private void updateAllBoxes() {
-        accuracyBox.updateFields();
-        damageBox.updateFields();
-        speedBox.updateFields();
-        masteryBox.updateFields();
+    private String formatBonuses(@NotNull IntUnaryOperator valueByIndex) {
+        StringJoiner formattedBonuses = new StringJoiner(", ");
+        for (int i = 0; i < character.getSchema().size(); i++) {
+            formattedBonuses.add(String.format("%s +%d", character.getSchema().shortName(i), valueByIndex.applyAsInt(i)));
+        }
+        return formattedBonuses.toString().replace("+-", "-");
     }
 }
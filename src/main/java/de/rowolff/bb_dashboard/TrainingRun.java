@@ -0,0 +1,95 @@
+package de.rowolff.bb_dashboard;
+
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The training run of the fast-start build (profile {@code fast-start}): with
+ * {@code bb-dashboard.training-run=true} the application loads every rule pack, opens a {@link MainView} the way
+ * a browser does, over HTTP against itself, and exits. The JVM then archives all classes loaded on the way into
+ * the AppCDS archive later starts map instead of loading and verifying them again.
+ * <p>
+ * The route is not rendered until the client asks for it, so after the bootstrap page and the UI init the run
+ * sends the navigation event the client would send.
+ */
+@Component
+public class TrainingRun implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrainingRun.class);
+
+    private static final Pattern CSRF_TOKEN = Pattern.compile("\"Vaadin-Security-Key\":\"([^\"]+)\"");
+    private static final String NAVIGATION = "{\"csrfToken\":\"%s\",\"rpc\":[{\"type\":\"event\",\"node\":1,"
+            + "\"event\":\"ui-navigate\",\"data\":{\"route\":\"\",\"query\":\"\",\"appShellTitle\":\"\","
+            + "\"historyState\":{\"idx\":0},\"trigger\":\"\"}}],\"syncId\":0,\"clientId\":0}";
+    // rendered by MainView only
+    private static final String MAIN_VIEW_MARKER = "Save Character";
+
+    private final boolean enabled;
+    private final RulePackRegistry rulePacks;
+    private final ConfigurableApplicationContext context;
+
+    public TrainingRun(@Value("${bb-dashboard.training-run:false}") boolean enabled, RulePackRegistry rulePacks,
+                       ConfigurableApplicationContext context) {
+        this.enabled = enabled;
+        this.rulePacks = rulePacks;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (String rulePack : rulePacks.availablePacks()) {
+            rulePacks.find(rulePack);
+        }
+        openMainView(context.getEnvironment().getRequiredProperty("local.server.port", Integer.class));
+        LOGGER.info("Training run finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private static void openMainView(int port) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+        String root = "http://localhost:" + port + "/";
+        get(client, root);
+        Matcher csrfToken = CSRF_TOKEN.matcher(get(client, root + "?v-r=init&location="));
+        if (!csrfToken.find()) {
+            throw new IllegalStateException("No CSRF token in the UI init response");
+        }
+        HttpRequest navigation = HttpRequest.newBuilder(URI.create(root + "?v-r=uidl&v-uiId=0"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(String.format(NAVIGATION, csrfToken.group(1))))
+                .build();
+        String response = client.send(navigation, HttpResponse.BodyHandlers.ofString()).body();
+        if (!response.contains(MAIN_VIEW_MARKER)) {
+            throw new IllegalStateException("Navigation did not render the main view: " + response);
+        }
+    }
+
+    private static String get(HttpClient client, String uri) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(uri)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(uri + " answered " + response.statusCode());
+        }
+        return response.body();
+    }
+}
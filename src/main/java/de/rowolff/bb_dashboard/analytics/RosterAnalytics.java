@@ -0,0 +1,97 @@
+package de.rowolff.bb_dashboard.analytics;
+
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.storage.CharacterRepository;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the {@link RosterStatistics} of all saved characters up to date. The roster is read once, when the
+ * service starts; after that every save, overwrite and delete of the {@link CharacterRepository} adds and
+ * removes the affected character, so reading the statistics never touches the roster.
+ * <p>
+ * Attribute totals depend on the rule data. When the rules were reloaded, the next read recomputes the
+ * statistics once with the new rules. Only characters of the default rule pack are counted, as the statistics
+ * cover the attributes and entries of a single pack.
+ */
+@Service
+public class RosterAnalytics {
+
+    private final CharacterRepository repository;
+    private final CharacterResourceService rulesService;
+    private final CharacterRepository.ChangeListener listener = this::rosterChanged;
+    private final Object rebuildLock = new Object();
+
+    // guarded by this
+    private RuleSnapshot rules;
+    private RosterStatistics statistics;
+
+    public RosterAnalytics(CharacterRepository repository, CharacterResourceService rulesService) {
+        this.repository = repository;
+        this.rulesService = rulesService;
+        rebuild(rulesService.getSnapshot());
+    }
+
+    /**
+     * @return a copy of the current statistics, its size only depends on the rule data
+     */
+    public RosterStatistics getStatistics() {
+        RuleSnapshot current = rulesService.getSnapshot();
+        if (current.version() != rulesVersion()) {
+            rebuild(current);
+        }
+        synchronized (this) {
+            return statistics.copy();
+        }
+    }
+
+    private synchronized long rulesVersion() {
+        return rules.version();
+    }
+
+    private void rebuild(RuleSnapshot current) {
+        synchronized (rebuildLock) {
+            if (rules != null && rulesVersion() == current.version()) {
+                return;
+            }
+            repository.removeChangeListener(listener);
+            synchronized (this) {
+                rules = current;
+                statistics = new RosterStatistics(current.attributeSchema());
+            }
+            // replays the whole roster, then keeps reporting changes
+            repository.addChangeListener(listener);
+        }
+    }
+
+    private synchronized void rosterChanged(SavedCharacter previous, SavedCharacter current) {
+        if (previous != null && previous.rulePack() == null) {
+            statistics.remove(previous, totalsOf(previous));
+        }
+        if (current != null && current.rulePack() == null) {
+            statistics.add(current, totalsOf(current));
+        }
+    }
+
+    private Character.Stats totalsOf(SavedCharacter saved) {
+        Character character = new Character(rules.attributeSchema());
+        Character.Stats archetype = rules.archetypeStats(saved.archetype());
+        if (archetype != null) {
+            character.setArchetype(archetype);
+        }
+        Character.Stats charClass = rules.classStats(saved.charClass());
+        if (charClass != null) {
+            character.setCharClass(charClass);
+        }
+        Character.Stats background = rules.backgroundStats(saved.charClass(), saved.background());
+        if (background != null) {
+            character.setBackground(background);
+        }
+        for (int i = 0; i < rules.attributeSchema().size(); i++) {
+            character.setSpentPoints(i, saved.getSpentPoints(rules.attributeSchema().name(i)));
+        }
+        return character.getTotalStats();
+    }
+}
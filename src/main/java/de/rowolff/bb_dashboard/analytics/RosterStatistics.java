@@ -0,0 +1,136 @@
+package de.rowolff.bb_dashboard.analytics;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregates over a set of saved characters: how often each archetype, class and background was picked,
+ * the distribution of every attribute total and how many points were spent on every attribute.
+ * <p>
+ * Every aggregate is a count or sum, so characters can be added and removed again in constant time and
+ * statistics of disjoint rosters can be merged. Their size depends on the rule data, not on the number of
+ * characters. Not thread-safe.
+ */
+public final class RosterStatistics implements Serializable {
+
+    private static final String NONE = "";
+
+    private final AttributeSchema schema;
+    private long characters;
+    private final TreeMap<String, Long> archetypes = new TreeMap<>();
+    private final TreeMap<String, Long> classes = new TreeMap<>();
+    private final TreeMap<String, Long> backgrounds = new TreeMap<>();
+    private final ValueHistogram[] totals;
+    private final long[] spentPoints;
+    private final long[] spenders;
+
+    public RosterStatistics(AttributeSchema schema) {
+        this.schema = schema;
+        this.totals = new ValueHistogram[schema.size()];
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new ValueHistogram();
+        }
+        this.spentPoints = new long[schema.size()];
+        this.spenders = new long[schema.size()];
+    }
+
+    /**
+     * @param totals the attribute totals of the character, see {@link Character#getTotalStats()}
+     */
+    public void add(SavedCharacter character, Character.Stats totals) {
+        update(character, totals, 1);
+    }
+
+    /**
+     * @param totals the attribute totals the character was added with
+     */
+    public void remove(SavedCharacter character, Character.Stats totals) {
+        update(character, totals, -1);
+    }
+
+    public void merge(RosterStatistics other) {
+        characters += other.characters;
+        other.archetypes.forEach((name, count) -> count(archetypes, name, count));
+        other.classes.forEach((name, count) -> count(classes, name, count));
+        other.backgrounds.forEach((name, count) -> count(backgrounds, name, count));
+        for (int i = 0; i < totals.length; i++) {
+            totals[i].merge(other.totals[i]);
+            spentPoints[i] += other.spentPoints[i];
+            spenders[i] += other.spenders[i];
+        }
+    }
+
+    public RosterStatistics copy() {
+        RosterStatistics copy = new RosterStatistics(schema);
+        copy.merge(this);
+        return copy;
+    }
+
+    public AttributeSchema getSchema() {
+        return schema;
+    }
+
+    public long getCharacters() {
+        return characters;
+    }
+
+    /**
+     * @return the number of characters per archetype name, sorted by name; characters without an archetype
+     * are counted under the empty name
+     */
+    public Map<String, Long> getArchetypes() {
+        return Collections.unmodifiableMap(archetypes);
+    }
+
+    public Map<String, Long> getClasses() {
+        return Collections.unmodifiableMap(classes);
+    }
+
+    public Map<String, Long> getBackgrounds() {
+        return Collections.unmodifiableMap(backgrounds);
+    }
+
+    public ValueHistogram getTotals(int attributeIndex) {
+        return totals[attributeIndex];
+    }
+
+    public long getSpentPoints(int attributeIndex) {
+        return spentPoints[attributeIndex];
+    }
+
+    /**
+     * @return the number of characters that spent at least one point on the attribute
+     */
+    public long getSpenders(int attributeIndex) {
+        return spenders[attributeIndex];
+    }
+
+    private void update(SavedCharacter character, Character.Stats totals, int delta) {
+        characters += delta;
+        count(archetypes, character.archetype(), delta);
+        count(classes, character.charClass(), delta);
+        count(backgrounds, character.background(), delta);
+        for (int i = 0; i < this.totals.length; i++) {
+            if (delta > 0) {
+                this.totals[i].add(totals.get(i));
+            } else {
+                this.totals[i].remove(totals.get(i));
+            }
+            int spent = character.getSpentPoints(schema.name(i));
+            spentPoints[i] += (long) delta * spent;
+            if (spent > 0) {
+                spenders[i] += delta;
+            }
+        }
+    }
+
+    private static void count(Map<String, Long> counts, String name, long delta) {
+        counts.merge(name == null ? NONE : name, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+}
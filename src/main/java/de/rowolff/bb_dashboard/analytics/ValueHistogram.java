@@ -0,0 +1,79 @@
+package de.rowolff.bb_dashboard.analytics;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exact distribution of integer values, kept as a count per distinct value. Attribute totals only span a
+ * few dozen values, so it stays small however many values are added, and unlike a quantile sketch it supports
+ * removing values again. Histograms of disjoint sets can be merged.
+ * <p>
+ * Not thread-safe.
+ */
+public final class ValueHistogram implements Serializable {
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long count;
+    private long sum;
+
+    public void add(int value) {
+        add(value, 1);
+    }
+
+    public void remove(int value) {
+        add(value, -1);
+    }
+
+    /**
+     * Adds the value that many times, or removes it for a negative number.
+     */
+    public void add(int value, long delta) {
+        counts.merge(value, delta, (a, b) -> a + b == 0 ? null : a + b);
+        count += delta;
+        sum += delta * value;
+    }
+
+    public void merge(ValueHistogram other) {
+        other.counts.forEach(this::add);
+    }
+
+    public ValueHistogram copy() {
+        ValueHistogram copy = new ValueHistogram();
+        copy.merge(this);
+        return copy;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return the smallest value that at least that share of the values is less than or equal to, or 0 if
+     * the histogram is empty
+     */
+    public int percentile(double quantile) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            seen += entry.getValue();
+            if (seen >= rank) {
+                return entry.getKey();
+            }
+        }
+        return 0;
+    }
+
+    public int min() {
+        return counts.isEmpty() ? 0 : counts.firstKey();
+    }
+
+    public int max() {
+        return counts.isEmpty() ? 0 : counts.lastKey();
+    }
+}
@@ -0,0 +1,265 @@
+package de.rowolff.bb_dashboard.api;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.validation.RosterValidator;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * The totals and modifiers of builds sent as JSON, calculated without a {@link Character}: the shared
+ * {@link Character.Stats} of the picked archetype, class and background are looked up in the rule snapshot and
+ * summed with the spent points into the totals {@link Character#getTotalStat} keeps, with modifiers as
+ * {@link Character#modifierOf} derives them.
+ * <p>
+ * A request is a build, {@code {"archetype": ..., "class": ..., "background": ..., "spentPoints": {...}}}, or an
+ * array of up to {@value #MAX_BUILDS} builds. The response is a result or an array of results in the same order,
+ * {@code {"totals": {...}, "modifiers": {...}}} with a field per attribute, or {@code {"error": ...}} for a build
+ * that does not fit the rules, checked as {@link RosterValidator#validate} checks saved characters.
+ * <p>
+ * The whole request is parsed into a single array of totals before anything is written, so a malformed request
+ * is rejected as a whole. Besides that array, a request only allocates the picked names and the messages of
+ * invalid builds; Jackson's parser and generator recycle their buffers per thread.
+ */
+public final class BuildCalculation {
+
+    public static final int MAX_BUILDS = 1_000;
+
+    private static final String ARCHETYPE_FIELD = "archetype";
+    private static final String CLASS_FIELD = "class";
+    private static final String BACKGROUND_FIELD = "background";
+    private static final String SPENT_POINTS_FIELD = "spentPoints";
+    private static final String TOTALS_FIELD = "totals";
+    private static final String MODIFIERS_FIELD = "modifiers";
+    private static final String ERROR_FIELD = "error";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final RuleSnapshot rules;
+    private final AttributeSchema schema;
+    private final boolean batch;
+    // the totals of every build, one after the other
+    private int[] totals;
+    // created with the first invalid build
+    private String[] errors;
+    private int size;
+    private int invalidCount;
+
+    private BuildCalculation(RuleSnapshot rules, boolean batch) {
+        this.rules = rules;
+        this.schema = rules.attributeSchema();
+        this.batch = batch;
+        this.totals = new int[(batch ? 8 : 1) * schema.size()];
+    }
+
+    /**
+     * Reads a build or an array of builds and calculates them.
+     *
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if the input is no valid JSON
+     * @throws IllegalArgumentException                           if the input is no build or array of builds
+     */
+    public static BuildCalculation parse(@NotNull RuleSnapshot rules, @NotNull InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            JsonToken token = parser.nextToken();
+            BuildCalculation calculation;
+            if (token == JsonToken.START_ARRAY) {
+                calculation = new BuildCalculation(rules, true);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    calculation.add(parser);
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                calculation = new BuildCalculation(rules, false);
+                calculation.add(parser);
+            } else {
+                throw new IllegalArgumentException("Expected a build or an array of builds");
+            }
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Unexpected content after the builds");
+            }
+            return calculation;
+        }
+    }
+
+    /**
+     * Writes a response holding only the message, for a request that cannot be calculated at all.
+     */
+    public static void writeError(@NotNull OutputStream out, @NotNull String message) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField(ERROR_FIELD, message);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * @return whether the request was an array of builds, answered by an array of results
+     */
+    public boolean isBatch() {
+        return batch;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getInvalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * @return why the build does not fit the rules, or {@code null} if it does
+     */
+    public String getError(int build) {
+        return errors == null ? null : errors[build];
+    }
+
+    public int getTotal(int build, int attribute) {
+        return totals[build * schema.size() + attribute];
+    }
+
+    /**
+     * Writes the results of all builds as UTF-8 JSON. The stream is flushed but not closed.
+     */
+    public void writeTo(@NotNull OutputStream out) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            if (batch) {
+                generator.writeStartArray();
+            }
+            for (int build = 0; build < size; build++) {
+                writeResult(generator, build);
+            }
+            if (batch) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private void writeResult(JsonGenerator generator, int build) throws IOException {
+        generator.writeStartObject();
+        String error = getError(build);
+        if (error != null) {
+            generator.writeStringField(ERROR_FIELD, error);
+        } else {
+            int offset = build * schema.size();
+            generator.writeObjectFieldStart(TOTALS_FIELD);
+            for (int i = 0; i < schema.size(); i++) {
+                generator.writeNumberField(schema.name(i), totals[offset + i]);
+            }
+            generator.writeEndObject();
+            generator.writeObjectFieldStart(MODIFIERS_FIELD);
+            for (int i = 0; i < schema.size(); i++) {
+                generator.writeNumberField(schema.name(i), Character.modifierOf(totals[offset + i]));
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    private void add(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Expected a build object");
+        }
+        if (size == MAX_BUILDS) {
+            throw new IllegalArgumentException(String.format("More than %d builds", MAX_BUILDS));
+        }
+        int offset = size * schema.size();
+        if (offset + schema.size() > totals.length) {
+            totals = Arrays.copyOf(totals, totals.length * 2);
+        }
+        String archetype = "";
+        String charClass = "";
+        String background = "";
+        String pointsError = null;
+        long spent = 0;
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case ARCHETYPE_FIELD -> archetype = readText(parser, field);
+                case CLASS_FIELD -> charClass = readText(parser, field);
+                case BACKGROUND_FIELD -> background = readText(parser, field);
+                case SPENT_POINTS_FIELD -> {
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        throw new IllegalArgumentException("Expected an object for '" + field + "'");
+                    }
+                    while (parser.nextToken() != JsonToken.END_OBJECT) {
+                        // field names are canonicalized by the parser, looking them up allocates nothing
+                        String attribute = parser.currentName();
+                        if (parser.nextToken() != JsonToken.VALUE_NUMBER_INT) {
+                            throw new IllegalArgumentException("Expected a number for '" + attribute + "'");
+                        }
+                        int points = parser.getIntValue();
+                        if (!schema.contains(attribute)) {
+                            if (points != 0 && pointsError == null) {
+                                pointsError = String.format("Unknown attribute '%s'", attribute);
+                            }
+                            continue;
+                        }
+                        if (points < 0 && pointsError == null) {
+                            pointsError = String.format("Negative points for '%s'", attribute);
+                        }
+                        totals[offset + schema.indexOf(attribute)] += points;
+                        spent += points;
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown field '" + field + "'");
+            }
+        }
+
+        Character.Stats archetypeStats = archetype.isEmpty() ? Character.Stats.empty(schema)
+                : rules.archetypeStats(archetype);
+        Character.Stats classStats = charClass.isEmpty() ? Character.Stats.empty(schema)
+                : rules.classStats(charClass);
+        Character.Stats backgroundStats = background.isEmpty() ? Character.Stats.empty(schema)
+                : rules.backgroundStats(charClass, background);
+        String error;
+        if (archetypeStats == null) {
+            error = String.format("Unknown archetype '%s'", archetype);
+        } else if (classStats == null) {
+            error = String.format("Unknown class '%s'", charClass);
+        } else if (backgroundStats == null) {
+            error = String.format("Unknown background '%s' of class '%s'", background, charClass);
+        } else if (pointsError != null) {
+            error = pointsError;
+        } else if (spent > MAX_SPENDABLE_POINTS) {
+            error = String.format("%d points spent, at most %d allowed", spent, MAX_SPENDABLE_POINTS);
+        } else {
+            error = null;
+        }
+
+        if (error == null) {
+            for (int i = 0; i < schema.size(); i++) {
+                totals[offset + i] += archetypeStats.get(i) + classStats.get(i) + backgroundStats.get(i);
+            }
+        } else {
+            Arrays.fill(totals, offset, offset + schema.size(), 0);
+            if (errors == null) {
+                errors = new String[batch ? MAX_BUILDS : 1];
+            }
+            errors[size] = error;
+            invalidCount++;
+        }
+        size++;
+    }
+
+    private static String readText(JsonParser parser, String field) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NULL -> "";
+            default -> throw new IllegalArgumentException("Expected text for '" + field + "'");
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package de.rowolff.bb_dashboard.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * The build API for bots and tools: {@code POST /api/builds[?rulePack=<name>]} with a build or an array of
+ * builds, see {@link BuildCalculation}, answered with their totals and modifiers.
+ * <p>
+ * The endpoint is handled by Spring MVC ahead of the Vaadin servlet and keeps no state, so it creates neither
+ * an HTTP nor a Vaadin session. The request is parsed from and the response written to the servlet streams,
+ * without an object mapper in between.
+ * <p>
+ * An unknown rule pack is answered with 404, a malformed request with 400 and a single build that does not fit
+ * the rules with 422, each with an {@code error} message. A batch is answered with 200 and an error per invalid
+ * build. Requests must be sent as {@code application/json}.
+ */
+@RestController
+public class BuildController {
+
+    public static final String PATH = "/api/builds";
+
+    private static final DistributionSummary BUILDS = DashboardMetrics.apiBuilds();
+
+    private final RulePackRegistry rulePacks;
+
+    public BuildController(RulePackRegistry rulePacks) {
+        this.rulePacks = rulePacks;
+    }
+
+    // JSON only, a form body would be consumed as request parameters
+    @PostMapping(path = PATH, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void calculate(@RequestParam(required = false) String rulePack, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        Optional<RuleSnapshot> rules = rulePacks.find(rulePack);
+        if (rules.isEmpty()) {
+            fail(response, HttpStatus.NOT_FOUND, String.format("Unknown rule pack '%s'", rulePack));
+            return;
+        }
+        BuildCalculation calculation;
+        try {
+            calculation = BuildCalculation.parse(rules.get(), request.getInputStream());
+        } catch (JsonProcessingException e) {
+            fail(response, HttpStatus.BAD_REQUEST, e.getOriginalMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            fail(response, HttpStatus.BAD_REQUEST, e.getMessage());
+            return;
+        }
+        BUILDS.record(calculation.size());
+        if (!calculation.isBatch() && calculation.getInvalidCount() > 0) {
+            response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+        }
+        calculation.writeTo(response.getOutputStream());
+    }
+
+    private static void fail(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        BuildCalculation.writeError(response.getOutputStream(), message);
+    }
+}
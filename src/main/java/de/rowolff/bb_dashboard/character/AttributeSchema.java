@@ -0,0 +1,89 @@
+package de.rowolff.bb_dashboard.character;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.rowolff.bb_dashboard.utils.Constants.UNEXPECTED_VALUE;
+
+/**
+ * The attributes defined by the rule data, in display order. Attribute values are stored in
+ * {@code int} arrays indexed by the position of the attribute in this schema.
+ */
+public final class AttributeSchema implements Serializable {
+
+    private final List<String> names;
+    private final List<String> shortNames;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final Character.Stats emptyStats;
+
+    public AttributeSchema(@NotNull List<String> names, @NotNull List<String> shortNames) {
+        if (names.size() != shortNames.size()) {
+            throw new IllegalArgumentException("Every attribute needs a short name");
+        }
+        this.names = List.copyOf(names);
+        this.shortNames = List.copyOf(shortNames);
+        for (int i = 0; i < names.size(); i++) {
+            if (indexes.put(names.get(i), i) != null) {
+                throw new IllegalArgumentException("Duplicate attribute: " + names.get(i));
+            }
+        }
+        this.emptyStats = new Character.Stats("", new int[names.size()]);
+    }
+
+    Character.Stats emptyStats() {
+        return emptyStats;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String name(int index) {
+        return names.get(index);
+    }
+
+    public String shortName(int index) {
+        return shortNames.get(index);
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    public boolean contains(String name) {
+        return indexes.containsKey(name);
+    }
+
+    public int indexOf(@NotNull String name) {
+        Integer index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalStateException(String.format(UNEXPECTED_VALUE, name));
+        }
+        return index;
+    }
+
+    /**
+     * @return the values of the given attribute map in schema order, attributes missing from the map are 0
+     */
+    public int[] toArray(@NotNull Map<String, Integer> attributes) {
+        int[] values = new int[names.size()];
+        for (int i = 0; i < values.length; i++) {
+            Integer value = attributes.get(names.get(i));
+            values[i] = value == null ? 0 : value;
+        }
+        return values;
+    }
+
+    public Map<String, Integer> toMap(@NotNull int[] values) {
+        Map<String, Integer> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            attributes.put(names.get(i), values[i]);
+        }
+        return attributes;
+    }
+}
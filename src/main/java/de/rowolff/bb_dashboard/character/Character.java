@@ -1,110 +1,261 @@
 package de.rowolff.bb_dashboard.character;
 
-
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.validation.constraints.NotNull;
-import lombok.Builder;
-import lombok.Data;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static de.rowolff.bb_dashboard.utils.Constants.*;
 
-@Data
+/**
+ * A character under construction. All attribute values are kept in arrays indexed by the
+ * {@link AttributeSchema}. The archetype, class and background are shared, immutable {@link Stats} of the
+ * rule data, so a character only owns its spent points and totals; the totals are kept up to date by every
+ * mutation instead of being recomputed.
+ * Every mutation is published to the registered {@link ChangeListener}s, per changed attribute.
+ */
+@Getter
 public class Character implements Serializable {
 
+    private static final Timer SPEND_POINT_TIMER = DashboardMetrics.characterOperation("spendPoint");
+    private static final Timer REFUND_POINT_TIMER = DashboardMetrics.characterOperation("refundPoint");
+    private static final Timer RESET_TIMER = DashboardMetrics.characterOperation("reset");
+
+    private final AttributeSchema schema;
+
     private int availablePointsToSpend = MAX_SPENDABLE_POINTS;
 
+    @Setter
     private String characterName = "";
 
-    private Stats archetype = new Stats("", 0, 0, 0, 0);
-    private Stats charClass = new Stats("", 0, 0, 0, 0);
-    private Stats background = new Stats("", 0, 0, 0, 0);
-    private Stats spentPoints = new Stats("", 0, 0, 0, 0);
+    private Stats archetype;
+    private Stats charClass;
+    private Stats background;
+
+    @Getter(AccessLevel.NONE)
+    private final int[] spentPoints;
+    @Getter(AccessLevel.NONE)
+    private final int[] totals;
+    @Getter(AccessLevel.NONE)
+    private final List<ChangeListener> listeners = new ArrayList<>();
+
+    public Character(@NotNull AttributeSchema schema) {
+        this.schema = schema;
+        this.spentPoints = new int[schema.size()];
+        this.totals = new int[schema.size()];
+        this.archetype = Stats.empty(schema);
+        this.charClass = Stats.empty(schema);
+        this.background = Stats.empty(schema);
+    }
+
+    /**
+     * What changed about a character. {@link #TOTAL} and {@link #SPENT_POINTS} refer to a single attribute.
+     */
+    public enum Change {
+        TOTAL, SPENT_POINTS, AVAILABLE_POINTS, ARCHETYPE, CLASS, BACKGROUND
+    }
+
+    @FunctionalInterface
+    public interface ChangeListener extends Serializable {
+        /**
+         * @param attributeIndex the changed attribute, or -1 if the change is not about a single attribute
+         */
+        void characterChanged(Change change, int attributeIndex);
+    }
+
+    public void addChangeListener(@NotNull ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(@NotNull ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Immutable attribute bonuses of an archetype, class or background. The rule snapshot holds one
+     * instance per rule entry, shared by all characters.
+     */
+    @Getter
+    public static final class Stats implements Serializable {
+        private final String name;
+        @Getter(AccessLevel.NONE)
+        private final int[] values;
+
+        public Stats(String name, @NotNull int[] values) {
+            this.name = name;
+            this.values = values.clone();
+        }
+
+        public static Stats of(String name, @NotNull AttributeSchema schema, @NotNull Map<String, Integer> attributes) {
+            return new Stats(name, schema.toArray(attributes));
+        }
+
+        public static Stats empty(@NotNull AttributeSchema schema) {
+            return schema.emptyStats();
+        }
+
+        public int get(int index) {
+            return values[index];
+        }
+
+        public int size() {
+            return values.length;
+        }
+    }
+
+    public void setArchetype(@NotNull Stats archetype) {
+        Stats previous = this.archetype;
+        this.archetype = checkSize(archetype);
+        entryChanged(Change.ARCHETYPE, previous, archetype);
+    }
+
+    public void setCharClass(@NotNull Stats charClass) {
+        Stats previous = this.charClass;
+        this.charClass = checkSize(charClass);
+        entryChanged(Change.CLASS, previous, charClass);
+    }
+
+    public void setBackground(@NotNull Stats background) {
+        Stats previous = this.background;
+        this.background = checkSize(background);
+        entryChanged(Change.BACKGROUND, previous, background);
+    }
+
+    public void setAvailablePointsToSpend(int availablePointsToSpend) {
+        if (this.availablePointsToSpend != availablePointsToSpend) {
+            this.availablePointsToSpend = availablePointsToSpend;
+            fire(Change.AVAILABLE_POINTS, -1);
+        }
+    }
+
+    public int getSpentPoints(int index) {
+        return spentPoints[index];
+    }
 
-    @Data
-    @Builder
-    public static class Stats implements Serializable {
-        private String name;
-        private int accuracy;
-        private int damage;
-        private int speed;
-        private int mastery;
+    public void setSpentPoints(int index, int points) {
+        int difference = points - spentPoints[index];
+        if (difference != 0) {
+            spentPoints[index] = points;
+            totals[index] += difference;
+            fire(Change.SPENT_POINTS, index);
+            fire(Change.TOTAL, index);
+        }
     }
 
     public Stats getTotalStats() {
-        Stats totalStats = new Stats("Total", 0, 0, 0, 0);
-        totalStats.accuracy = archetype.accuracy + charClass.accuracy + background.accuracy + spentPoints.accuracy;
-        totalStats.damage = archetype.damage + charClass.damage + background.damage + spentPoints.damage;
-        totalStats.speed = archetype.speed + charClass.speed + background.speed + spentPoints.speed;
-        totalStats.mastery = archetype.mastery + charClass.mastery + background.mastery + spentPoints.mastery;
-        return totalStats;
+        return new Stats("Total", totals);
+    }
+
+    public int getTotalStat(int index) {
+        return totals[index];
     }
 
     public int getTotalStatByName(@NotNull String name) {
-        return switch (name) {
-            case ACCURACY -> getTotalStats().accuracy;
-            case DAMAGE -> getTotalStats().damage;
-            case SPEED -> getTotalStats().speed;
-            case MASTERY -> getTotalStats().mastery;
-            default -> throw new IllegalStateException(String.format(UNEXPECTED_VALUE, name));
-        };
+        return getTotalStat(schema.indexOf(name));
+    }
+
+    public int getModifier(int index) {
+        return modifierOf(getTotalStat(index));
     }
 
     public int getModifierByName(@NotNull String name) {
-        return getTotalStatByName(name) / 2;
+        return modifierOf(getTotalStatByName(name));
+    }
+
+    public static int modifierOf(int totalStat) {
+        return totalStat / 2;
     }
 
     public void spendPoint(@NotNull String statName) {
-        if (availablePointsToSpend > 0) {
-            switch (statName) {
-                case ACCURACY:
-                    spentPoints.accuracy++;
-                    break;
-                case DAMAGE:
-                    spentPoints.damage++;
-                    break;
-                case SPEED:
-                    spentPoints.speed++;
-                    break;
-                case MASTERY:
-                    spentPoints.mastery++;
-                    break;
-                default:
-                    throw new IllegalStateException(String.format(UNEXPECTED_VALUE, statName));
+        spendPoint(schema.indexOf(statName));
+    }
+
+    public void spendPoint(int index) {
+        long start = System.nanoTime();
+        try {
+            if (availablePointsToSpend > 0) {
+                spentPoints[index]++;
+                totals[index]++;
+                availablePointsToSpend--;
+                fire(Change.SPENT_POINTS, index);
+                fire(Change.TOTAL, index);
+                fire(Change.AVAILABLE_POINTS, -1);
             }
-            availablePointsToSpend--;
+        } finally {
+            SPEND_POINT_TIMER.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
     public void refundPoint(@NotNull String statName) {
-        boolean statPositive = this.getTotalStatByName(statName) > 0;
-        boolean canRefund = availablePointsToSpend < MAX_SPENDABLE_POINTS;
-        if (statPositive && canRefund) {
-            switch (statName) {
-                case ACCURACY:
-                    spentPoints.accuracy--;
-                    break;
-                case DAMAGE:
-                    spentPoints.damage--;
-                    break;
-                case SPEED:
-                    spentPoints.speed--;
-                    break;
-                case MASTERY:
-                    spentPoints.mastery--;
-                    break;
-                default:
-                    throw new IllegalStateException(String.format(UNEXPECTED_VALUE, statName));
+        refundPoint(schema.indexOf(statName));
+    }
+
+    /**
+     * Refunds a point spent on the attribute. Bonuses of the archetype, class and background cannot be refunded,
+     * so spent points never become negative.
+     */
+    public void refundPoint(int index) {
+        long start = System.nanoTime();
+        try {
+            boolean pointSpent = spentPoints[index] > 0;
+            boolean canRefund = availablePointsToSpend < MAX_SPENDABLE_POINTS;
+            if (pointSpent && canRefund) {
+                spentPoints[index]--;
+                totals[index]--;
+                availablePointsToSpend++;
+                fire(Change.SPENT_POINTS, index);
+                fire(Change.TOTAL, index);
+                fire(Change.AVAILABLE_POINTS, -1);
             }
-            availablePointsToSpend++;
+        } finally {
+            REFUND_POINT_TIMER.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
     public void reset() {
-        availablePointsToSpend = MAX_SPENDABLE_POINTS;
-        spentPoints = new Stats("", 0, 0, 0, 0);
-        archetype = new Stats("", 0, 0, 0, 0);
-        charClass = new Stats("", 0, 0, 0, 0);
-        background = new Stats("", 0, 0, 0, 0);
+        long start = System.nanoTime();
+        try {
+            setAvailablePointsToSpend(MAX_SPENDABLE_POINTS);
+            for (int i = 0; i < spentPoints.length; i++) {
+                setSpentPoints(i, 0);
+            }
+            setArchetype(Stats.empty(schema));
+            setCharClass(Stats.empty(schema));
+            setBackground(Stats.empty(schema));
+        } finally {
+            RESET_TIMER.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void entryChanged(Change change, Stats previous, Stats current) {
+        fire(change, -1);
+        for (int i = 0; i < totals.length; i++) {
+            int difference = current.values[i] - previous.values[i];
+            if (difference != 0) {
+                totals[i] += difference;
+                fire(Change.TOTAL, i);
+            }
+        }
+    }
+
+    private void fire(Change change, int attributeIndex) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).characterChanged(change, attributeIndex);
+        }
+    }
+
+    private Stats checkSize(Stats stats) {
+        if (stats.size() != schema.size()) {
+            throw new IllegalArgumentException(String.format(UNEXPECTED_VALUE, stats.getName()));
+        }
+        return stats;
     }
 }
@@ -1,53 +1,226 @@
 package de.rowolff.bb_dashboard.character;
 
-import lombok.Getter;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
-@Getter
+/**
+ * Holds the rule data as an immutable {@link RuleSnapshot} behind an atomic reference. Reads never
+ * block; a reload builds a complete new snapshot and swaps it in.
+ * <p>
+ * Unless rule files are overridden, the rules compiled into {@value RuleSnapshotCodec#FILE_NAME} at build
+ * time are loaded, which avoids parsing JSON at startup.
+ * <p>
+ * When a rules directory is configured, it is watched for changes of the rule files and the snapshot is
+ * rebuilt in the background. A rule pack that fails to load is logged and the previous snapshot stays.
+ */
 @Service
-public class CharacterResourceService implements Serializable {
+public class CharacterResourceService implements Serializable, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CharacterResourceService.class);
 
-    private Map<String, Map<String, Integer>> archetypes;
-    private Map<String, CharacterResource> classes;
+    private static final Set<String> RULE_FILES = Set.of("attributes.json", "archetypes.json", "classes.json");
+    private static final long RELOAD_QUIET_PERIOD_MILLIS = 200;
+
+    private final transient Path rulesDirectory;
+    private final AtomicReference<RuleSnapshot> snapshot = new AtomicReference<>();
+    private transient WatchService watchService;
 
     public CharacterResourceService() {
-        loadCharacterData();
+        this((Path) null);
     }
 
-    private void loadCharacterData() {
-        ObjectMapper mapper = new ObjectMapper();
-        try (InputStream is = getClass().getResourceAsStream("/archetypes.json")) {
-            archetypes = mapper.readValue(is, Map.class);
+    /**
+     * @param rulesDirectory directory to read the rule files from; files missing there, or all files if
+     *                       {@code null}, are read from the classpath
+     */
+    public CharacterResourceService(Path rulesDirectory) {
+        this.rulesDirectory = rulesDirectory;
+        try {
+            snapshot.set(loadCharacterData(1));
         } catch (IOException e) {
-            e.printStackTrace();
-        }
-        try (InputStream is = getClass().getResourceAsStream("/classes.json")) {
-            Map<String, Map<String, Object>> rawClasses = mapper.readValue(is, Map.class);
-            classes = new HashMap<>();
-            for (Map.Entry<String, Map<String, Object>> entry : rawClasses.entrySet()) {
-                String className = entry.getKey();
-                Map<String, Integer> attributes = (Map<String, Integer>) entry.getValue().get("attributes");
-                Map<String, CharacterResource.Background> backgrounds = new HashMap<>();
-                Map<String, Map<String, Integer>> rawBackgrounds = (Map<String, Map<String, Integer>>) entry.getValue().get("backgrounds");
-                for (Map.Entry<String, Map<String, Integer>> bgEntry : rawBackgrounds.entrySet()) {
-                    backgrounds.put(bgEntry.getKey(), new CharacterResourceImpl.BackgroundImpl(bgEntry.getKey(), bgEntry.getValue()));
+            throw new UncheckedIOException("Could not load the rule data", e);
+        }
+    }
+
+    /**
+     * @param rulesDirectory directory to read and watch the rule files in, empty to only use the classpath
+     */
+    @Autowired
+    public CharacterResourceService(@Value("${bb-dashboard.rules.directory:}") String rulesDirectory) {
+        this(rulesDirectory.isBlank() ? null : Paths.get(rulesDirectory));
+        if (this.rulesDirectory != null) {
+            startWatching();
+        }
+    }
+
+    public RuleSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    public AttributeSchema getAttributeSchema() {
+        return snapshot.get().attributeSchema();
+    }
+
+    public Map<String, Map<String, Integer>> getArchetypes() {
+        return snapshot.get().archetypes();
+    }
+
+    public Map<String, CharacterResource> getClasses() {
+        return snapshot.get().classes();
+    }
+
+    public Map<String, Integer> getArchetypeAttributes(String archetype) {
+        return snapshot.get().getArchetypeAttributes(archetype);
+    }
+
+    /**
+     * Loads the rule files again and publishes them as a new snapshot.
+     *
+     * @return whether the rule files could be loaded
+     */
+    public boolean reload() {
+        RuleSnapshot current = snapshot.get();
+        try {
+            snapshot.set(loadCharacterData(current.version() + 1));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Could not reload the rule data, keeping version {}", current.version(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void startWatching() {
+        try {
+            watchService = rulesDirectory.getFileSystem().newWatchService();
+            rulesDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not watch the rules directory " + rulesDirectory, e);
+        }
+        Thread watcher = new Thread(this::watchRules, "rules-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watchRules() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean rulesChanged = false;
+                // editors and deployments touch files several times, wait until they are done
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        rulesChanged |= event.context() instanceof Path file && RULE_FILES.contains(file.toString());
+                    }
+                    key.reset();
+                    key = watchService.poll(RELOAD_QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (rulesChanged) {
+                    reload();
                 }
-                classes.put(className, new CharacterResourceImpl(className, attributes, backgrounds));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // the service is shutting down
         }
     }
 
-    public Map<String, Integer> getArchetypeAttributes(String archetype) {
-        return archetypes.get(archetype);
+    private RuleSnapshot loadCharacterData(long version) throws IOException {
+        long start = System.nanoTime();
+        String source = RuleSnapshotCodec.FILE_NAME;
+        RuleSnapshot rules = hasRuleOverrides() ? null : loadCompiledRules(version);
+        if (rules == null) {
+            source = "JSON";
+            rules = loadJsonRules(version);
+        }
+        long duration = System.nanoTime() - start;
+        DashboardMetrics.ruleLoad(rules.rulePack(), source).record(duration, TimeUnit.NANOSECONDS);
+        LOGGER.info("Loaded rule data version {} of rule pack {} from {} in {} us", version, rules.rulePack(), source,
+                TimeUnit.NANOSECONDS.toMicros(duration));
+        return rules;
+    }
+
+    private boolean hasRuleOverrides() {
+        return rulesDirectory != null && RULE_FILES.stream().anyMatch(file -> Files.exists(rulesDirectory.resolve(file)));
+    }
+
+    /**
+     * @return the rules compiled into the classpath by the build, or {@code null} if there are none usable
+     */
+    private RuleSnapshot loadCompiledRules(long version) {
+        try (InputStream is = getClass().getResourceAsStream("/" + RuleSnapshotCodec.FILE_NAME)) {
+            if (is == null) {
+                return null;
+            }
+            return RuleSnapshotCodec.decode(ByteBuffer.wrap(is.readAllBytes()), version);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring the compiled rule data, falling back to JSON", e);
+            return null;
+        }
+    }
+
+    private RuleSnapshot loadJsonRules(long version) throws IOException {
+        RulePackReader reader = new RulePackReader();
+        AttributeSchema attributeSchema = readRules("attributes.json", reader::readAttributes);
+        String rulePack = hasRuleOverrides() ? rulesDirectory.getFileName().toString() : RuleSnapshot.BUNDLED_RULE_PACK;
+        return new RuleSnapshot(rulePack, version, attributeSchema,
+                readRules("archetypes.json", is -> reader.readArchetypes(is, attributeSchema)),
+                readRules("classes.json", is -> reader.readClasses(is, attributeSchema)));
+    }
+
+    private <T> T readRules(String fileName, RuleFileReader<T> read) throws IOException {
+        try (InputStream is = openRules(fileName)) {
+            return read.read(is);
+        } catch (JsonProcessingException e) {
+            throw new IOException(fileName + ": " + e.getMessage(), e);
+        }
+    }
+
+    private InputStream openRules(String fileName) throws IOException {
+        if (rulesDirectory != null && Files.exists(rulesDirectory.resolve(fileName))) {
+            return Files.newInputStream(rulesDirectory.resolve(fileName));
+        }
+        InputStream is = getClass().getResourceAsStream("/" + fileName);
+        if (is == null) {
+            throw new IOException("Missing rule file " + fileName);
+        }
+        return is;
+    }
+
+    @FunctionalInterface
+    private interface RuleFileReader<T> {
+        T read(InputStream is) throws IOException;
     }
 }
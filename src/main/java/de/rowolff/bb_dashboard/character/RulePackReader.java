@@ -0,0 +1,172 @@
+package de.rowolff.bb_dashboard.character;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rule files token by token straight into their typed records, so no intermediate tree is
+ * built however large the rule pack is.
+ * <p>
+ * Attribute names are replaced with the instances of the {@link AttributeSchema} and repeated entry
+ * names share a single string. Anything unexpected fails the file with a {@link JsonParseException}
+ * pointing at its line and column.
+ */
+public class RulePackReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Map<String, String> entryNames = new HashMap<>();
+
+    public AttributeSchema readAttributes(@NotNull InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            List<String> names = new ArrayList<>();
+            List<String> shortNames = new ArrayList<>();
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+                String name = null;
+                String shortName = null;
+                while (parser.nextToken() != JsonToken.END_OBJECT) {
+                    String field = parser.currentName();
+                    switch (field) {
+                        case "name" -> name = readString(parser);
+                        case "shortName" -> shortName = readString(parser);
+                        default -> throw error(parser, "Unknown attribute property '%s'", field);
+                    }
+                }
+                if (name == null || shortName == null) {
+                    throw error(parser, "Attribute needs a name and a shortName");
+                }
+                if (names.contains(name)) {
+                    throw error(parser, "Duplicate attribute '%s'", name);
+                }
+                names.add(name);
+                shortNames.add(shortName);
+            }
+            expectEnd(parser);
+            return new AttributeSchema(names, shortNames);
+        }
+    }
+
+    public Map<String, Map<String, Integer>> readArchetypes(@NotNull InputStream in, @NotNull AttributeSchema schema)
+            throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            Map<String, Map<String, Integer>> archetypes = new LinkedHashMap<>();
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() != JsonToken.END_OBJECT) {
+                String name = entryName(parser);
+                if (archetypes.put(name, readAttributeValues(parser, schema)) != null) {
+                    throw error(parser, "Duplicate archetype '%s'", name);
+                }
+            }
+            expectEnd(parser);
+            return Collections.unmodifiableMap(archetypes);
+        }
+    }
+
+    public Map<String, CharacterResource> readClasses(@NotNull InputStream in, @NotNull AttributeSchema schema)
+            throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            Map<String, CharacterResource> classes = new LinkedHashMap<>();
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() != JsonToken.END_OBJECT) {
+                String name = entryName(parser);
+                if (classes.put(name, readClass(parser, name, schema)) != null) {
+                    throw error(parser, "Duplicate class '%s'", name);
+                }
+            }
+            expectEnd(parser);
+            return Collections.unmodifiableMap(classes);
+        }
+    }
+
+    private CharacterResource readClass(JsonParser parser, String className, AttributeSchema schema)
+            throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        Map<String, Integer> attributes = null;
+        Map<String, CharacterResource.Background> backgrounds = null;
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String field = parser.currentName();
+            switch (field) {
+                case "attributes" -> attributes = readAttributeValues(parser, schema);
+                case "backgrounds" -> backgrounds = readBackgrounds(parser, schema);
+                default -> throw error(parser, "Unknown property '%s' of class '%s'", field, className);
+            }
+        }
+        if (attributes == null || backgrounds == null) {
+            throw error(parser, "Class '%s' needs attributes and backgrounds", className);
+        }
+        return new CharacterResourceImpl(className, attributes, backgrounds);
+    }
+
+    private Map<String, CharacterResource.Background> readBackgrounds(JsonParser parser, AttributeSchema schema)
+            throws IOException {
+        Map<String, CharacterResource.Background> backgrounds = new LinkedHashMap<>();
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String name = entryName(parser);
+            CharacterResource.Background background =
+                    new CharacterResourceImpl.BackgroundImpl(name, readAttributeValues(parser, schema));
+            if (backgrounds.put(name, background) != null) {
+                throw error(parser, "Duplicate background '%s'", name);
+            }
+        }
+        return Collections.unmodifiableMap(backgrounds);
+    }
+
+    private static Map<String, Integer> readAttributeValues(JsonParser parser, AttributeSchema schema)
+            throws IOException {
+        Map<String, Integer> values = new LinkedHashMap<>();
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String field = parser.currentName();
+            if (!schema.contains(field)) {
+                throw error(parser, "Unknown attribute '%s'", field);
+            }
+            String attribute = schema.name(schema.indexOf(field));
+            expect(parser, parser.nextToken(), JsonToken.VALUE_NUMBER_INT);
+            if (values.put(attribute, parser.getIntValue()) != null) {
+                throw error(parser, "Duplicate attribute '%s'", attribute);
+            }
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private String entryName(JsonParser parser) throws IOException {
+        String name = parser.currentName();
+        return entryNames.computeIfAbsent(name, n -> n);
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.VALUE_STRING);
+        return parser.getText();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw error(parser, "Expected %s but found %s", expected, actual);
+        }
+    }
+
+    private static void expectEnd(JsonParser parser) throws IOException {
+        if (parser.nextToken() != null) {
+            throw error(parser, "Unexpected content after the rule data");
+        }
+    }
+
+    private static JsonParseException error(JsonParser parser, String format, Object... args) {
+        return new JsonParseException(parser, String.format(format, args));
+    }
+}
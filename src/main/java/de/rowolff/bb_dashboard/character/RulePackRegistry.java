@@ -0,0 +1,231 @@
+package de.rowolff.bb_dashboard.character;
+
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * All rule packs that can be played: the default one of the {@link CharacterResourceService} and the packs
+ * found in the packs directory, one subdirectory per pack named after it, holding the rule files that differ
+ * from the built-in ones.
+ * <p>
+ * Packs are loaded on first use and shared by all sessions using them. The loaded packs are kept in least
+ * recently used order; once their estimated size exceeds the memory budget, the least recently used ones are
+ * evicted, except for the one just requested. An evicted pack still held by a session is handed out again
+ * instead of loading a second copy, so the packs in memory are bounded by the budget plus the ones in use.
+ * The default pack is always loaded and not counted against the budget.
+ * <p>
+ * As a {@link MeterBinder} the Spring bean reports the estimated size of the cached packs; other instances, as
+ * created in tests, report nothing.
+ */
+@Service
+public class RulePackRegistry implements MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RulePackRegistry.class);
+
+    private static final long BYTES_PER_MB = 1024 * 1024;
+    private static final List<String> RULE_FILES = List.of("attributes.json", "archetypes.json", "classes.json");
+
+    private static final Counter HITS = DashboardMetrics.rulePackCache("hit");
+    private static final Counter MISSES = DashboardMetrics.rulePackCache("miss");
+    private static final Counter EVICTIONS = DashboardMetrics.rulePackCache("eviction");
+
+    private final CharacterResourceService defaultRules;
+    private final Path packsDirectory;
+    private final long memoryBudget;
+
+    // guarded by this, in access order
+    private final LinkedHashMap<String, RuleSnapshot> cached = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, WeakReference<RuleSnapshot>> evicted = new HashMap<>();
+    private final Map<String, CompletableFuture<RuleSnapshot>> loading = new HashMap<>();
+    private long residentBytes;
+
+    public RulePackRegistry(CharacterResourceService defaultRules) {
+        this(defaultRules, (Path) null, 0);
+    }
+
+    /**
+     * @param packsDirectory directory holding a subdirectory per rule pack, {@code null} for only the default pack
+     * @param memoryBudget   estimated bytes the cached packs may use, see {@link RuleSnapshot#estimatedSize()}
+     */
+    public RulePackRegistry(CharacterResourceService defaultRules, Path packsDirectory, long memoryBudget) {
+        this.defaultRules = defaultRules;
+        this.packsDirectory = packsDirectory == null ? null : packsDirectory.normalize();
+        this.memoryBudget = memoryBudget;
+    }
+
+    @Autowired
+    public RulePackRegistry(CharacterResourceService defaultRules,
+                            @Value("${bb-dashboard.rules.packs.directory:}") String packsDirectory,
+                            @Value("${bb-dashboard.rules.packs.memory-budget-mb:64}") long memoryBudgetMb) {
+        this(defaultRules, packsDirectory.isBlank() ? null : Paths.get(packsDirectory), memoryBudgetMb * BYTES_PER_MB);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        DashboardMetrics.rulePackMemory(registry, this, RulePackRegistry::getResidentBytes);
+    }
+
+    public RuleSnapshot getDefault() {
+        return defaultRules.getSnapshot();
+    }
+
+    /**
+     * @return whether the name denotes the default rule pack, which {@code null} does
+     */
+    public boolean isDefault(String rulePack) {
+        return rulePack == null || rulePack.equals(getDefault().rulePack());
+    }
+
+    /**
+     * @return the names of all rule packs, the default one first, then the others in alphabetical order
+     */
+    public List<String> availablePacks() {
+        List<String> packs = new ArrayList<>();
+        packs.add(getDefault().rulePack());
+        if (packsDirectory == null || !Files.isDirectory(packsDirectory)) {
+            return packs;
+        }
+        try (Stream<Path> directories = Files.list(packsDirectory)) {
+            directories.filter(RulePackRegistry::isRulePack)
+                    .map(directory -> directory.getFileName().toString())
+                    .filter(name -> !isDefault(name))
+                    .sorted()
+                    .forEach(packs::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list the rule packs in " + packsDirectory, e);
+        }
+        return packs;
+    }
+
+    /**
+     * Returns the rule pack, loading it if it is not in memory. Concurrent requests of a pack being loaded wait
+     * for that load.
+     *
+     * @param rulePack the name of the pack, {@code null} for the default one
+     * @return the pack, or empty if there is no such pack or it could not be loaded
+     */
+    public Optional<RuleSnapshot> find(String rulePack) {
+        if (isDefault(rulePack)) {
+            return Optional.of(getDefault());
+        }
+        CompletableFuture<RuleSnapshot> load;
+        boolean loader = false;
+        synchronized (this) {
+            RuleSnapshot rules = cached.get(rulePack);
+            if (rules == null) {
+                WeakReference<RuleSnapshot> reference = evicted.remove(rulePack);
+                rules = reference == null ? null : reference.get();
+                if (rules != null) {
+                    cache(rulePack, rules);
+                }
+            }
+            if (rules != null) {
+                HITS.increment();
+                return Optional.of(rules);
+            }
+            load = loading.get(rulePack);
+            if (load == null) {
+                MISSES.increment();
+                load = new CompletableFuture<>();
+                loading.put(rulePack, load);
+                loader = true;
+            }
+        }
+        if (loader) {
+            RuleSnapshot rules = null;
+            try {
+                rules = load(rulePack);
+            } finally {
+                // also on errors, so that requests waiting for this load or coming later never hang
+                synchronized (this) {
+                    loading.remove(rulePack);
+                    if (rules != null) {
+                        cache(rulePack, rules);
+                    }
+                }
+                load.complete(rules);
+            }
+        }
+        return Optional.ofNullable(load.join());
+    }
+
+    /**
+     * @return the estimated size of the cached rule packs, without the default one
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public synchronized int getCachedCount() {
+        return cached.size();
+    }
+
+    private void cache(String rulePack, RuleSnapshot rules) {
+        cached.put(rulePack, rules);
+        residentBytes += rules.estimatedSize();
+        Iterator<Map.Entry<String, RuleSnapshot>> leastRecentlyUsed = cached.entrySet().iterator();
+        while (residentBytes > memoryBudget && cached.size() > 1) {
+            Map.Entry<String, RuleSnapshot> eldest = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            residentBytes -= eldest.getValue().estimatedSize();
+            evicted.put(eldest.getKey(), new WeakReference<>(eldest.getValue()));
+            EVICTIONS.increment();
+        }
+        evicted.values().removeIf(reference -> reference.get() == null);
+    }
+
+    /**
+     * @return the loaded pack, or {@code null} if it does not exist or could not be loaded
+     */
+    private RuleSnapshot load(String rulePack) {
+        if (packsDirectory == null || !isDirectoryName(rulePack)) {
+            return null;
+        }
+        Path directory = packsDirectory.resolve(rulePack).normalize();
+        if (!packsDirectory.equals(directory.getParent()) || !isRulePack(directory)) {
+            return null;
+        }
+        try {
+            return new CharacterResourceService(directory).getSnapshot();
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not load rule pack {}", rulePack, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the name is a single plain directory name, which names from requests have to be checked for
+     * before they are resolved
+     */
+    private static boolean isDirectoryName(String name) {
+        return !name.isEmpty() && !name.equals(".") && !name.equals("..")
+                && name.chars().noneMatch(c -> c == '/' || c == '\\' || c < ' ');
+    }
+
+    private static boolean isRulePack(Path directory) {
+        return Files.isDirectory(directory) && RULE_FILES.stream().anyMatch(file -> Files.exists(directory.resolve(file)));
+    }
+}
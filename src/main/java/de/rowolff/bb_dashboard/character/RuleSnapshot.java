@@ -0,0 +1,185 @@
+package de.rowolff.bb_dashboard.character;
+
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import de.rowolff.bb_dashboard.search.NameIndex;
+import io.micrometer.core.instrument.Counter;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One immutable, versioned state of the rule data. A new snapshot is built for every reload, so readers
+ * holding a snapshot always see a complete and consistent set of rules.
+ * <p>
+ * Every archetype, class and background is also held as {@link Character.Stats}, built once per snapshot
+ * and shared by all characters using the entry.
+ */
+public final class RuleSnapshot implements Serializable {
+
+    /** Name of the rule pack shipped with the application. */
+    public static final String BUNDLED_RULE_PACK = "bundled";
+
+    private final String rulePack;
+    private final long version;
+    private final AttributeSchema attributeSchema;
+    private final Map<String, Map<String, Integer>> archetypes;
+    private final Map<String, CharacterResource> classes;
+
+    private final Map<String, Character.Stats> archetypeStats = new HashMap<>();
+    private final Map<String, Character.Stats> classStats = new HashMap<>();
+    private final Map<String, Map<String, Character.Stats>> backgroundStats = new HashMap<>();
+
+    private transient Counter archetypeLookups;
+    private transient Counter classLookups;
+    private transient Counter backgroundLookups;
+
+    // built on first search, most snapshots only serve the few sessions started before the next reload
+    private transient NameIndex archetypeIndex;
+    private transient NameIndex classIndex;
+    private transient Map<String, NameIndex> backgroundIndexes;
+
+    public RuleSnapshot(long version, AttributeSchema attributeSchema, Map<String, Map<String, Integer>> archetypes,
+                        Map<String, CharacterResource> classes) {
+        this(BUNDLED_RULE_PACK, version, attributeSchema, archetypes, classes);
+    }
+
+    public RuleSnapshot(String rulePack, long version, AttributeSchema attributeSchema,
+                        Map<String, Map<String, Integer>> archetypes, Map<String, CharacterResource> classes) {
+        this.rulePack = rulePack;
+        this.version = version;
+        this.attributeSchema = attributeSchema;
+        this.archetypes = archetypes;
+        this.classes = classes;
+        archetypes.forEach((name, attributes) ->
+                archetypeStats.put(name, Character.Stats.of(name, attributeSchema, attributes)));
+        for (CharacterResource charClass : classes.values()) {
+            classStats.put(charClass.name(), Character.Stats.of(charClass.name(), attributeSchema,
+                    charClass.getAttributes()));
+            Map<String, Character.Stats> backgrounds = new HashMap<>();
+            charClass.getBackgrounds().forEach((name, background) ->
+                    backgrounds.put(name, Character.Stats.of(name, attributeSchema, background.getAttributes())));
+            backgroundStats.put(charClass.name(), backgrounds);
+        }
+    }
+
+    public String rulePack() {
+        return rulePack;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public AttributeSchema attributeSchema() {
+        return attributeSchema;
+    }
+
+    public Map<String, Map<String, Integer>> archetypes() {
+        return archetypes;
+    }
+
+    public Map<String, CharacterResource> classes() {
+        return classes;
+    }
+
+    /**
+     * @return a rough estimate of the heap used by the snapshot, from the number of entries and attributes
+     */
+    public long estimatedSize() {
+        // per entry: the map entries and name, the attribute map and the shared stats
+        long entrySize = 256 + 96L * attributeSchema.size();
+        long entries = archetypes.size() + classes.size();
+        for (Map<String, Character.Stats> backgrounds : backgroundStats.values()) {
+            entries += backgrounds.size();
+        }
+        return 1024 + entries * entrySize;
+    }
+
+    public Map<String, Integer> getArchetypeAttributes(String archetype) {
+        countArchetypeLookup();
+        return archetypes.get(archetype);
+    }
+
+    /**
+     * @return the shared stats of the archetype, or {@code null} if there is no such archetype
+     */
+    public Character.Stats archetypeStats(String archetype) {
+        countArchetypeLookup();
+        return archetypeStats.get(archetype);
+    }
+
+    /**
+     * @return the shared stats of the class, or {@code null} if there is no such class
+     */
+    public Character.Stats classStats(String charClass) {
+        if (classLookups == null) {
+            classLookups = DashboardMetrics.ruleLookup(rulePack, "class");
+        }
+        classLookups.increment();
+        return classStats.get(charClass);
+    }
+
+    /**
+     * @return the shared stats of the background of the class, or {@code null} if there is no such background
+     */
+    public Character.Stats backgroundStats(String charClass, String background) {
+        if (backgroundLookups == null) {
+            backgroundLookups = DashboardMetrics.ruleLookup(rulePack, "background");
+        }
+        backgroundLookups.increment();
+        return backgroundStats.getOrDefault(charClass, Collections.emptyMap()).get(background);
+    }
+
+    /**
+     * @return archetype names matching the query, see {@link NameIndex#search}
+     */
+    public List<String> searchArchetypes(String query, int offset, int limit) {
+        NameIndex index;
+        synchronized (this) {
+            if (archetypeIndex == null) {
+                archetypeIndex = NameIndex.of(archetypes.keySet());
+            }
+            index = archetypeIndex;
+        }
+        return index.search(query, offset, limit);
+    }
+
+    /**
+     * @return class names matching the query, see {@link NameIndex#search}
+     */
+    public List<String> searchClasses(String query, int offset, int limit) {
+        NameIndex index;
+        synchronized (this) {
+            if (classIndex == null) {
+                classIndex = NameIndex.of(classes.keySet());
+            }
+            index = classIndex;
+        }
+        return index.search(query, offset, limit);
+    }
+
+    /**
+     * @return names of the backgrounds of the class matching the query, see {@link NameIndex#search}
+     */
+    public List<String> searchBackgrounds(String charClass, String query, int offset, int limit) {
+        NameIndex index;
+        synchronized (this) {
+            if (backgroundIndexes == null) {
+                backgroundIndexes = new HashMap<>();
+            }
+            index = backgroundIndexes.computeIfAbsent(charClass,
+                    name -> NameIndex.of(backgroundStats.getOrDefault(name, Collections.emptyMap()).keySet()));
+        }
+        return index.search(query, offset, limit);
+    }
+
+    private void countArchetypeLookup() {
+        if (archetypeLookups == null) {
+            archetypeLookups = DashboardMetrics.ruleLookup(rulePack, "archetype");
+        }
+        archetypeLookups.increment();
+    }
+}
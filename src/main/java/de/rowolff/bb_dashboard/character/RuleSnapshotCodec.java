@@ -0,0 +1,185 @@
+package de.rowolff.bb_dashboard.character;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of the rule data, compiled from the JSON rule files at build time so the application
+ * can start without parsing JSON:
+ * <pre>
+ * int   magic, short format version
+ * short attribute count, (string name, string short name)*
+ * int   archetype count, (string name, values)*
+ * int   class count, (string name, values, int background count, (string name, values)*)*
+ * values: short count, (short attribute index, int value)*
+ * </pre>
+ * Attribute counts and indexes are unsigned shorts. Strings are written as a short byte length followed by UTF-8
+ * bytes.
+ */
+public final class RuleSnapshotCodec {
+
+    public static final String FILE_NAME = "rules.bin";
+
+    private static final int MAGIC = 0x42425253;
+    private static final short FORMAT_VERSION = 2;
+    private static final int MAX_ATTRIBUTES = 0xFFFF;
+
+    private RuleSnapshotCodec() {}
+
+    /**
+     * Compiles the JSON rule files in the given directory into {@value #FILE_NAME} next to them.
+     * Run by the build on the class output directory.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args[0]);
+        RulePackReader reader = new RulePackReader();
+        AttributeSchema schema;
+        Map<String, Map<String, Integer>> archetypes;
+        Map<String, CharacterResource> classes;
+        try (InputStream is = Files.newInputStream(directory.resolve("attributes.json"))) {
+            schema = reader.readAttributes(is);
+        }
+        try (InputStream is = Files.newInputStream(directory.resolve("archetypes.json"))) {
+            archetypes = reader.readArchetypes(is, schema);
+        }
+        try (InputStream is = Files.newInputStream(directory.resolve("classes.json"))) {
+            classes = reader.readClasses(is, schema);
+        }
+        Files.write(directory.resolve(FILE_NAME), encode(new RuleSnapshot(0, schema, archetypes, classes)));
+    }
+
+    public static byte[] encode(RuleSnapshot rules) throws IOException {
+        AttributeSchema schema = rules.attributeSchema();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            if (schema.size() > MAX_ATTRIBUTES) {
+                throw new IllegalArgumentException("Too many attributes to store: " + schema.size());
+            }
+            out.writeShort(schema.size());
+            for (int i = 0; i < schema.size(); i++) {
+                writeString(out, schema.name(i));
+                writeString(out, schema.shortName(i));
+            }
+            out.writeInt(rules.archetypes().size());
+            for (Map.Entry<String, Map<String, Integer>> archetype : rules.archetypes().entrySet()) {
+                writeString(out, archetype.getKey());
+                writeValues(out, schema, archetype.getValue());
+            }
+            out.writeInt(rules.classes().size());
+            for (CharacterResource charClass : rules.classes().values()) {
+                writeString(out, charClass.name());
+                writeValues(out, schema, charClass.getAttributes());
+                out.writeInt(charClass.getBackgrounds().size());
+                for (CharacterResource.Background background : charClass.getBackgrounds().values()) {
+                    writeString(out, background.getName());
+                    writeValues(out, schema, background.getAttributes());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException if the buffer does not hold a complete and consistent rule snapshot of this format
+     *                     version
+     */
+    public static RuleSnapshot decode(ByteBuffer buffer, long version) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a rule snapshot");
+            }
+            short formatVersion = buffer.getShort();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported rule snapshot format " + formatVersion);
+            }
+            int attributeCount = Short.toUnsignedInt(buffer.getShort());
+            List<String> names = new ArrayList<>(attributeCount);
+            List<String> shortNames = new ArrayList<>(attributeCount);
+            for (int i = 0; i < attributeCount; i++) {
+                names.add(readString(buffer));
+                shortNames.add(readString(buffer));
+            }
+            AttributeSchema schema = new AttributeSchema(names, shortNames);
+            Map<String, String> entryNames = new HashMap<>();
+
+            int archetypeCount = buffer.getInt();
+            Map<String, Map<String, Integer>> archetypes = new LinkedHashMap<>();
+            for (int i = 0; i < archetypeCount; i++) {
+                archetypes.put(readName(buffer, entryNames), readValues(buffer, schema));
+            }
+            int classCount = buffer.getInt();
+            Map<String, CharacterResource> classes = new LinkedHashMap<>();
+            for (int i = 0; i < classCount; i++) {
+                String className = readName(buffer, entryNames);
+                Map<String, Integer> attributes = readValues(buffer, schema);
+                int backgroundCount = buffer.getInt();
+                Map<String, CharacterResource.Background> backgrounds = new LinkedHashMap<>();
+                for (int j = 0; j < backgroundCount; j++) {
+                    String backgroundName = readName(buffer, entryNames);
+                    backgrounds.put(backgroundName,
+                            new CharacterResourceImpl.BackgroundImpl(backgroundName, readValues(buffer, schema)));
+                }
+                classes.put(className, new CharacterResourceImpl(className, attributes,
+                        Collections.unmodifiableMap(backgrounds)));
+            }
+            return new RuleSnapshot(version, schema, Collections.unmodifiableMap(archetypes),
+                    Collections.unmodifiableMap(classes));
+        } catch (RuntimeException e) {
+            // e.g. running out of bytes, negative lengths or unknown attribute indexes
+            throw new IOException("Truncated or corrupted rule snapshot", e);
+        }
+    }
+
+    private static void writeValues(DataOutputStream out, AttributeSchema schema, Map<String, Integer> values)
+            throws IOException {
+        out.writeShort(values.size());
+        for (Map.Entry<String, Integer> value : values.entrySet()) {
+            out.writeShort(schema.indexOf(value.getKey()));
+            out.writeInt(value.getValue());
+        }
+    }
+
+    private static Map<String, Integer> readValues(ByteBuffer buffer, AttributeSchema schema) {
+        int count = Short.toUnsignedInt(buffer.getShort());
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String attribute = schema.name(Short.toUnsignedInt(buffer.getShort()));
+            values.put(attribute, buffer.getInt());
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String too long to store: " + value.length());
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readName(ByteBuffer buffer, Map<String, String> entryNames) {
+        return entryNames.computeIfAbsent(readString(buffer), name -> name);
+    }
+}
@@ -0,0 +1,134 @@
+package de.rowolff.bb_dashboard.components;
+
+import com.vaadin.flow.component.ClientCallable;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.Tag;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.dependency.JsModule;
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import io.micrometer.core.instrument.DistributionSummary;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Optional;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Spending and refunding the points of all attributes, applied right away in the browser by the
+ * {@code attribute-editor} element and sent in debounced batches, so any number of quick clicks costs one
+ * request. The server replays every batch through the {@link Character}, which has the final say, and sends its
+ * state back along with the number of the last applied batch; the browser then shows that state with the
+ * clicks the server has not seen yet on top.
+ */
+@Tag("attribute-editor")
+@JsModule("./components/attribute-editor.js")
+public class AttributeEditor extends Component {
+
+    /** Changes of a batch beyond this are ignored, a person does not click that fast. */
+    public static final int MAX_CHANGES_PER_BATCH = 256;
+
+    private static final DistributionSummary BATCH_SIZE = DashboardMetrics.attributeBatch();
+
+    private final Character character;
+    private int appliedBatch;
+    private boolean applying;
+    private boolean stateScheduled;
+
+    public AttributeEditor(@NotNull Character character, @NotNull CharacterBinder binder) {
+        this.character = character;
+
+        AttributeSchema schema = character.getSchema();
+        JsonArray attributes = Json.createArray();
+        for (int i = 0; i < schema.size(); i++) {
+            JsonObject attribute = Json.createObject();
+            attribute.put("name", schema.name(i));
+            attribute.put("shortName", schema.shortName(i));
+            attributes.set(i, attribute);
+        }
+        getElement().setPropertyJson("attributes", attributes);
+
+        for (int i = 0; i < schema.size(); i++) {
+            binder.bindAttribute(i, this::scheduleState);
+        }
+        binder.bind(Character.Change.AVAILABLE_POINTS, this::scheduleState);
+        writeState();
+    }
+
+    /**
+     * Applies the changes made in the browser in the order they were made, each subject to the rules of
+     * {@link Character#spendPoint} and {@link Character#refundPoint}. A batch that is not newer than the last
+     * applied one is a resend and ignored.
+     *
+     * @param batch   the number of the batch, increasing with every batch
+     * @param changes the attribute index plus one per change, positive to spend a point, negative to refund one
+     */
+    @ClientCallable
+    public void applyChanges(int batch, @NotNull JsonArray changes) {
+        if (batch <= appliedBatch) {
+            return;
+        }
+        appliedBatch = batch;
+        int size = Math.min(changes.length(), MAX_CHANGES_PER_BATCH);
+        BATCH_SIZE.record(size);
+        applying = true;
+        try {
+            for (int i = 0; i < size; i++) {
+                int change = (int) changes.getNumber(i);
+                int index = Math.abs(change) - 1;
+                if (index < 0 || index >= character.getSchema().size()) {
+                    continue;
+                }
+                if (change > 0) {
+                    character.spendPoint(index);
+                } else {
+                    character.refundPoint(index);
+                }
+            }
+        } finally {
+            applying = false;
+        }
+        // also when nothing changed, so the browser drops the batch from its prediction
+        scheduleState();
+    }
+
+    /**
+     * The state is written once per round trip, and once per batch while detached.
+     */
+    private void scheduleState() {
+        if (applying || stateScheduled) {
+            return;
+        }
+        Optional<UI> ui = getUI();
+        if (ui.isEmpty()) {
+            writeState();
+        } else {
+            stateScheduled = true;
+            ui.get().beforeClientResponse(this, context -> {
+                stateScheduled = false;
+                writeState();
+            });
+        }
+    }
+
+    private void writeState() {
+        int size = character.getSchema().size();
+        JsonArray base = Json.createArray();
+        JsonArray spent = Json.createArray();
+        for (int i = 0; i < size; i++) {
+            base.set(i, character.getTotalStat(i) - character.getSpentPoints(i));
+            spent.set(i, character.getSpentPoints(i));
+        }
+        JsonObject state = Json.createObject();
+        state.put("batch", appliedBatch);
+        state.put("maxPoints", MAX_SPENDABLE_POINTS);
+        state.put("availablePoints", character.getAvailablePointsToSpend());
+        state.put("base", base);
+        state.put("spent", spent);
+        getElement().setPropertyJson("state", state);
+    }
+}
@@ -0,0 +1,110 @@
+package de.rowolff.bb_dashboard.components;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.IntegerField;
+import com.vaadin.flow.component.textfield.NumberField;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.optimizer.Build;
+import de.rowolff.bb_dashboard.optimizer.BuildObjective;
+import de.rowolff.bb_dashboard.optimizer.BuildOptimizer;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+public class BuildOptimizerComponent extends VerticalLayout {
+
+    private static final int RESULT_LIMIT = 20;
+
+    private final Map<String, NumberField> weightFields = new LinkedHashMap<>();
+    private final Map<String, IntegerField> minimumFields = new LinkedHashMap<>();
+    private final Grid<Build> resultGrid = new Grid<>(Build.class, false);
+    private final Button searchButton = new Button("Find Best Builds");
+    private final BuildOptimizer optimizer;
+    private final RuleSnapshot rules;
+    private final AttributeSchema schema;
+
+    public BuildOptimizerComponent(@NotNull BuildOptimizer optimizer, @NotNull RuleSnapshot rules,
+                                   @NotNull Consumer<Build> onBuildSelected) {
+        this.optimizer = optimizer;
+        this.rules = rules;
+        this.schema = rules.attributeSchema();
+
+        HorizontalLayout weightLayout = new HorizontalLayout();
+        HorizontalLayout minimumLayout = new HorizontalLayout();
+        for (int i = 0; i < schema.size(); i++) {
+            NumberField weightField = new NumberField(schema.shortName(i) + " Weight");
+            weightField.setValue(1d);
+            weightFields.put(schema.name(i), weightField);
+            weightLayout.add(weightField);
+
+            IntegerField minimumField = new IntegerField("Min " + schema.shortName(i));
+            minimumFields.put(schema.name(i), minimumField);
+            minimumLayout.add(minimumField);
+        }
+
+        searchButton.addClickListener(e -> findBestBuilds());
+        searchButton.setDisableOnClick(true);
+
+        resultGrid.addColumn(Build::archetype).setHeader(ARCHETYPE);
+        resultGrid.addColumn(Build::charClass).setHeader(CLASS);
+        resultGrid.addColumn(Build::background).setHeader(BACKGROUND);
+        resultGrid.addColumn(build -> formatStats(build.spentPoints())).setHeader("Spent Points");
+        resultGrid.addColumn(build -> formatStats(build.totals())).setHeader("Totals");
+        resultGrid.addColumn(build -> String.format("%.2f", build.score())).setHeader("Score");
+        resultGrid.addItemClickListener(event -> onBuildSelected.accept(event.getItem()));
+        resultGrid.setAllRowsVisible(true);
+
+        add(weightLayout, minimumLayout, searchButton, resultGrid);
+    }
+
+    /**
+     * Searches off the session lock, which a large rule pack would otherwise hold for the whole search; the button
+     * stays disabled until the results are shown.
+     */
+    private void findBestBuilds() {
+        Map<String, Double> weights = new HashMap<>();
+        Map<String, Integer> minimums = new HashMap<>();
+        weightFields.forEach((statName, field) -> {
+            if (field.getValue() != null) {
+                weights.put(statName, field.getValue());
+            }
+        });
+        minimumFields.forEach((statName, field) -> {
+            if (field.getValue() != null) {
+                minimums.put(statName, field.getValue());
+            }
+        });
+        UI ui = UI.getCurrent();
+        optimizer.findBestBuildsAsync(rules, new BuildObjective(weights, minimums), RESULT_LIMIT, MAX_SPENDABLE_POINTS)
+                .whenComplete((builds, error) -> ui.access(() -> {
+                    searchButton.setEnabled(true);
+                    if (error != null) {
+                        Notification.show("Could not search builds: " + error.getCause().getMessage());
+                    } else {
+                        resultGrid.setItems(builds);
+                    }
+                }));
+    }
+
+    @NotNull
+    private String formatStats(@NotNull Map<String, Integer> stats) {
+        StringJoiner formattedStats = new StringJoiner(" / ");
+        for (String statName : schema.names()) {
+            formattedStats.add(String.valueOf(stats.get(statName)));
+        }
+        return formattedStats.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package de.rowolff.bb_dashboard.components;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
+
+import de.rowolff.bb_dashboard.character.Character;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Pushes {@link Character} changes into the bound fields at most once per server round trip.
+ * <p>
+ * Change events only mark the affected attributes and properties as dirty. Right before the response is
+ * written, the update of every dirty binding runs once, no matter how many events hit it during the request.
+ * While the owner is not attached to a UI, updates run immediately.
+ */
+public class CharacterBinder implements Character.ChangeListener {
+
+    private final Component owner;
+    private final List<List<Runnable>> attributeBindings = new ArrayList<>();
+    private final Map<Character.Change, List<Runnable>> bindings = new EnumMap<>(Character.Change.class);
+    private final boolean[] dirtyAttributes;
+    private final EnumSet<Character.Change> dirtyChanges = EnumSet.noneOf(Character.Change.class);
+    private boolean flushScheduled;
+
+    public CharacterBinder(@NotNull Component owner, @NotNull Character character) {
+        this.owner = owner;
+        int attributeCount = character.getSchema().size();
+        for (int i = 0; i < attributeCount; i++) {
+            attributeBindings.add(new ArrayList<>());
+        }
+        dirtyAttributes = new boolean[attributeCount];
+        character.addChangeListener(this);
+    }
+
+    /**
+     * Runs {@code update} whenever the total of the attribute changed.
+     */
+    public void bindAttribute(int attributeIndex, @NotNull Runnable update) {
+        attributeBindings.get(attributeIndex).add(update);
+    }
+
+    /**
+     * Runs {@code update} whenever a change of the given kind happened, for any attribute.
+     */
+    public void bind(@NotNull Character.Change change, @NotNull Runnable update) {
+        bindings.computeIfAbsent(change, c -> new ArrayList<>()).add(update);
+    }
+
+    @Override
+    public void characterChanged(Character.Change change, int attributeIndex) {
+        if (change == Character.Change.TOTAL) {
+            dirtyAttributes[attributeIndex] = true;
+        } else {
+            dirtyChanges.add(change);
+        }
+        Optional<UI> ui = owner.getUI();
+        if (ui.isEmpty()) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            ui.get().beforeClientResponse(owner, context -> flush());
+        }
+    }
+
+    /**
+     * Runs the updates of all dirty bindings now.
+     */
+    public void flush() {
+        flushScheduled = false;
+        for (int i = 0; i < dirtyAttributes.length; i++) {
+            if (dirtyAttributes[i]) {
+                dirtyAttributes[i] = false;
+                attributeBindings.get(i).forEach(Runnable::run);
+            }
+        }
+        for (Character.Change change : Character.Change.values()) {
+            if (dirtyChanges.remove(change)) {
+                bindings.getOrDefault(change, List.of()).forEach(Runnable::run);
+            }
+        }
+    }
+}
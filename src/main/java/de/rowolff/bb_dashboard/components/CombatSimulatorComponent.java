@@ -0,0 +1,89 @@
+package de.rowolff.bb_dashboard.components;
+
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.simulation.AttackReport;
+import de.rowolff.bb_dashboard.simulation.CombatProfile;
+import de.rowolff.bb_dashboard.simulation.CombatSimulator;
+import de.rowolff.bb_dashboard.simulation.DuelReport;
+import de.rowolff.bb_dashboard.storage.CharacterRepository;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Optional;
+
+/**
+ * Simulated combat performance of the current build, on its own and against a saved character.
+ */
+public class CombatSimulatorComponent extends VerticalLayout {
+
+    private final CombatSimulator simulator;
+    private final CharacterRepository repository;
+    private final RuleSnapshot rules;
+    private final Character character;
+    private final Span attackResult = new Span();
+    private final ComboBox<String> opponentComboBox = new ComboBox<>("Opponent");
+    private final Span duelResult = new Span();
+
+    public CombatSimulatorComponent(@NotNull CombatSimulator simulator, @NotNull CharacterRepository repository,
+                                    @NotNull RuleSnapshot rules, @NotNull Character character) {
+        this.simulator = simulator;
+        this.repository = repository;
+        this.rules = rules;
+        this.character = character;
+
+        Button simulateButton = new Button("Simulate Attacks", e -> simulateAttacks());
+
+        opponentComboBox.setItems(query -> repository.searchNames(query.getFilter().orElse(""),
+                query.getOffset() + query.getLimit()).stream().skip(query.getOffset()));
+        Button duelButton = new Button("Simulate Duel", e -> simulateDuel());
+        HorizontalLayout duelLayout = new HorizontalLayout(opponentComboBox, duelButton);
+        duelLayout.setAlignItems(Alignment.BASELINE);
+
+        add(simulateButton, attackResult, duelLayout, duelResult);
+    }
+
+    private void simulateAttacks() {
+        AttackReport report = simulator.attack(CombatProfile.of(character));
+        attackResult.setText(String.format("Hits %.1f %% (critical %.1f %%) of %,d rounds, damage per round: "
+                        + "mean %.2f, median %d, 95th percentile %d, max %d", report.hitRate() * 100,
+                report.criticalRate() * 100, report.rounds(), report.damagePerRound().mean(),
+                report.damagePerRound().percentile(0.5), report.damagePerRound().percentile(0.95),
+                report.damagePerRound().max()));
+    }
+
+    private void simulateDuel() {
+        Optional<SavedCharacter> opponent = Optional.ofNullable(opponentComboBox.getValue())
+                .flatMap(repository::findByName);
+        if (opponent.isEmpty()) {
+            duelResult.setText("Pick a saved character to fight against");
+            return;
+        }
+        CombatProfile opponentProfile = CombatProfile.of(toCharacter(opponent.get()));
+        DuelReport report = simulator.duel(CombatProfile.of(character), opponentProfile);
+        duelResult.setText(String.format("Won %.1f %%, lost %.1f %%, drawn %.1f %% of %,d duels, "
+                        + "%.1f rounds on average", report.firstWinRate() * 100, report.secondWinRate() * 100,
+                report.drawRate() * 100, report.encounters(), report.meanRounds()));
+    }
+
+    /**
+     * Entries unknown to the rules of this session count as no bonuses.
+     */
+    private Character toCharacter(SavedCharacter saved) {
+        Character opponent = new Character(rules.attributeSchema());
+        Optional.ofNullable(rules.archetypeStats(saved.archetype())).ifPresent(opponent::setArchetype);
+        Optional.ofNullable(rules.classStats(saved.charClass())).ifPresent(opponent::setCharClass);
+        Optional.ofNullable(rules.backgroundStats(saved.charClass(), saved.background()))
+                .ifPresent(opponent::setBackground);
+        for (int i = 0; i < rules.attributeSchema().size(); i++) {
+            opponent.setSpentPoints(i, saved.getSpentPoints(rules.attributeSchema().name(i)));
+        }
+        return opponent;
+    }
+}
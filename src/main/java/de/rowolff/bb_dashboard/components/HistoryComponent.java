@@ -0,0 +1,73 @@
+package de.rowolff.bb_dashboard.components;
+
+import com.vaadin.flow.component.Key;
+import com.vaadin.flow.component.KeyModifier;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+
+import de.rowolff.bb_dashboard.history.CharacterHistory;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
+
+/**
+ * Undo, redo and the timeline of the {@link CharacterHistory} of the edited character. Clicking a step of the
+ * timeline restores the character to the state after it. Only the visible steps are read from the history.
+ */
+public class HistoryComponent extends VerticalLayout {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private final Supplier<CharacterHistory> history;
+    private final Button undoButton = new Button("Undo", e -> run(() -> history().undo()));
+    private final Button redoButton = new Button("Redo", e -> run(() -> history().redo()));
+    private final Grid<CharacterHistory.Step> timeline = new Grid<>(CharacterHistory.Step.class, false);
+
+    /**
+     * @param history the current history, which changes when another character is loaded
+     */
+    public HistoryComponent(@NotNull Supplier<CharacterHistory> history) {
+        this.history = history;
+
+        undoButton.addClickShortcut(Key.KEY_Z, KeyModifier.CONTROL);
+        redoButton.addClickShortcut(Key.KEY_Y, KeyModifier.CONTROL);
+
+        timeline.addColumn(step -> step.index() == history().getPosition() ? "▶" : "").setFlexGrow(0)
+                .setWidth("3em");
+        timeline.addColumn(CharacterHistory.Step::index).setHeader("#").setFlexGrow(0).setWidth("5em");
+        timeline.addColumn(step -> step.time() == null ? "" : TIME_FORMAT.format(step.time())).setHeader("Time")
+                .setFlexGrow(0).setWidth("7em");
+        timeline.addColumn(CharacterHistory.Step::description).setHeader("Change");
+        timeline.setItems(
+                query -> history().getSteps(query.getOffset(), query.getLimit()).stream(),
+                query -> history().getStepCount());
+        timeline.addItemClickListener(event -> run(() -> history().moveTo(event.getItem().index())));
+        timeline.setHeight("300px");
+
+        add(new HorizontalLayout(undoButton, redoButton), timeline);
+        refresh();
+    }
+
+    /**
+     * Shows new steps and the current position of the history.
+     */
+    public void refresh() {
+        undoButton.setEnabled(history().canUndo());
+        redoButton.setEnabled(history().canRedo());
+        timeline.getDataProvider().refreshAll();
+    }
+
+    private CharacterHistory history() {
+        return history.get();
+    }
+
+    private void run(Runnable action) {
+        action.run();
+        refresh();
+    }
+}
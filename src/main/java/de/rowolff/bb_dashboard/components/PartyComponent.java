@@ -0,0 +1,179 @@
+package de.rowolff.bb_dashboard.components;
+
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.ListDataProvider;
+
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.party.PartyBroadcaster;
+import de.rowolff.bb_dashboard.party.PartyListener;
+import de.rowolff.bb_dashboard.party.PartyMember;
+import de.rowolff.bb_dashboard.party.PartyUpdate;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Joins a party room and lists the live builds of the other members. The own build is published at most once
+ * per round trip, and the updates of the room are pushed to the browser as they arrive.
+ */
+public class PartyComponent extends VerticalLayout {
+
+    private final PartyBroadcaster broadcaster;
+    private final Character character;
+    private final Character.ChangeListener publisher = (change, attributeIndex) -> schedulePublish();
+    private final TextField roomField = new TextField("Party room");
+    private final Button joinButton = new Button("Join", e -> toggleMembership());
+    private final Span status = new Span();
+    private final Map<String, PartyMember> members = new LinkedHashMap<>();
+    private final ListDataProvider<PartyMember> dataProvider = new ListDataProvider<>(members.values());
+
+    private PartyBroadcaster.Subscription subscription;
+    // updates of an earlier membership that were in flight when leaving are dropped
+    private PartyListener membership;
+    private boolean publishScheduled;
+
+    public PartyComponent(@NotNull PartyBroadcaster broadcaster, @NotNull Character character) {
+        this.broadcaster = broadcaster;
+        this.character = character;
+
+        Grid<PartyMember> grid = new Grid<>(PartyMember.class, false);
+        grid.addColumn(member -> member.characterName().isEmpty() ? "Unnamed" : member.characterName())
+                .setHeader("Name");
+        grid.addColumn(PartyMember::archetype).setHeader(ARCHETYPE);
+        grid.addColumn(PartyMember::charClass).setHeader(CLASS);
+        grid.addColumn(PartyMember::background).setHeader(BACKGROUND);
+        grid.addColumn(this::formatTotals).setHeader("Totals").setFlexGrow(2);
+        grid.setItems(dataProvider);
+        grid.setAllRowsVisible(true);
+
+        HorizontalLayout roomLayout = new HorizontalLayout(roomField, joinButton);
+        roomLayout.setAlignItems(Alignment.BASELINE);
+        add(roomLayout, status, grid);
+    }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        character.addChangeListener(publisher);
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        character.removeChangeListener(publisher);
+        leave();
+        super.onDetach(detachEvent);
+    }
+
+    private void toggleMembership() {
+        if (subscription != null) {
+            leave();
+            status.setText("");
+            return;
+        }
+        String room = roomField.getValue().trim();
+        if (room.isEmpty()) {
+            status.setText("Enter the name of a party room");
+            return;
+        }
+        UI ui = UI.getCurrent();
+        PartyListener listener = new PartyListener() {
+            @Override
+            public void deliver(PartyUpdate update, Runnable done) {
+                access(ui, () -> {
+                    if (membership != this) {
+                        done.run();
+                        return;
+                    }
+                    apply(update);
+                    // the browser answers once the push carrying the update has reached it, so a member on a
+                    // stalled connection stops receiving updates and is shed instead of only a busy session
+                    ui.getPage().executeJs("").then(result -> done.run(), error -> done.run());
+                });
+            }
+
+            @Override
+            public void shed() {
+                access(ui, () -> {
+                    if (membership == this) {
+                        leave();
+                        status.setText("The connection was too slow to keep up with the party, join again");
+                    }
+                });
+            }
+        };
+        try {
+            subscription = broadcaster.join(room, PartyMember.of("", character), listener);
+            membership = listener;
+        } catch (IllegalStateException e) {
+            status.setText(e.getMessage());
+            return;
+        }
+        roomField.setReadOnly(true);
+        joinButton.setText("Leave");
+        status.setText("Joined " + room);
+    }
+
+    private void leave() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+            membership = null;
+        }
+        members.clear();
+        dataProvider.refreshAll();
+        roomField.setReadOnly(false);
+        joinButton.setText("Join");
+    }
+
+    private void apply(PartyUpdate update) {
+        update.left().forEach(members::remove);
+        update.changed().forEach(member -> members.put(member.id(), member));
+        dataProvider.refreshAll();
+        status.setText(members.size() + 1 + " members in " + roomField.getValue().trim());
+    }
+
+    /**
+     * All changes of one round trip are published as a single build.
+     */
+    private void schedulePublish() {
+        if (subscription == null || publishScheduled) {
+            return;
+        }
+        publishScheduled = true;
+        getUI().ifPresent(ui -> ui.beforeClientResponse(this, context -> {
+            publishScheduled = false;
+            if (subscription != null) {
+                subscription.publish(PartyMember.of(subscription.getId(), character));
+            }
+        }));
+    }
+
+    private static void access(UI ui, Runnable command) {
+        try {
+            ui.access(command::run);
+        } catch (UIDetachedException e) {
+            // the subscription is closed on detach
+        }
+    }
+
+    private String formatTotals(PartyMember member) {
+        StringJoiner totals = new StringJoiner(", ");
+        for (int i = 0; i < member.totals().size(); i++) {
+            totals.add(member.schema().shortName(i) + " " + member.totals().get(i));
+        }
+        return totals.toString();
+    }
+}
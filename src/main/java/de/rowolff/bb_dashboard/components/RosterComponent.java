@@ -0,0 +1,117 @@
+package de.rowolff.bb_dashboard.components;
+
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.data.provider.SortDirection;
+import com.vaadin.flow.data.value.ValueChangeMode;
+
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.storage.CharacterRepository;
+import de.rowolff.bb_dashboard.storage.RosterQuery;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import de.rowolff.bb_dashboard.validation.RosterValidator;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Saved character roster as a lazily loaded grid: only the visible page is fetched from the
+ * {@link CharacterRepository}, filtered and sorted on the server. If no name starts with the name filter,
+ * similar names are suggested. Characters that do not fit the current rules show what is wrong with them.
+ */
+public class RosterComponent extends VerticalLayout {
+
+    private static final int MAX_SUGGESTIONS = 5;
+
+    private final CharacterRepository repository;
+    private final Grid<SavedCharacter> grid = new Grid<>(SavedCharacter.class, false);
+    private final TextField nameFilter = new TextField("Name");
+    private final ComboBox<String> archetypeFilter = new ComboBox<>(ARCHETYPE);
+    private final ComboBox<String> classFilter = new ComboBox<>(CLASS);
+    private final HorizontalLayout suggestions = new HorizontalLayout();
+
+    public RosterComponent(@NotNull CharacterRepository repository, @NotNull RuleSnapshot rules,
+                           @NotNull RosterValidator validator,
+                           @NotNull Consumer<SavedCharacter> onCharacterSelected) {
+        this.repository = repository;
+
+        nameFilter.setPlaceholder("Starts with...");
+        nameFilter.setClearButtonVisible(true);
+        nameFilter.setValueChangeMode(ValueChangeMode.LAZY);
+        nameFilter.addValueChangeListener(e -> {
+            refresh();
+            suggestNames();
+        });
+        archetypeFilter.setItems(query ->
+                rules.searchArchetypes(query.getFilter().orElse(""), query.getOffset(), query.getLimit()).stream());
+        archetypeFilter.setClearButtonVisible(true);
+        archetypeFilter.addValueChangeListener(e -> refresh());
+        classFilter.setItems(query ->
+                rules.searchClasses(query.getFilter().orElse(""), query.getOffset(), query.getLimit()).stream());
+        classFilter.setClearButtonVisible(true);
+        classFilter.addValueChangeListener(e -> refresh());
+        HorizontalLayout filterLayout = new HorizontalLayout(nameFilter, archetypeFilter, classFilter);
+
+        grid.addColumn(SavedCharacter::name).setHeader("Name").setSortProperty(RosterQuery.SortField.NAME.name());
+        grid.addColumn(SavedCharacter::archetype).setHeader(ARCHETYPE)
+                .setSortProperty(RosterQuery.SortField.ARCHETYPE.name());
+        grid.addColumn(SavedCharacter::charClass).setHeader(CLASS).setSortProperty(RosterQuery.SortField.CLASS.name());
+        grid.addColumn(SavedCharacter::background).setHeader(BACKGROUND);
+        grid.addColumn(character -> String.join("; ", validator.getProblems(character.name())))
+                .setHeader("Problems");
+        grid.setItems(
+                query -> repository.find(toRosterQuery(query), query.getOffset(), query.getLimit()).stream(),
+                query -> repository.count(toRosterQuery(query)));
+        grid.addItemClickListener(event -> onCharacterSelected.accept(event.getItem()));
+        grid.setHeight("300px");
+
+        suggestions.setAlignItems(Alignment.BASELINE);
+        suggestions.setVisible(false);
+
+        add(filterLayout, suggestions, grid);
+    }
+
+    public void refresh() {
+        grid.getDataProvider().refreshAll();
+    }
+
+    private void suggestNames() {
+        suggestions.removeAll();
+        String name = nameFilter.getValue();
+        List<String> similar = name.isEmpty() || repository.count(new RosterQuery(name, null, null, null, false)) > 0
+                ? List.of()
+                : repository.searchNames(name, MAX_SUGGESTIONS);
+        suggestions.setVisible(!similar.isEmpty());
+        if (!similar.isEmpty()) {
+            suggestions.add(new Span("Did you mean"));
+            for (String suggestion : similar) {
+                Button button = new Button(suggestion, e -> nameFilter.setValue(suggestion));
+                button.addThemeVariants(ButtonVariant.LUMO_TERTIARY, ButtonVariant.LUMO_SMALL);
+                suggestions.add(button);
+            }
+        }
+    }
+
+    private RosterQuery toRosterQuery(Query<SavedCharacter, ?> query) {
+        RosterQuery.SortField sortField = RosterQuery.SortField.NAME;
+        boolean descending = false;
+        if (!query.getSortOrders().isEmpty()) {
+            QuerySortOrder sortOrder = query.getSortOrders().get(0);
+            sortField = RosterQuery.SortField.valueOf(sortOrder.getSorted());
+            descending = sortOrder.getDirection() == SortDirection.DESCENDING;
+        }
+        return new RosterQuery(nameFilter.getValue(), archetypeFilter.getValue(), classFilter.getValue(),
+                sortField, descending);
+    }
+}
@@ -0,0 +1,95 @@
+package de.rowolff.bb_dashboard.components;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.html.Anchor;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
+import com.vaadin.flow.component.textfield.TextArea;
+import com.vaadin.flow.component.upload.Upload;
+import com.vaadin.flow.component.upload.receivers.FileBuffer;
+import com.vaadin.flow.server.StreamResource;
+
+import de.rowolff.bb_dashboard.transfer.ImportProgress;
+import de.rowolff.bb_dashboard.transfer.RosterFormat;
+import de.rowolff.bb_dashboard.transfer.RosterTransferService;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.File;
+
+/**
+ * Export links for the whole roster and an upload that imports a roster file in the background,
+ * reporting its progress after every batch.
+ */
+public class RosterTransferComponent extends VerticalLayout {
+
+    private final RosterTransferService transferService;
+    private final Runnable onImported;
+    private final FileBuffer buffer = new FileBuffer();
+    private final Upload upload = new Upload(buffer);
+    private final ProgressBar progressBar = new ProgressBar();
+    private final Span status = new Span();
+    private final TextArea errors = new TextArea("Rejected rows");
+
+    public RosterTransferComponent(@NotNull RosterTransferService transferService, @NotNull Runnable onImported) {
+        this.transferService = transferService;
+        this.onImported = onImported;
+
+        HorizontalLayout exportLayout = new HorizontalLayout();
+        for (RosterFormat format : RosterFormat.values()) {
+            StreamResource resource = new StreamResource("roster." + format.getFileExtension(),
+                    (out, session) -> transferService.export(format, out));
+            resource.setContentType(format.getContentType());
+            Anchor exportLink = new Anchor(resource, "Export " + format.name());
+            exportLink.getElement().setAttribute("download", true);
+            exportLayout.add(exportLink);
+        }
+
+        upload.setAcceptedFileTypes(".ndjson", ".jsonl", ".csv");
+        upload.setMaxFiles(1);
+        upload.addSucceededListener(event ->
+                startImport(RosterFormat.ofFileName(event.getFileName()), buffer.getFileData().getFile()));
+
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        errors.setReadOnly(true);
+        errors.setWidth("100%");
+        errors.setVisible(false);
+
+        add(exportLayout, upload, progressBar, status, errors);
+    }
+
+    private void startImport(RosterFormat format, File file) {
+        UI ui = UI.getCurrent();
+        upload.setEnabled(false);
+        progressBar.setVisible(true);
+        errors.setVisible(false);
+        status.setText("Importing...");
+        transferService.importRosterAsync(format, file.toPath(), progress -> ui.access(() -> showProgress(progress)))
+                .whenComplete((result, error) -> {
+                    file.delete();
+                    ui.access(() -> {
+                        upload.setEnabled(true);
+                        upload.clearFileList();
+                        progressBar.setVisible(false);
+                        if (error != null) {
+                            status.setText("Import failed: " + error.getCause().getMessage());
+                        } else {
+                            showProgress(result);
+                            status.setText("Import finished: " + status.getText());
+                        }
+                        onImported.run();
+                    });
+                });
+    }
+
+    private void showProgress(ImportProgress progress) {
+        status.setText(String.format("%d rows read, %d imported, %d rejected",
+                progress.rows(), progress.imported(), progress.rejected()));
+        if (!progress.errors().isEmpty()) {
+            errors.setValue(String.join("\n", progress.errors()));
+            errors.setVisible(true);
+        }
+    }
+}
@@ -0,0 +1,592 @@
+package de.rowolff.bb_dashboard.history;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+/**
+ * Every change of a {@link Character}, recorded as a compact event log with periodic snapshots.
+ * <p>
+ * Events are grouped into steps, one per {@link #commit()}; the steps form the timeline that can be
+ * undone, redone or jumped to. The log is a byte sequence of records, each a kind byte followed by
+ * varint-encoded fields:
+ * <pre>
+ * SPENT      attribute index, spent points (zigzag)
+ * ARCHETYPE, CLASS, BACKGROUND   entry name
+ * COMMIT     epoch second
+ * SNAPSHOT   archetype, class, background, attribute count, spent points (zigzag)*
+ * </pre>
+ * Strings are a varint byte length followed by UTF-8 bytes. The log starts with a snapshot, and another one
+ * follows the commit of every {@value #SNAPSHOT_INTERVAL}th step, so restoring any step replays the events
+ * of at most that many steps. The available points are not recorded, they follow from the spent points.
+ * <p>
+ * The history is fed by the owner's {@link Character.ChangeListener}; restoring a step hands the state to the
+ * applier given on creation, while recording is paused.
+ */
+public class CharacterHistory implements Character.ChangeListener {
+
+    static final int SNAPSHOT_INTERVAL = 32;
+
+    private static final byte SPENT = 1;
+    private static final byte ARCHETYPE = 2;
+    private static final byte CLASS = 3;
+    private static final byte BACKGROUND = 4;
+    private static final byte COMMIT = 5;
+    private static final byte SNAPSHOT = 6;
+
+    /**
+     * One entry of the timeline.
+     */
+    public record Step(int index, Instant time, String description) implements Serializable {}
+
+    private final Character character;
+    private final AttributeSchema schema;
+    private final Consumer<SavedCharacter> applier;
+
+    private byte[] log;
+    private int length;
+
+    // timeline index: end of every commit record and the snapshots, built while reading loaded logs
+    private boolean indexed;
+    private int[] commitEnds = new int[16];
+    private int steps;
+    private int[] snapshotSteps = new int[4];
+    private int[] snapshotOffsets = new int[4];
+    private int snapshots;
+
+    private int lastSnapshotOffset;
+    private int lastSnapshotStep;
+    private int position;
+    private int committedLength;
+    private boolean recording = true;
+
+    /**
+     * Starts a new history whose first step is the current state of the character.
+     */
+    public CharacterHistory(@NotNull Character character, @NotNull Consumer<SavedCharacter> applier) {
+        this.character = character;
+        this.schema = character.getSchema();
+        this.applier = applier;
+        this.log = new byte[256];
+        this.indexed = true;
+        writeSnapshot(stateOf(character));
+        writeCommit();
+    }
+
+    private CharacterHistory(Character character, Consumer<SavedCharacter> applier, byte[] log,
+                             int lastSnapshotOffset) {
+        this.character = character;
+        this.schema = character.getSchema();
+        this.applier = applier;
+        this.log = log;
+        this.length = log.length;
+        this.committedLength = log.length;
+        this.lastSnapshotOffset = lastSnapshotOffset;
+    }
+
+    /**
+     * Reads a history from its log without replaying it; see {@link #restoreLatest()}. Every record is checked
+     * while the timeline is indexed, so a history that could be read can be replayed.
+     *
+     * @param lastSnapshotOffset offset of the last snapshot in the log, a hint to bound the replay
+     * @throws IOException if the log is truncated or corrupted
+     */
+    public static CharacterHistory read(@NotNull Character character, @NotNull Consumer<SavedCharacter> applier,
+                                        @NotNull byte[] log, int lastSnapshotOffset) throws IOException {
+        CharacterHistory history = new CharacterHistory(character, applier, log, lastSnapshotOffset);
+        try {
+            history.ensureIndexed();
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted history log", e);
+        }
+        if (history.steps == 0 || log[0] != SNAPSHOT || history.commitEnds[history.steps - 1] != log.length) {
+            throw new IOException("Truncated history log");
+        }
+        if (Arrays.binarySearch(history.snapshotOffsets, 0, history.snapshots, lastSnapshotOffset) < 0) {
+            throw new IOException("No snapshot at offset " + lastSnapshotOffset);
+        }
+        return history;
+    }
+
+    @Override
+    public void characterChanged(Character.Change change, int attributeIndex) {
+        if (!recording) {
+            return;
+        }
+        switch (change) {
+            case SPENT_POINTS -> {
+                startEvent(SPENT);
+                writeVarint(attributeIndex);
+                writeVarint(zigzag(character.getSpentPoints(attributeIndex)));
+            }
+            case ARCHETYPE -> writeEntry(ARCHETYPE, character.getArchetype());
+            case CLASS -> writeEntry(CLASS, character.getCharClass());
+            case BACKGROUND -> writeEntry(BACKGROUND, character.getBackground());
+            default -> {
+                // totals and available points follow from the recorded events
+            }
+        }
+    }
+
+    /**
+     * Closes the events recorded since the last commit into a new step, if there are any.
+     */
+    public void commit() {
+        if (length == committedLength) {
+            return;
+        }
+        writeCommit();
+        position = steps - 1;
+        if (position - lastSnapshotStep >= SNAPSHOT_INTERVAL) {
+            writeSnapshot(stateOf(character));
+        }
+        committedLength = length;
+    }
+
+    public boolean canUndo() {
+        return length != committedLength || getPosition() > 0;
+    }
+
+    public boolean canRedo() {
+        ensureIndexed();
+        return length == committedLength && position < steps - 1;
+    }
+
+    public void undo() {
+        commit();
+        if (getPosition() > 0) {
+            moveTo(position - 1);
+        }
+    }
+
+    public void redo() {
+        if (canRedo()) {
+            moveTo(position + 1);
+        }
+    }
+
+    /**
+     * Restores the state after the given step; later steps stay available for redo until the next change.
+     */
+    public void moveTo(int step) {
+        commit();
+        ensureIndexed();
+        if (step < 0 || step >= steps) {
+            throw new IndexOutOfBoundsException(step);
+        }
+        apply(stateAt(step));
+        position = step;
+    }
+
+    /**
+     * Applies the state after the last step, replaying only the events since the last snapshot.
+     */
+    public void restoreLatest() {
+        apply(latest());
+    }
+
+    /**
+     * @return whether the last step has the archetype, class, background and spent points of the character
+     */
+    public boolean endsAt(@NotNull SavedCharacter saved) {
+        State state = latest();
+        if (!state.archetype.equals(nameOf(saved.archetype())) || !state.charClass.equals(nameOf(saved.charClass()))
+                || !state.background.equals(nameOf(saved.background()))) {
+            return false;
+        }
+        for (int i = 0; i < state.spentPoints.length; i++) {
+            if (state.spentPoints[i] != saved.getSpentPoints(schema.name(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs the action without recording the changes it makes to the character.
+     */
+    public void withoutRecording(@NotNull Runnable action) {
+        boolean wasRecording = recording;
+        recording = false;
+        try {
+            action.run();
+        } finally {
+            recording = wasRecording;
+        }
+    }
+
+    public int getStepCount() {
+        ensureIndexed();
+        return steps;
+    }
+
+    public int getPosition() {
+        ensureIndexed();
+        return position;
+    }
+
+    public List<Step> getSteps(int offset, int limit) {
+        ensureIndexed();
+        List<Step> page = new ArrayList<>();
+        for (int step = offset; step < Math.min(steps, offset + limit); step++) {
+            page.add(describe(step));
+        }
+        return page;
+    }
+
+    /**
+     * @return the log up to the current step, as it is persisted
+     */
+    public byte[] toByteArray() {
+        commit();
+        ensureIndexed();
+        return Arrays.copyOf(log, persistedLength());
+    }
+
+    /**
+     * @return offset of the last snapshot within {@link #toByteArray()}
+     */
+    public int getPersistedSnapshotOffset() {
+        ensureIndexed();
+        int end = persistedLength();
+        int snapshot = snapshots - 1;
+        while (snapshotOffsets[snapshot] >= end) {
+            snapshot--;
+        }
+        return snapshotOffsets[snapshot];
+    }
+
+    private int persistedLength() {
+        int end = commitEnds[position];
+        int snapshot = snapshotIndexAtOrBefore(position);
+        // keep the snapshot written right after this step's commit
+        if (snapshotSteps[snapshot] == position && snapshotOffsets[snapshot] >= end) {
+            end = snapshotEnd(snapshotOffsets[snapshot]);
+        }
+        return end;
+    }
+
+    private void apply(State state) {
+        SavedCharacter saved = state.toSavedCharacter(character.getCharacterName(), schema);
+        withoutRecording(() -> applier.accept(saved));
+    }
+
+    private State latest() {
+        State state = new State(schema.size());
+        replay(state, lastSnapshotOffset, length);
+        return state;
+    }
+
+    private State stateAt(int step) {
+        int snapshot = snapshotIndexAtOrBefore(step);
+        State state = new State(schema.size());
+        replay(state, snapshotOffsets[snapshot], commitEnds[step]);
+        return state;
+    }
+
+    private int snapshotIndexAtOrBefore(int step) {
+        int low = 0;
+        int high = snapshots - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (snapshotSteps[middle] <= step) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private void replay(State state, int from, int to) {
+        Reader reader = new Reader(from);
+        while (reader.position < to) {
+            byte kind = log[reader.position++];
+            switch (kind) {
+                case SPENT -> {
+                    int attribute = reader.readVarint();
+                    int points = unzigzag(reader.readVarint());
+                    // as in snapshots, attributes removed from the rules since are skipped
+                    if (attribute < state.spentPoints.length) {
+                        state.spentPoints[attribute] = points;
+                    }
+                }
+                case ARCHETYPE -> state.archetype = reader.readString();
+                case CLASS -> state.charClass = reader.readString();
+                case BACKGROUND -> state.background = reader.readString();
+                case COMMIT -> reader.readLong();
+                case SNAPSHOT -> reader.readSnapshot(state);
+                default -> throw new IllegalStateException(String.format("Unknown history record %d at %d",
+                        kind, reader.position - 1));
+            }
+        }
+    }
+
+    private Step describe(int step) {
+        int start = step == 0 ? 0 : commitEnds[step - 1];
+        StringJoiner description = new StringJoiner(", ");
+        Instant time = null;
+        Reader reader = new Reader(start);
+        int described = 0;
+        while (reader.position < commitEnds[step]) {
+            byte kind = log[reader.position++];
+            String event = switch (kind) {
+                case SPENT -> {
+                    int attribute = reader.readVarint();
+                    int points = unzigzag(reader.readVarint());
+                    yield attribute < schema.size()
+                            ? String.format("%s %d", schema.shortName(attribute), points) : null;
+                }
+                case ARCHETYPE -> "Archetype " + orNone(reader.readString());
+                case CLASS -> "Class " + orNone(reader.readString());
+                case BACKGROUND -> "Background " + orNone(reader.readString());
+                case COMMIT -> {
+                    time = Instant.ofEpochSecond(reader.readLong());
+                    yield null;
+                }
+                case SNAPSHOT -> {
+                    reader.readSnapshot(new State(schema.size()));
+                    yield step == 0 ? "Start" : null;
+                }
+                default -> throw new IllegalStateException("Unknown history record " + kind);
+            };
+            if (event != null && described++ < 4) {
+                description.add(event);
+            }
+        }
+        if (described > 4) {
+            description.add("...");
+        }
+        return new Step(step, time, description.toString());
+    }
+
+    private static String nameOf(String name) {
+        return name == null ? "" : name;
+    }
+
+    private static String orNone(String name) {
+        return name.isEmpty() ? "none" : name;
+    }
+
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        Reader reader = new Reader(0);
+        while (reader.position < length) {
+            int start = reader.position;
+            byte kind = log[reader.position++];
+            switch (kind) {
+                case SPENT -> {
+                    if (reader.readVarint() < 0) {
+                        throw new IllegalStateException("Negative attribute index at " + start);
+                    }
+                    reader.readVarint();
+                }
+                case ARCHETYPE, CLASS, BACKGROUND -> reader.readString();
+                case COMMIT -> {
+                    reader.readLong();
+                    addCommit(reader.position);
+                }
+                case SNAPSHOT -> {
+                    reader.readSnapshot(new State(schema.size()));
+                    addSnapshot(Math.max(0, steps - 1), start);
+                }
+                default -> throw new IllegalStateException(String.format("Unknown history record %d at %d",
+                        kind, start));
+            }
+        }
+        position = steps - 1;
+        indexed = true;
+    }
+
+    private void startEvent(byte kind) {
+        if (length == committedLength) {
+            discardRedo();
+        }
+        writeByte(kind);
+    }
+
+    /**
+     * A change after an undo starts a new branch of the timeline, the undone steps are dropped.
+     */
+    private void discardRedo() {
+        ensureIndexed();
+        if (position == steps - 1) {
+            return;
+        }
+        steps = position + 1;
+        length = commitEnds[position];
+        while (snapshots > 1 && snapshotOffsets[snapshots - 1] >= length) {
+            snapshots--;
+        }
+        lastSnapshotStep = snapshotSteps[snapshots - 1];
+        lastSnapshotOffset = snapshotOffsets[snapshots - 1];
+        committedLength = length;
+    }
+
+    private void writeEntry(byte kind, Character.Stats entry) {
+        startEvent(kind);
+        writeString(entry.getName());
+    }
+
+    private void writeCommit() {
+        writeByte(COMMIT);
+        writeVarint(Instant.now().getEpochSecond());
+        addCommit(length);
+    }
+
+    private void writeSnapshot(State state) {
+        int offset = length;
+        writeByte(SNAPSHOT);
+        writeString(state.archetype);
+        writeString(state.charClass);
+        writeString(state.background);
+        writeVarint(state.spentPoints.length);
+        for (int points : state.spentPoints) {
+            writeVarint(zigzag(points));
+        }
+        addSnapshot(Math.max(0, steps - 1), offset);
+    }
+
+    private void addCommit(int end) {
+        if (steps == commitEnds.length) {
+            commitEnds = Arrays.copyOf(commitEnds, steps * 2);
+        }
+        commitEnds[steps++] = end;
+    }
+
+    private void addSnapshot(int step, int offset) {
+        if (snapshots == snapshotSteps.length) {
+            snapshotSteps = Arrays.copyOf(snapshotSteps, snapshots * 2);
+            snapshotOffsets = Arrays.copyOf(snapshotOffsets, snapshots * 2);
+        }
+        snapshotSteps[snapshots] = step;
+        snapshotOffsets[snapshots++] = offset;
+        lastSnapshotStep = step;
+        lastSnapshotOffset = offset;
+    }
+
+    private int snapshotEnd(int offset) {
+        Reader reader = new Reader(offset + 1);
+        reader.readSnapshot(new State(schema.size()));
+        return reader.position;
+    }
+
+    private void writeByte(int value) {
+        if (length == log.length) {
+            log = Arrays.copyOf(log, log.length * 2);
+        }
+        log[length++] = (byte) value;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static State stateOf(Character character) {
+        State state = new State(character.getSchema().size());
+        state.archetype = character.getArchetype().getName();
+        state.charClass = character.getCharClass().getName();
+        state.background = character.getBackground().getName();
+        for (int i = 0; i < state.spentPoints.length; i++) {
+            state.spentPoints[i] = character.getSpentPoints(i);
+        }
+        return state;
+    }
+
+    private static final class State {
+        private String archetype = "";
+        private String charClass = "";
+        private String background = "";
+        private final int[] spentPoints;
+
+        private State(int attributes) {
+            spentPoints = new int[attributes];
+        }
+
+        private SavedCharacter toSavedCharacter(String name, AttributeSchema schema) {
+            Map<String, Integer> points = new LinkedHashMap<>();
+            for (int i = 0; i < spentPoints.length; i++) {
+                points.put(schema.name(i), spentPoints[i]);
+            }
+            return new SavedCharacter(name, archetype, charClass, background, points);
+        }
+    }
+
+    private final class Reader {
+        private int position;
+
+        private Reader(int position) {
+            this.position = position;
+        }
+
+        private int readVarint() {
+            return (int) readLong();
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = log[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        private String readString() {
+            int byteLength = readVarint();
+            String value = new String(log, position, byteLength, StandardCharsets.UTF_8);
+            position += byteLength;
+            return value;
+        }
+
+        private void readSnapshot(State state) {
+            state.archetype = readString();
+            state.charClass = readString();
+            state.background = readString();
+            int count = readVarint();
+            for (int i = 0; i < count; i++) {
+                int points = unzigzag(readVarint());
+                if (i < state.spentPoints.length) {
+                    state.spentPoints[i] = points;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package de.rowolff.bb_dashboard.history;
+
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.storage.SaveQueue;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the {@link CharacterHistory} of every saved character in a file of its own:
+ * <pre>
+ * int   magic, int offset of the last snapshot in the log
+ * byte* the log
+ * </pre>
+ * Files are named by the SHA-256 of the character name and replaced atomically on save. As an
+ * {@link SaveQueue.AlongsideStore} the new files of a whole batch of saves are forced to the storage device together
+ * when it is flushed.
+ */
+@Repository
+public class CharacterHistoryStore implements SaveQueue.AlongsideStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CharacterHistoryStore.class);
+
+    private static final int MAGIC = 0x42424831; // "BBH1"
+    private static final int HEADER_SIZE = 8;
+    private static final String FILE_EXTENSION = ".history";
+
+    private final Path directory;
+    // guarded by this, the written temporary files by the files they replace on the next flush
+    private final Map<Path, Path> unflushed = new LinkedHashMap<>();
+
+    @Autowired
+    public CharacterHistoryStore(@Value("${bb-dashboard.history.directory}") String directory) {
+        this(Paths.get(directory));
+    }
+
+    public CharacterHistoryStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create history directory " + directory, e);
+        }
+    }
+
+    /**
+     * @return the history saved for the character name, ready to be restored into {@code character}, or
+     * nothing if there is none or it cannot be read
+     */
+    public Optional<CharacterHistory> load(String name, Character character, Consumer<SavedCharacter> applier) {
+        Path file = fileOf(name);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a character history");
+            }
+            int lastSnapshotOffset = buffer.getInt();
+            byte[] log = new byte[buffer.remaining()];
+            buffer.get(log);
+            if (lastSnapshotOffset < 0 || lastSnapshotOffset >= log.length) {
+                throw new IOException("Invalid snapshot offset " + lastSnapshotOffset);
+            }
+            return Optional.of(CharacterHistory.read(character, applier, log, lastSnapshotOffset));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable history {} of character {}", file, name, e);
+            return Optional.empty();
+        }
+    }
+
+    public void save(String name, CharacterHistory history) {
+        write(name, encode(history));
+        flush();
+    }
+
+    /**
+     * @return the file content for the current state of the history, to be written later by {@link #write}
+     * without touching the history, which belongs to its session
+     */
+    public byte[] encode(CharacterHistory history) {
+        byte[] log = history.toByteArray();
+        return ByteBuffer.allocate(HEADER_SIZE + log.length)
+                .putInt(MAGIC)
+                .putInt(history.getPersistedSnapshotOffset())
+                .put(log)
+                .array();
+    }
+
+    /**
+     * Writes the new history file of the character name next to the current one, which it replaces on the next
+     * {@link #flush()}.
+     */
+    public synchronized void write(String name, byte[] encoded) {
+        Path file = fileOf(name);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(encoded);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save the history of character " + name, e);
+        }
+        unflushed.put(file, temporary);
+    }
+
+    /**
+     * Replaces the history files written since the last flush. The new files are forced to the storage device
+     * before they replace the old ones and the directory is forced after, so a crash leaves either the old or the
+     * new file of every character.
+     */
+    @Override
+    public synchronized void flush() {
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        try {
+            for (Path temporary : unflushed.values()) {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    channel.force(false);
+                }
+            }
+            for (Map.Entry<Path, Path> replaced : unflushed.entrySet()) {
+                Files.move(replaced.getValue(), replaced.getKey(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save " + unflushed.size() + " character histories", e);
+        } finally {
+            unflushed.clear();
+        }
+    }
+
+    private Path fileOf(String name) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + FILE_EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package de.rowolff.bb_dashboard.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The application's meters, all named below {@value #PREFIX} so their percentiles and histograms can be
+ * configured together. They are registered in Micrometer's global registry, which Spring Boot connects to
+ * the Prometheus registry; without Spring (tests, benchmarks) they record nothing.
+ */
+public final class DashboardMetrics {
+
+    public static final String PREFIX = "dashboard";
+
+    /** Number of attached {@code MainView}s. */
+    public static final AtomicInteger ACTIVE_SESSIONS =
+            Metrics.gauge(PREFIX + ".sessions.active", new AtomicInteger());
+
+    private DashboardMetrics() {}
+
+    public static Timer characterOperation(String operation) {
+        return Timer.builder(PREFIX + ".character.operation")
+                .description("Mutations of a character")
+                .tag("operation", operation)
+                .register(Metrics.globalRegistry);
+    }
+
+    public static Counter ruleLookup(String rulePack, String entry) {
+        return Counter.builder(PREFIX + ".rules.lookup")
+                .description("Lookups of rule entries by name")
+                .tag("pack", rulePack)
+                .tag("entry", entry)
+                .register(Metrics.globalRegistry);
+    }
+
+    public static Timer ruleLoad(String rulePack, String source) {
+        return Timer.builder(PREFIX + ".rules.load")
+                .description("Loading of a rule snapshot")
+                .tag("pack", rulePack)
+                .tag("source", source)
+                .register(Metrics.globalRegistry);
+    }
+
+    public static Timer storageOperation(String operation) {
+        return Timer.builder(PREFIX + ".storage.operation")
+                .description("Calls of the character repository")
+                .tag("operation", operation)
+                .register(Metrics.globalRegistry);
+    }
+
+    public static Timer roundTrip(String requestType) {
+        return Timer.builder(PREFIX + ".round.trip")
+                .description("Server-side handling of a request from the browser")
+                .tag("type", requestType)
+                .register(Metrics.globalRegistry);
+    }
+
+    public static DistributionSummary attributeBatch() {
+        return DistributionSummary.builder(PREFIX + ".attribute.batch")
+                .description("Point changes made in the browser and applied in one request")
+                .baseUnit("changes")
+                .register(Metrics.globalRegistry);
+    }
+
+    public static DistributionSummary apiBuilds() {
+        return DistributionSummary.builder(PREFIX + ".api.builds")
+                .description("Builds calculated per request of the build API")
+                .baseUnit("builds")
+                .register(Metrics.globalRegistry);
+    }
+
+    public static Counter partyEvent(String event) {
+        return Counter.builder(PREFIX + ".party.events")
+                .description("Builds published to party rooms and the updates fanned out to their members")
+                .tag("event", event)
+                .register(Metrics.globalRegistry);
+    }
+
+    public static Timer simulation(String type) {
+        return Timer.builder(PREFIX + ".simulation")
+                .description("Monte Carlo combat simulations, cached results are not recorded")
+                .tag("type", type)
+                .register(Metrics.globalRegistry);
+    }
+
+    public static Counter rulePackCache(String event) {
+        return Counter.builder(PREFIX + ".rules.packs.cache")
+                .description("Requests of a rule pack served from memory (hit) or loaded (miss), and packs evicted")
+                .tag("event", event)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Registered in the given registry rather than the global one: the gauge observes a single rule pack registry,
+     * so it is bound once for the application's bean instead of once per instance.
+     */
+    public static <T> Gauge rulePackMemory(MeterRegistry meterRegistry, T registry,
+                                           ToDoubleFunction<T> residentBytes) {
+        return Gauge.builder(PREFIX + ".rules.packs.resident", registry, residentBytes)
+                .description("Estimated size of the cached rule packs")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,58 @@
+package de.rowolff.bb_dashboard.metrics;
+
+import com.vaadin.flow.server.HandlerHelper;
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinRequestInterceptor;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import com.vaadin.flow.server.VaadinSession;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Times how long the server takes to handle each request of the browser, tagged by the Vaadin request type
+ * (e.g. {@code uidl} for event round trips), so the latency a user feels can be told apart from the time
+ * spent in the character logic. The type parameter is sent by the client, so only Vaadin's own request types get
+ * a timer of their own and everything else is recorded as {@code other}.
+ */
+@Component
+public class RoundTripMetrics implements VaadinServiceInitListener {
+
+    private static final String START_ATTRIBUTE = RoundTripMetrics.class.getName() + ".start";
+    private static final String REQUEST_TYPE_PARAMETER = "v-r";
+    private static final Timer OTHER = DashboardMetrics.roundTrip("other");
+    private static final Map<String, Timer> BY_REQUEST_TYPE = Stream.of(HandlerHelper.RequestType.values())
+            .map(HandlerHelper.RequestType::getIdentifier)
+            .collect(Collectors.toUnmodifiableMap(type -> type, DashboardMetrics::roundTrip));
+
+    @Override
+    public void serviceInit(ServiceInitEvent event) {
+        event.addVaadinRequestInterceptor(new VaadinRequestInterceptor() {
+            @Override
+            public void requestStart(VaadinRequest request, VaadinResponse response) {
+                request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            }
+
+            @Override
+            public void handleException(VaadinRequest request, VaadinResponse response,
+                                        VaadinSession session, Exception e) {
+                // recorded in requestEnd like any other request
+            }
+
+            @Override
+            public void requestEnd(VaadinRequest request, VaadinResponse response, VaadinSession session) {
+                if (request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+                    String type = request.getParameter(REQUEST_TYPE_PARAMETER);
+                    BY_REQUEST_TYPE.getOrDefault(type == null ? "" : type, OTHER)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        });
+    }
+}
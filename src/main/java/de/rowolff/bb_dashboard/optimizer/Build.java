@@ -0,0 +1,18 @@
+package de.rowolff.bb_dashboard.optimizer;
+
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * One combination of rule entries and spent points found by the {@link BuildOptimizer}.
+ */
+public record Build(String archetype, String charClass, String background,
+                    Map<String, Integer> spentPoints, Map<String, Integer> totals,
+                    double score) implements Serializable {
+
+    public SavedCharacter toSavedCharacter(String characterName) {
+        return new SavedCharacter(characterName, archetype, charClass, background, spentPoints);
+    }
+}
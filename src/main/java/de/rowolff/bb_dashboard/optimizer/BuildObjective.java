@@ -0,0 +1,27 @@
+package de.rowolff.bb_dashboard.optimizer;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * What the {@link BuildOptimizer} maximizes: the weighted sum of the modifiers of all attributes,
+ * restricted to builds whose total attributes reach the given minimums.
+ *
+ * @param weights  weight per attribute name, missing attributes weigh 0
+ * @param minimums minimum total per attribute name, missing attributes are unconstrained
+ */
+public record BuildObjective(Map<String, Double> weights, Map<String, Integer> minimums) implements Serializable {
+
+    public BuildObjective {
+        weights = Map.copyOf(weights);
+        minimums = Map.copyOf(minimums);
+    }
+
+    public double weight(String statName) {
+        return weights.getOrDefault(statName, 0d);
+    }
+
+    public int minimum(String statName) {
+        return minimums.getOrDefault(statName, Integer.MIN_VALUE);
+    }
+}
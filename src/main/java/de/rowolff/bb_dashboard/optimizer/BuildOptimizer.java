@@ -0,0 +1,265 @@
+package de.rowolff.bb_dashboard.optimizer;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResource;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Finds the best builds for a {@link BuildObjective} among all combinations of archetype, class,
+ * background and ways to spend the spendable points.
+ * <p>
+ * The (archetype, class, background) combinations are split across a fork-join pool. Each task walks
+ * the point allocations depth-first and cuts off every branch whose optimistic score cannot beat the
+ * worst build of the shared top list, or that can no longer reach the objective's minimums. Builds of equal
+ * score are ranked by their names and spent points, so the result does not depend on the order the tasks
+ * happen to find them in.
+ */
+@Service
+public class BuildOptimizer {
+
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    private final CharacterResourceService loader;
+
+    public BuildOptimizer(CharacterResourceService loader) {
+        this.loader = loader;
+    }
+
+    public List<Build> findBestBuilds(@NotNull BuildObjective objective, int limit) {
+        return findBestBuilds(objective, limit, MAX_SPENDABLE_POINTS);
+    }
+
+    public List<Build> findBestBuilds(@NotNull BuildObjective objective, int limit, int spendablePoints) {
+        return findBestBuilds(loader.getSnapshot(), objective, limit, spendablePoints);
+    }
+
+    /**
+     * Runs {@link #findBestBuilds(RuleSnapshot, BuildObjective, int, int)} on the fork-join pool, so the caller,
+     * e.g. a view holding its session lock, does not wait for it.
+     */
+    public CompletableFuture<List<Build>> findBestBuildsAsync(@NotNull RuleSnapshot rules,
+                                                              @NotNull BuildObjective objective, int limit,
+                                                              int spendablePoints) {
+        return CompletableFuture.supplyAsync(() -> findBestBuilds(rules, objective, limit, spendablePoints),
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Searches the given rules, so a session keeps getting builds for the rules it works with.
+     */
+    public List<Build> findBestBuilds(@NotNull RuleSnapshot rules, @NotNull BuildObjective objective, int limit,
+                                      int spendablePoints) {
+        if (limit < 1 || spendablePoints < 0) {
+            throw new IllegalArgumentException(String.format("Invalid search: limit %d, points %d", limit, spendablePoints));
+        }
+        AttributeSchema schema = rules.attributeSchema();
+        Search search = new Search(schema, objective, limit, spendablePoints);
+        List<Seed> seeds = createSeeds(rules);
+        seeds.sort(Comparator.comparingDouble((Seed seed) -> search.bound(seed.totals(), 0, spendablePoints)).reversed());
+        ForkJoinPool.commonPool().invoke(new SearchTask(search, seeds, 0, seeds.size()));
+        return search.results();
+    }
+
+    private List<Seed> createSeeds(RuleSnapshot rules) {
+        AttributeSchema schema = rules.attributeSchema();
+        List<Seed> seeds = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Integer>> archetype : rules.archetypes().entrySet()) {
+            for (CharacterResource charClass : rules.classes().values()) {
+                for (CharacterResource.Background background : charClass.getBackgrounds().values()) {
+                    int[] totals = schema.toArray(archetype.getValue());
+                    int[] classBonuses = schema.toArray(charClass.getAttributes());
+                    int[] backgroundBonuses = schema.toArray(background.getAttributes());
+                    for (int i = 0; i < totals.length; i++) {
+                        totals[i] += classBonuses[i] + backgroundBonuses[i];
+                    }
+                    seeds.add(new Seed(archetype.getKey(), charClass.name(), background.getName(), totals));
+                }
+            }
+        }
+        return seeds;
+    }
+
+    private record Seed(String archetype, String charClass, String background, int[] totals) {}
+
+    private static final class Search {
+        private final AttributeSchema schema;
+        private final int statCount;
+        private final double[] weights;
+        private final long[] minimums;
+        // best score a single point can add to any attribute from the index on
+        private final double[] maxGain;
+        private final int spendablePoints;
+        private final TopBuilds top;
+
+        private Search(AttributeSchema schema, BuildObjective objective, int limit, int spendablePoints) {
+            this.schema = schema;
+            statCount = schema.size();
+            weights = new double[statCount];
+            minimums = new long[statCount];
+            maxGain = new double[statCount + 1];
+            for (int i = 0; i < statCount; i++) {
+                weights[i] = objective.weight(schema.name(i));
+                minimums[i] = objective.minimum(schema.name(i));
+            }
+            for (int i = statCount - 1; i >= 0; i--) {
+                maxGain[i] = Math.max(maxGain[i + 1], weights[i]);
+            }
+            this.spendablePoints = spendablePoints;
+            this.top = new TopBuilds(limit);
+        }
+
+        private void search(Seed seed) {
+            walk(seed, seed.totals().clone(), new int[statCount], 0, spendablePoints);
+        }
+
+        private void walk(Seed seed, int[] totals, int[] spent, int stat, int remaining) {
+            // builds scoring the same as the worst one can still outrank it in the tie-break
+            if (bound(totals, stat, remaining) < top.cutoff()) {
+                return;
+            }
+            if (stat == statCount) {
+                top.offer(toBuild(seed, totals, spent));
+                return;
+            }
+            // the last attribute takes all remaining points, so every build spends all of them
+            int lowest = stat == statCount - 1 ? remaining : 0;
+            for (int points = remaining; points >= lowest; points--) {
+                totals[stat] += points;
+                spent[stat] = points;
+                walk(seed, totals, spent, stat + 1, remaining - points);
+                totals[stat] -= points;
+                spent[stat] = 0;
+            }
+        }
+
+        /**
+         * @return an upper bound for the score of every build below this branch, or negative infinity
+         * if no build below it can reach the minimums
+         */
+        private double bound(int[] totals, int stat, int remaining) {
+            long deficit = 0;
+            double score = 0;
+            for (int i = 0; i < statCount; i++) {
+                long missing = minimums[i] - totals[i];
+                if (missing > 0) {
+                    if (i < stat) {
+                        return Double.NEGATIVE_INFINITY;
+                    }
+                    deficit += missing;
+                }
+                score += weights[i] * Character.modifierOf(totals[i]);
+            }
+            if (deficit > remaining) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            // one point raises a modifier by at most one
+            return score + remaining * maxGain[stat];
+        }
+
+        private Build toBuild(Seed seed, int[] totals, int[] spent) {
+            return new Build(seed.archetype(), seed.charClass(), seed.background(),
+                    schema.toMap(spent), schema.toMap(totals), bound(totals, statCount, 0));
+        }
+
+        private List<Build> results() {
+            return top.sorted();
+        }
+    }
+
+    private static final class SearchTask extends RecursiveAction {
+        private final transient Search search;
+        private final transient List<Seed> seeds;
+        private final int from;
+        private final int to;
+
+        private SearchTask(Search search, List<Seed> seeds, int from, int to) {
+            this.search = search;
+            this.seeds = seeds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    search.search(seeds.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SearchTask(search, seeds, from, middle), new SearchTask(search, seeds, middle, to));
+        }
+    }
+
+    private static final class TopBuilds {
+        private static final Comparator<Build> ORDER = Comparator.comparingDouble(Build::score)
+                .thenComparing(Build::archetype, Comparator.reverseOrder())
+                .thenComparing(Build::charClass, Comparator.reverseOrder())
+                .thenComparing(Build::background, Comparator.reverseOrder())
+                .thenComparing(Build::spentPoints, TopBuilds::comparePoints);
+
+        private final int limit;
+        private final PriorityQueue<Build> worstFirst = new PriorityQueue<>(ORDER);
+        private volatile double cutoff = Double.NEGATIVE_INFINITY;
+
+        private TopBuilds(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * @return the score a build has to reach to enter the list
+         */
+        private double cutoff() {
+            return cutoff;
+        }
+
+        private synchronized void offer(Build build) {
+            if (worstFirst.size() < limit) {
+                worstFirst.add(build);
+            } else if (ORDER.compare(build, worstFirst.peek()) > 0) {
+                worstFirst.poll();
+                worstFirst.add(build);
+            }
+            if (worstFirst.size() == limit) {
+                cutoff = worstFirst.peek().score();
+            }
+        }
+
+        /**
+         * Compares the points of the attributes in schema order, more points on earlier attributes rank higher.
+         */
+        private static int comparePoints(Map<String, Integer> points, Map<String, Integer> otherPoints) {
+            Iterator<Integer> other = otherPoints.values().iterator();
+            for (int spent : points.values()) {
+                int comparison = Integer.compare(spent, other.next());
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        }
+
+        private synchronized List<Build> sorted() {
+            List<Build> builds = new ArrayList<>(worstFirst);
+            builds.sort(ORDER.reversed());
+            return builds;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package de.rowolff.bb_dashboard.party;
+
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import io.micrometer.core.instrument.Counter;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the builds of the members of party rooms. Publishing only marks the member as changed for every other
+ * member of the room; at most once per frame each member gets one {@link PartyUpdate} with the latest build of
+ * everybody that changed since its previous update, so a member that changes its build many times within a
+ * frame costs the others a single row. A member has at most one update in flight; one that does not finish an
+ * update within the slow consumer timeout is removed from its room so it cannot hold back the others. What
+ * finishing means is up to the {@link PartyListener}: the dashboard's view waits for the browser to confirm the
+ * update, so a stalled connection is shed as well as a session whose lock is held too long.
+ */
+@Service
+public class PartyBroadcaster implements AutoCloseable {
+
+    public static final int MAX_MEMBERS_PER_ROOM = 32;
+    private static final long FRAME_INTERVAL_MILLIS = 100;
+    private static final long SLOW_CONSUMER_TIMEOUT_MILLIS = 5000;
+
+    private static final Counter PUBLISHED = DashboardMetrics.partyEvent("published");
+    private static final Counter COALESCED = DashboardMetrics.partyEvent("coalesced");
+    private static final Counter DELIVERED = DashboardMetrics.partyEvent("delivered");
+    private static final Counter SHED = DashboardMetrics.partyEvent("shed");
+
+    private final ScheduledExecutorService scheduler;
+    private final Executor deliveryExecutor;
+    private final long frameNanos;
+    private final long slowConsumerNanos;
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PartyBroadcaster(@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                            Executor deliveryExecutor) {
+        this(Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "party-frames");
+            thread.setDaemon(true);
+            return thread;
+        }), deliveryExecutor, TimeUnit.MILLISECONDS.toNanos(FRAME_INTERVAL_MILLIS),
+                TimeUnit.MILLISECONDS.toNanos(SLOW_CONSUMER_TIMEOUT_MILLIS));
+    }
+
+    /**
+     * @param scheduler only runs the frame and timeout bookkeeping, listeners are called on the delivery executor
+     */
+    public PartyBroadcaster(@NotNull ScheduledExecutorService scheduler, @NotNull Executor deliveryExecutor,
+                            long frameNanos, long slowConsumerNanos) {
+        this.scheduler = scheduler;
+        this.deliveryExecutor = deliveryExecutor;
+        this.frameNanos = frameNanos;
+        this.slowConsumerNanos = slowConsumerNanos;
+    }
+
+    /**
+     * Joins a room, creating it if needed. The first update delivered to the listener contains all other members.
+     *
+     * @throws IllegalStateException if the room already has {@value #MAX_MEMBERS_PER_ROOM} members
+     */
+    public Subscription join(@NotNull String roomName, @NotNull PartyMember member, @NotNull PartyListener listener) {
+        Subscriber subscriber = new Subscriber(roomName, member, listener);
+        Room joined = rooms.compute(roomName, (name, room) -> {
+            Room current = room == null ? new Room() : room;
+            if (current.subscribers.size() >= MAX_MEMBERS_PER_ROOM) {
+                throw new IllegalStateException("The party " + name + " is full");
+            }
+            current.subscribers.add(subscriber);
+            return current;
+        });
+        for (Subscriber other : joined.subscribers) {
+            if (other != subscriber) {
+                subscriber.changed(other);
+                other.changed(subscriber);
+            }
+        }
+        return subscriber;
+    }
+
+    /**
+     * @return the number of members of a room
+     */
+    public int getMemberCount(@NotNull String roomName) {
+        Room room = rooms.get(roomName);
+        return room == null ? 0 : room.subscribers.size();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * A member's place in a room.
+     */
+    public interface Subscription {
+
+        /**
+         * @return the id the other members know this member by
+         */
+        String getId();
+
+        /**
+         * Shares a new build with the other members, with the id of this subscription.
+         */
+        void publish(@NotNull PartyMember member);
+
+        /**
+         * Leaves the room. Updates still in flight may be delivered afterwards.
+         */
+        void close();
+    }
+
+    private static final class Room {
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    }
+
+    private final class Subscriber implements Subscription {
+
+        private final String roomName;
+        private final String id = UUID.randomUUID().toString();
+        private final PartyListener listener;
+        private volatile PartyMember member;
+
+        // guarded by this; all are bounded by the room size, left only holds members the listener was told about
+        private final Set<Subscriber> changed = new LinkedHashSet<>();
+        private final Set<String> left = new HashSet<>();
+        private final Set<String> known = new HashSet<>();
+        private boolean flushScheduled;
+        private long inFlight;
+        private long batches;
+        private boolean closed;
+
+        Subscriber(String roomName, PartyMember member, PartyListener listener) {
+            this.roomName = roomName;
+            this.listener = listener;
+            this.member = withId(member);
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public void publish(@NotNull PartyMember member) {
+            this.member = withId(member);
+            PUBLISHED.increment();
+            Room room = rooms.get(roomName);
+            if (room != null && !closed()) {
+                for (Subscriber other : room.subscribers) {
+                    if (other != this) {
+                        other.changed(this);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            leave();
+        }
+
+        private PartyMember withId(PartyMember member) {
+            return new PartyMember(id, member.characterName(), member.archetype(), member.charClass(),
+                    member.background(), member.schema(), member.totals());
+        }
+
+        private synchronized boolean closed() {
+            return closed;
+        }
+
+        /**
+         * Marks another member as changed. The build itself is read when the update is flushed, so it is the
+         * latest one no matter in which order publishing threads get here.
+         */
+        private synchronized void changed(Subscriber other) {
+            if (!changed.add(other)) {
+                COALESCED.increment();
+            }
+            left.remove(other.id);
+            scheduleFlush();
+        }
+
+        private synchronized void left(Subscriber other) {
+            changed.remove(other);
+            if (known.contains(other.id)) {
+                left.add(other.id);
+                scheduleFlush();
+            }
+        }
+
+        private void scheduleFlush() {
+            if (!closed && !flushScheduled && inFlight == 0) {
+                flushScheduled = true;
+                scheduler.schedule(this::flush, frameNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void flush() {
+            PartyUpdate update;
+            long batch;
+            synchronized (this) {
+                flushScheduled = false;
+                if (closed || inFlight != 0 || changed.isEmpty() && left.isEmpty()) {
+                    return;
+                }
+                List<PartyMember> members = new ArrayList<>(changed.size());
+                for (Subscriber other : changed) {
+                    members.add(other.member);
+                    known.add(other.id);
+                }
+                known.removeAll(left);
+                update = new PartyUpdate(members, Set.copyOf(left));
+                changed.clear();
+                left.clear();
+                batch = ++batches;
+                inFlight = batch;
+            }
+            scheduler.schedule(() -> checkSlow(batch), slowConsumerNanos, TimeUnit.NANOSECONDS);
+            deliveryExecutor.execute(() -> listener.deliver(update, () -> delivered(batch)));
+        }
+
+        private synchronized void delivered(long batch) {
+            if (inFlight == batch) {
+                inFlight = 0;
+                DELIVERED.increment();
+                scheduleFlush();
+            }
+        }
+
+        private void checkSlow(long batch) {
+            synchronized (this) {
+                if (inFlight != batch || closed) {
+                    return;
+                }
+            }
+            if (leave()) {
+                SHED.increment();
+                listener.shed();
+            }
+        }
+
+        private boolean leave() {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                changed.clear();
+                left.clear();
+            }
+            Room room = rooms.computeIfPresent(roomName, (name, current) -> {
+                current.subscribers.remove(this);
+                return current.subscribers.isEmpty() ? null : current;
+            });
+            if (room != null) {
+                for (Subscriber other : room.subscribers) {
+                    other.left(this);
+                }
+            }
+            return true;
+        }
+    }
+}
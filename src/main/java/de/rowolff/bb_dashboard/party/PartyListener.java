@@ -0,0 +1,20 @@
+package de.rowolff.bb_dashboard.party;
+
+/**
+ * Receives the updates of a party room, see {@link PartyBroadcaster#join}.
+ */
+public interface PartyListener {
+
+    /**
+     * Delivers an update on a thread of the broadcaster's executor. No further update is delivered until
+     * {@code done} is run. A view should run it once the browser has received the update, e.g. when it answers a
+     * call made along with the update. Running it at the end of the {@code UI.access} command applying the update
+     * would only measure how long the session lock was busy, not the connection.
+     */
+    void deliver(PartyUpdate update, Runnable done);
+
+    /**
+     * Called once the listener was removed from its room because it did not finish an update in time.
+     */
+    void shed();
+}
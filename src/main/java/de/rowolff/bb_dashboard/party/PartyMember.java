@@ -0,0 +1,24 @@
+package de.rowolff.bb_dashboard.party;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.Character;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+
+/**
+ * The build a member of a party room currently shows to the others.
+ *
+ * @param id     unique per joined view, a player may be in a room with several tabs
+ * @param schema the attributes of the member's rule pack, which the totals follow; members of one room may play
+ *               different rule packs
+ */
+public record PartyMember(String id, String characterName, String archetype, String charClass, String background,
+                          AttributeSchema schema, Character.Stats totals) implements Serializable {
+
+    public static PartyMember of(@NotNull String id, @NotNull Character character) {
+        return new PartyMember(id, character.getCharacterName(), character.getArchetype().getName(),
+                character.getCharClass().getName(), character.getBackground().getName(), character.getSchema(),
+                character.getTotalStats());
+    }
+}
@@ -0,0 +1,12 @@
+package de.rowolff.bb_dashboard.party;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Everything that changed in a party room since the previous update delivered to a member.
+ *
+ * @param changed the latest build of every member that joined or changed
+ * @param left    the ids of the members that left
+ */
+public record PartyUpdate(Collection<PartyMember> changed, Set<String> left) {}
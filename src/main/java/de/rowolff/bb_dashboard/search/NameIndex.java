@@ -0,0 +1,161 @@
+package de.rowolff.bb_dashboard.search;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Case-insensitive prefix and typo-tolerant search over a set of names.
+ * <p>
+ * The lower-cased names are kept in a sorted map, which doubles as an implicit trie: the names below a trie node
+ * are the range of keys starting with its prefix, and its children are found by jumping from one first character
+ * to the next. Prefix search is a single range lookup. Fuzzy search walks that trie with a Levenshtein row per
+ * node, pruning every branch that is more than the allowed number of edits away from the query, so it visits a
+ * small part of the names however many there are. Updates are single map operations.
+ * <p>
+ * Not thread-safe, the owner guards it.
+ */
+public final class NameIndex implements Serializable {
+
+    // above any character in names, so prefix + LAST_CHAR ends the range of keys with that prefix
+    private static final char LAST_CHAR = Character.MAX_VALUE;
+
+    // original names by their lower-cased key
+    private final TreeMap<String, TreeSet<String>> names = new TreeMap<>();
+    private int size;
+
+    public static NameIndex of(@NotNull Collection<String> names) {
+        NameIndex index = new NameIndex();
+        names.forEach(index::add);
+        return index;
+    }
+
+    public void add(@NotNull String name) {
+        if (names.computeIfAbsent(key(name), k -> new TreeSet<>()).add(name)) {
+            size++;
+        }
+    }
+
+    public void remove(@NotNull String name) {
+        String key = key(name);
+        TreeSet<String> originals = names.get(key);
+        if (originals != null && originals.remove(name)) {
+            size--;
+            if (originals.isEmpty()) {
+                names.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        names.clear();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The allowed typos grow with the length of the query: none below 4 characters, one below 7, two above.
+     */
+    public static int maxEdits(int queryLength) {
+        return queryLength < 4 ? 0 : queryLength < 7 ? 1 : 2;
+    }
+
+    /**
+     * Searches the names starting with the query, ignoring case, in alphabetical order, followed by the names
+     * starting with something within {@link #maxEdits} typos of the query, also in alphabetical order.
+     *
+     * @return the matches from {@code offset} on, at most {@code limit}
+     */
+    public List<String> search(@NotNull String query, int offset, int limit) {
+        String key = key(query);
+        List<String> matches = new ArrayList<>(Math.min(offset + limit, 64));
+        int wanted = offset + limit;
+        addAll(names.subMap(key, true, key + LAST_CHAR, false), null, matches, wanted);
+        int maxEdits = maxEdits(key.length());
+        if (maxEdits > 0 && matches.size() < wanted) {
+            int[] row = new int[key.length() + 1];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = i;
+            }
+            searchFuzzy(key, maxEdits, "", row, matches, wanted);
+        }
+        return offset >= matches.size() ? List.of() : matches.subList(offset, matches.size());
+    }
+
+    /**
+     * Visits the children of the trie node {@code prefix}, whose Levenshtein row against the query is
+     * {@code row}.
+     */
+    private void searchFuzzy(String query, int maxEdits, String prefix, int[] row, List<String> matches,
+                             int wanted) {
+        String next = names.ceilingKey(prefix);
+        while (next != null && next.startsWith(prefix) && matches.size() < wanted) {
+            if (next.length() == prefix.length()) {
+                // the node's own name was matched by the parent
+                next = names.higherKey(next);
+                continue;
+            }
+            String child = next.substring(0, prefix.length() + 1);
+            int[] childRow = nextRow(query, row, child.charAt(prefix.length()));
+            if (childRow[query.length()] <= maxEdits) {
+                // the child is within the allowed typos of the whole query, so is everything below it
+                addAll(names.subMap(child, true, child + LAST_CHAR, false), query, matches, wanted);
+            } else if (min(childRow) <= maxEdits) {
+                searchFuzzy(query, maxEdits, child, childRow, matches, wanted);
+            }
+            next = names.ceilingKey(child + LAST_CHAR);
+        }
+    }
+
+    private static int[] nextRow(String query, int[] row, char c) {
+        int[] next = new int[row.length];
+        next[0] = row[0] + 1;
+        for (int i = 1; i < row.length; i++) {
+            int substitution = row[i - 1] + (query.charAt(i - 1) == c ? 0 : 1);
+            next[i] = Math.min(substitution, Math.min(row[i] + 1, next[i - 1] + 1));
+        }
+        return next;
+    }
+
+    private static int min(int[] row) {
+        int min = row[0];
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    /**
+     * @param exactPrefix names with this prefix are skipped as they were found by the exact search,
+     *                    {@code null} to skip none
+     */
+    private static void addAll(NavigableMap<String, TreeSet<String>> range, String exactPrefix, List<String> matches,
+                               int wanted) {
+        for (Map.Entry<String, TreeSet<String>> entry : range.entrySet()) {
+            if (exactPrefix != null && entry.getKey().startsWith(exactPrefix)) {
+                continue;
+            }
+            for (String name : entry.getValue()) {
+                if (matches.size() >= wanted) {
+                    return;
+                }
+                matches.add(name);
+            }
+        }
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
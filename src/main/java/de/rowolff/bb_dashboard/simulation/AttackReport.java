@@ -0,0 +1,15 @@
+package de.rowolff.bb_dashboard.simulation;
+
+import de.rowolff.bb_dashboard.analytics.ValueHistogram;
+
+import java.io.Serializable;
+
+/**
+ * How a build fares against the standard target of the {@link CombatSimulator}.
+ *
+ * @param hitRate        share of the rounds with a hit, critical hits included
+ * @param criticalRate   share of the rounds with a critical hit
+ * @param damagePerRound damage dealt in each simulated round, 0 for a miss
+ */
+public record AttackReport(long rounds, double hitRate, double criticalRate, ValueHistogram damagePerRound)
+        implements Serializable {}
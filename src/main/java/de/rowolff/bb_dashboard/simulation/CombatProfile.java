@@ -0,0 +1,30 @@
+package de.rowolff.bb_dashboard.simulation;
+
+import de.rowolff.bb_dashboard.character.Character;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+
+/**
+ * The modifiers of a build that matter in combat, see {@link CombatSimulator} for how they are used. Builds
+ * with the same modifiers fight the same, so the profile is also the key of the simulation results.
+ */
+public record CombatProfile(int accuracy, int damage, int speed, int mastery) implements Serializable {
+
+    public static final String ACCURACY = "Accuracy";
+    public static final String DAMAGE = "Damage";
+    public static final String SPEED = "Speed";
+    public static final String MASTERY = "Mastery";
+
+    /**
+     * Attributes missing from the character's rule pack count as a modifier of 0.
+     */
+    public static CombatProfile of(@NotNull Character character) {
+        return new CombatProfile(modifier(character, ACCURACY), modifier(character, DAMAGE),
+                modifier(character, SPEED), modifier(character, MASTERY));
+    }
+
+    private static int modifier(Character character, String attribute) {
+        return character.getSchema().contains(attribute) ? character.getModifierByName(attribute) : 0;
+    }
+}
@@ -0,0 +1,297 @@
+package de.rowolff.bb_dashboard.simulation;
+
+import de.rowolff.bb_dashboard.analytics.ValueHistogram;
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Monte Carlo simulation of dice-based combat between builds, described by their {@link CombatProfile}.
+ * <p>
+ * An attack rolls a d20: a natural 1 misses, a roll of {@value #CRITICAL_ROLL} minus the mastery modifier (at
+ * most {@value #MAX_CRITICAL_RANGE}) or more is a critical hit, otherwise the roll plus the accuracy modifier hits
+ * if it reaches the defense of {@value #BASE_DEFENSE} plus the target's speed modifier. A hit deals a d8 plus the
+ * damage modifier, at least 1, a critical hit rolls the d8 twice. The attack report rolls one attack per round
+ * against a target with a speed modifier of {@value #TARGET_SPEED}. In a duel both builds start with
+ * {@value #HIT_POINTS} hit points; every round each rolls a d20 plus its speed modifier for initiative, and they
+ * attack in that order until one falls or {@value #MAX_DUEL_ROUNDS} rounds have passed.
+ * <p>
+ * The trials are split across a fork-join pool, every task with its own {@link SplittableRandom} split off its
+ * parent's, and the inner loops only work on primitives. The random numbers are seeded with the profiles, so a
+ * simulation always gives the same result. Results are cached per profile and pair of profiles, so repeated
+ * comparisons are answered without simulating again.
+ */
+@Service
+public class CombatSimulator {
+
+    public static final int DEFAULT_ROUNDS = 1_000_000;
+    public static final int DEFAULT_ENCOUNTERS = 200_000;
+
+    static final int CRITICAL_ROLL = 20;
+    static final int MAX_CRITICAL_RANGE = 5;
+    static final int BASE_DEFENSE = 10;
+    static final int TARGET_SPEED = 1;
+    static final int HIT_POINTS = 30;
+    static final int MAX_DUEL_ROUNDS = 100;
+
+    private static final int SEQUENTIAL_THRESHOLD = 16_384;
+    private static final int MAX_CACHED_RESULTS = 4_096;
+    private static final long SEED = 0x5DEECE66DL;
+    private static final int DIE_SIDES = 8;
+
+    private static final Timer ATTACK_TIMER = DashboardMetrics.simulation("attack");
+    private static final Timer DUEL_TIMER = DashboardMetrics.simulation("duel");
+
+    private final int rounds;
+    private final int encounters;
+    private final int maxCachedResults;
+    // guarded by itself, in access order; results being simulated are in there as well
+    private final Map<Object, CompletableFuture<?>> results;
+
+    @Autowired
+    public CombatSimulator() {
+        this(DEFAULT_ROUNDS, DEFAULT_ENCOUNTERS, MAX_CACHED_RESULTS);
+    }
+
+    /**
+     * @param rounds           rounds simulated for an attack report
+     * @param encounters       encounters simulated for a duel
+     * @param maxCachedResults results kept, the least recently used ones are dropped
+     */
+    public CombatSimulator(int rounds, int encounters, int maxCachedResults) {
+        if (rounds < 1 || encounters < 1) {
+            throw new IllegalArgumentException(String.format("Invalid trials: %d rounds, %d encounters", rounds,
+                    encounters));
+        }
+        this.rounds = rounds;
+        this.encounters = encounters;
+        this.maxCachedResults = maxCachedResults;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CompletableFuture<?>> eldest) {
+                return size() > CombatSimulator.this.maxCachedResults;
+            }
+        };
+    }
+
+    /**
+     * @return hit rates and damage per round of the build against the standard target
+     */
+    public AttackReport attack(@NotNull CombatProfile profile) {
+        return cached(profile, () -> ATTACK_TIMER.record(() -> ForkJoinPool.commonPool()
+                .invoke(new AttackTask(profile, new SplittableRandom(SEED ^ profile.hashCode()), rounds))
+                .toReport()));
+    }
+
+    /**
+     * @return how often each build wins against the other
+     */
+    public DuelReport duel(@NotNull CombatProfile first, @NotNull CombatProfile second) {
+        return cached(new Pairing(first, second), () -> DUEL_TIMER.record(() -> ForkJoinPool.commonPool()
+                .invoke(new DuelTask(first, second, new SplittableRandom(SEED ^ Objects.hash(first, second)),
+                        encounters))
+                .toReport()));
+    }
+
+    /**
+     * Simulates at most once per key, concurrent requests of a result being simulated wait for it.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T cached(Object key, Supplier<T> simulation) {
+        CompletableFuture<T> result;
+        boolean simulate = false;
+        synchronized (results) {
+            result = (CompletableFuture<T>) results.get(key);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                results.put(key, result);
+                simulate = true;
+            }
+        }
+        if (simulate) {
+            try {
+                result.complete(simulation.get());
+            } catch (RuntimeException e) {
+                synchronized (results) {
+                    results.remove(key);
+                }
+                result.completeExceptionally(e);
+            }
+        }
+        return result.join();
+    }
+
+    /**
+     * @return the damage of an attack shifted left by one, with the lowest bit set for a critical hit
+     */
+    private static int attack(SplittableRandom random, CombatProfile attacker, int defense) {
+        int roll = random.nextInt(1, 21);
+        boolean critical = roll >= CRITICAL_ROLL - Math.min(Math.max(attacker.mastery(), 0), MAX_CRITICAL_RANGE);
+        if (roll == 1 || !critical && roll + attacker.accuracy() < defense) {
+            return 0;
+        }
+        int damage = random.nextInt(1, DIE_SIDES + 1) + attacker.damage();
+        if (critical) {
+            damage += random.nextInt(1, DIE_SIDES + 1);
+        }
+        return Math.max(damage, 1) << 1 | (critical ? 1 : 0);
+    }
+
+    private static int defenseOf(int speed) {
+        return BASE_DEFENSE + speed;
+    }
+
+    private record Pairing(CombatProfile first, CombatProfile second) {}
+
+    private static final class AttackTask extends RecursiveTask<AttackTally> {
+        private final CombatProfile profile;
+        private final SplittableRandom random;
+        private final int rounds;
+
+        private AttackTask(CombatProfile profile, SplittableRandom random, int rounds) {
+            this.profile = profile;
+            this.random = random;
+            this.rounds = rounds;
+        }
+
+        @Override
+        protected AttackTally compute() {
+            if (rounds > SEQUENTIAL_THRESHOLD) {
+                AttackTask left = new AttackTask(profile, random.split(), rounds / 2);
+                left.fork();
+                AttackTally tally = new AttackTask(profile, random, rounds - rounds / 2).compute();
+                return tally.merge(left.join());
+            }
+            AttackTally tally = new AttackTally(profile);
+            int defense = defenseOf(TARGET_SPEED);
+            for (int i = 0; i < rounds; i++) {
+                int outcome = attack(random, profile, defense);
+                tally.damage[outcome >>> 1]++;
+                tally.criticals += outcome & 1;
+            }
+            return tally;
+        }
+    }
+
+    private static final class AttackTally {
+        private final long[] damage;
+        private long criticals;
+
+        private AttackTally(CombatProfile profile) {
+            // up to the two damage dice of a critical hit plus the damage modifier
+            damage = new long[Math.max(2 * DIE_SIDES + profile.damage(), 1) + 1];
+        }
+
+        private AttackTally merge(AttackTally other) {
+            for (int i = 0; i < damage.length; i++) {
+                damage[i] += other.damage[i];
+            }
+            criticals += other.criticals;
+            return this;
+        }
+
+        private AttackReport toReport() {
+            ValueHistogram histogram = new ValueHistogram();
+            long rounds = 0;
+            for (int i = 0; i < damage.length; i++) {
+                if (damage[i] > 0) {
+                    histogram.add(i, damage[i]);
+                }
+                rounds += damage[i];
+            }
+            return new AttackReport(rounds, (double) (rounds - damage[0]) / rounds, (double) criticals / rounds,
+                    histogram);
+        }
+    }
+
+    private static final class DuelTask extends RecursiveTask<DuelTally> {
+        private final CombatProfile first;
+        private final CombatProfile second;
+        private final SplittableRandom random;
+        private final int encounters;
+
+        private DuelTask(CombatProfile first, CombatProfile second, SplittableRandom random, int encounters) {
+            this.first = first;
+            this.second = second;
+            this.random = random;
+            this.encounters = encounters;
+        }
+
+        @Override
+        protected DuelTally compute() {
+            // duels last several rounds, so fewer of them make up a task
+            if (encounters > SEQUENTIAL_THRESHOLD / 8) {
+                DuelTask left = new DuelTask(first, second, random.split(), encounters / 2);
+                left.fork();
+                DuelTally tally = new DuelTask(first, second, random, encounters - encounters / 2).compute();
+                return tally.merge(left.join());
+            }
+            DuelTally tally = new DuelTally();
+            int firstDefense = defenseOf(first.speed());
+            int secondDefense = defenseOf(second.speed());
+            for (int i = 0; i < encounters; i++) {
+                int firstHitPoints = HIT_POINTS;
+                int secondHitPoints = HIT_POINTS;
+                int round = 0;
+                while (firstHitPoints > 0 && secondHitPoints > 0 && round < MAX_DUEL_ROUNDS) {
+                    round++;
+                    int firstInitiative = random.nextInt(1, 21) + first.speed();
+                    int secondInitiative = random.nextInt(1, 21) + second.speed();
+                    boolean firstStarts = firstInitiative == secondInitiative
+                            ? random.nextBoolean() : firstInitiative > secondInitiative;
+                    if (firstStarts) {
+                        secondHitPoints -= attack(random, first, secondDefense) >>> 1;
+                        if (secondHitPoints > 0) {
+                            firstHitPoints -= attack(random, second, firstDefense) >>> 1;
+                        }
+                    } else {
+                        firstHitPoints -= attack(random, second, firstDefense) >>> 1;
+                        if (firstHitPoints > 0) {
+                            secondHitPoints -= attack(random, first, secondDefense) >>> 1;
+                        }
+                    }
+                }
+                if (secondHitPoints <= 0) {
+                    tally.firstWins++;
+                } else if (firstHitPoints <= 0) {
+                    tally.secondWins++;
+                } else {
+                    tally.draws++;
+                }
+                tally.rounds += round;
+            }
+            return tally;
+        }
+    }
+
+    private static final class DuelTally {
+        private long firstWins;
+        private long secondWins;
+        private long draws;
+        private long rounds;
+
+        private DuelTally merge(DuelTally other) {
+            firstWins += other.firstWins;
+            secondWins += other.secondWins;
+            draws += other.draws;
+            rounds += other.rounds;
+            return this;
+        }
+
+        private DuelReport toReport() {
+            long encounters = firstWins + secondWins + draws;
+            return new DuelReport(encounters, firstWins, secondWins, draws, (double) rounds / encounters);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package de.rowolff.bb_dashboard.simulation;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of the head-to-head encounters of two builds in the {@link CombatSimulator}.
+ *
+ * @param draws encounters in which both builds were still standing after the round limit
+ */
+public record DuelReport(long encounters, long firstWins, long secondWins, long draws, double meanRounds)
+        implements Serializable {
+
+    public double firstWinRate() {
+        return (double) firstWins / encounters;
+    }
+
+    public double secondWinRate() {
+        return (double) secondWins / encounters;
+    }
+
+    public double drawRate() {
+        return (double) draws / encounters;
+    }
+}
@@ -0,0 +1,163 @@
+package de.rowolff.bb_dashboard.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary layout of a single log record:
+ * <pre>
+ * int   body length
+ * int   CRC32 of the body
+ * body: byte type, string name, [string archetype, string class, string background,
+ *        byte stat count, (string stat, short points)*, [string rule pack]]  (PUT only)
+ * </pre>
+ * The rule pack is only written for characters of a pack other than the default one, so records written before
+ * there were several rule packs read as characters of the default pack.
+ * Strings are written as a short byte length (-1 for {@code null}) followed by UTF-8 bytes.
+ */
+final class CharacterRecordCodec {
+
+    static final int HEADER_SIZE = 8;
+    static final byte TYPE_PUT = 1;
+    static final byte TYPE_DELETE = 2;
+
+    private CharacterRecordCodec() {}
+
+    static byte[] encodePut(SavedCharacter character) {
+        return encode(out -> {
+            out.writeByte(TYPE_PUT);
+            writeString(out, character.name());
+            writeString(out, character.archetype());
+            writeString(out, character.charClass());
+            writeString(out, character.background());
+            out.writeByte(character.spentPoints().size());
+            for (Map.Entry<String, Integer> entry : character.spentPoints().entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeShort(entry.getValue());
+            }
+            if (character.rulePack() != null) {
+                writeString(out, character.rulePack());
+            }
+        });
+    }
+
+    static byte[] encodeDelete(String name) {
+        return encode(out -> {
+            out.writeByte(TYPE_DELETE);
+            writeString(out, name);
+        });
+    }
+
+    /**
+     * @return the body length of a valid record at {@code position}, or -1 if the record is missing,
+     * truncated or corrupt
+     */
+    static int validate(ByteBuffer buffer, int position, int limit) {
+        if (position + HEADER_SIZE > limit) {
+            return -1;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > limit - position - HEADER_SIZE) {
+            return -1;
+        }
+        byte[] body = new byte[length];
+        buffer.get(position + HEADER_SIZE, body);
+        return buffer.getInt(position + 4) == checksum(body) ? length : -1;
+    }
+
+    static byte type(ByteBuffer buffer, int position) {
+        return buffer.get(position + HEADER_SIZE);
+    }
+
+    static String name(ByteBuffer buffer, int position) {
+        return new Reader(buffer, position + HEADER_SIZE + 1).readString();
+    }
+
+    static SavedCharacter decodePut(ByteBuffer buffer, int position) {
+        Reader reader = new Reader(buffer, position + HEADER_SIZE + 1);
+        String name = reader.readString();
+        String archetype = reader.readString();
+        String charClass = reader.readString();
+        String background = reader.readString();
+        int statCount = reader.readByte();
+        Map<String, Integer> spentPoints = new LinkedHashMap<>();
+        for (int i = 0; i < statCount; i++) {
+            spentPoints.put(reader.readString(), (int) reader.readShort());
+        }
+        int end = position + HEADER_SIZE + buffer.getInt(position);
+        String rulePack = reader.position < end ? reader.readString() : null;
+        return new SavedCharacter(name, archetype, charClass, background, spentPoints, rulePack);
+    }
+
+    static int checksum(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(BodyWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String too long to store: " + value.length());
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private int position;
+
+        private Reader(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private byte readByte() {
+            return buffer.get(position++);
+        }
+
+        private short readShort() {
+            short value = buffer.getShort(position);
+            position += 2;
+            return value;
+        }
+
+        private String readString() {
+            int length = readShort();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
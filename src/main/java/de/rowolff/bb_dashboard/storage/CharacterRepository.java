@@ -0,0 +1,86 @@
+package de.rowolff.bb_dashboard.storage;
+
+import de.rowolff.bb_dashboard.search.NameIndex;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Server-side store for saved characters, keyed by character name.
+ */
+public interface CharacterRepository {
+
+    /**
+     * Stores the character, replacing any previous character with the same name.
+     */
+    void save(SavedCharacter character);
+
+    /**
+     * Stores all characters in their order, as if saved one by one.
+     */
+    default void saveAll(Collection<SavedCharacter> characters) {
+        characters.forEach(this::save);
+    }
+
+    Optional<SavedCharacter> findByName(String name);
+
+    boolean exists(String name);
+
+    /**
+     * @return the names of all saved characters in alphabetical order
+     */
+    Collection<String> findAllNames();
+
+    /**
+     * @return one page of the saved characters matching the query, in the order of the query
+     */
+    List<SavedCharacter> find(RosterQuery query, int offset, int limit);
+
+    int count(RosterQuery query);
+
+    /**
+     * @return up to {@code limit} saved characters following {@code name} in alphabetical order, from the
+     * start if {@code name} is {@code null}
+     */
+    List<SavedCharacter> findAfter(String name, int limit);
+
+    /**
+     * @return {@code true} if a character with that name existed
+     */
+    boolean delete(String name);
+
+    int count();
+
+    /**
+     * @return up to {@code limit} names of saved characters matching the query, see {@link NameIndex#search}
+     */
+    List<String> searchNames(String query, int limit);
+
+    /**
+     * Forces all saves and deletes so far to the storage device, so they survive a crash of the machine.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Registers the listener and first reports every saved character to it as newly saved, so together with
+     * the changes that follow it sees the whole roster exactly once.
+     */
+    void addChangeListener(ChangeListener listener);
+
+    void removeChangeListener(ChangeListener listener);
+
+    /**
+     * Called for every save, overwrite and delete while it is applied, so changes arrive in the order they
+     * take effect. Must not call back into the repository.
+     */
+    @FunctionalInterface
+    interface ChangeListener {
+        /**
+         * @param previous the replaced or deleted character, or {@code null} if there was none of that name
+         * @param current  the saved character, or {@code null} if it was deleted
+         */
+        void rosterChanged(SavedCharacter previous, SavedCharacter current);
+    }
+}
@@ -0,0 +1,388 @@
+package de.rowolff.bb_dashboard.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Embedded {@link CharacterRepository} backed by an append-only, memory-mapped log file.
+ * <p>
+ * Every save or delete appends a checksummed record (see {@link CharacterRecordCodec}); an in-memory
+ * {@link RosterIndex} points at the latest record of each character, so lookups never touch the disk.
+ * On startup the log is replayed to rebuild the index and cut off a torn tail left by a crash. Once
+ * superseded records outweigh the live ones, the log is compacted into a fresh file.
+ */
+@Repository
+public class MappedCharacterRepository implements CharacterRepository, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedCharacterRepository.class);
+
+    private static final int MAGIC = 0x42424331; // "BBC1"
+    private static final int FILE_HEADER_SIZE = 4;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final int MIN_COMPACTION_GARBAGE = 1 << 20;
+
+    private final Path file;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RosterIndex index = new RosterIndex();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private long liveBytes;
+
+    @Autowired
+    public MappedCharacterRepository(@Value("${bb-dashboard.storage.file}") String file) {
+        this(Paths.get(file));
+    }
+
+    public MappedCharacterRepository(Path file) {
+        this.file = file;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.deleteIfExists(compactionFile());
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open character store " + file, e);
+        }
+    }
+
+    @Override
+    public void save(SavedCharacter character) {
+        byte[] body = CharacterRecordCodec.encodePut(character);
+        lock.writeLock().lock();
+        try {
+            put(character, body);
+            compactIfWorthwhile();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<SavedCharacter> characters) {
+        List<byte[]> bodies = characters.stream().map(CharacterRecordCodec::encodePut).toList();
+        lock.writeLock().lock();
+        try {
+            int i = 0;
+            for (SavedCharacter character : characters) {
+                put(character, bodies.get(i++));
+            }
+            compactIfWorthwhile();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<SavedCharacter> findByName(String name) {
+        lock.readLock().lock();
+        try {
+            RosterIndex.Entry entry = index.get(name);
+            return entry == null ? Optional.empty() : Optional.of(CharacterRecordCodec.decodePut(buffer, entry.offset()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean exists(String name) {
+        lock.readLock().lock();
+        try {
+            return index.get(name) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<String> findAllNames() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(index.names());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SavedCharacter> find(RosterQuery query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<SavedCharacter> page = new ArrayList<>();
+            for (RosterIndex.Entry entry : index.find(query, offset, limit)) {
+                page.add(CharacterRecordCodec.decodePut(buffer, entry.offset()));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SavedCharacter> findAfter(String name, int limit) {
+        lock.readLock().lock();
+        try {
+            List<SavedCharacter> page = new ArrayList<>();
+            for (RosterIndex.Entry entry : index.after(name, limit)) {
+                page.add(CharacterRecordCodec.decodePut(buffer, entry.offset()));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> searchNames(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.searchNames(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int count(RosterQuery query) {
+        lock.readLock().lock();
+        try {
+            return index.count(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String name) {
+        lock.writeLock().lock();
+        try {
+            RosterIndex.Entry previous = index.remove(name);
+            if (previous == null) {
+                return false;
+            }
+            SavedCharacter deleted = listeners.isEmpty()
+                    ? null
+                    : CharacterRecordCodec.decodePut(buffer, previous.offset());
+            liveBytes -= recordSize(previous.offset());
+            append(CharacterRecordCodec.encodeDelete(name));
+            fire(deleted, null);
+            compactIfWorthwhile();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        lock.writeLock().lock();
+        try {
+            for (RosterIndex.Entry entry : index.entries()) {
+                listener.rosterChanged(null, CharacterRecordCodec.decodePut(buffer, entry.offset()));
+            }
+            listeners.add(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void flush() {
+        lock.readLock().lock();
+        try {
+            buffer.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log so it only contains the latest record of every saved character.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            Path target = compactionFile();
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(0, MAGIC);
+                out.write(header);
+                for (RosterIndex.Entry entry : index.entries()) {
+                    out.write(buffer.slice(entry.offset(), recordSize(entry.offset())));
+                }
+                out.write(ByteBuffer.allocate(4));
+                out.force(true);
+            }
+            channel.close();
+            Files.move(target, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact character store " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Character store exceeds 2 GiB: " + file);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityFor((int) size));
+        if (size == 0) {
+            buffer.putInt(0, MAGIC);
+        } else if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a character store: " + file);
+        }
+        recover();
+    }
+
+    private void recover() {
+        index.clear();
+        liveBytes = 0;
+        int position = FILE_HEADER_SIZE;
+        int limit = buffer.capacity();
+        int length;
+        while ((length = CharacterRecordCodec.validate(buffer, position, limit)) > 0) {
+            boolean put = CharacterRecordCodec.type(buffer, position) == CharacterRecordCodec.TYPE_PUT;
+            RosterIndex.Entry previous = put
+                    ? index.put(entryOf(CharacterRecordCodec.decodePut(buffer, position), position))
+                    : index.remove(CharacterRecordCodec.name(buffer, position));
+            if (previous != null) {
+                liveBytes -= recordSize(previous.offset());
+            }
+            if (put) {
+                liveBytes += CharacterRecordCodec.HEADER_SIZE + length;
+            }
+            position += CharacterRecordCodec.HEADER_SIZE + length;
+        }
+        if (position + 4 <= limit && buffer.getInt(position) != 0) {
+            LOGGER.warn("Discarding torn record at offset {} of character store {}", position, file);
+            buffer.putInt(position, 0);
+        }
+        writePosition = position;
+    }
+
+    private void put(SavedCharacter character, byte[] body) {
+        int offset = append(body);
+        RosterIndex.Entry previous = index.put(entryOf(character, offset));
+        SavedCharacter replaced = null;
+        if (previous != null) {
+            if (!listeners.isEmpty()) {
+                replaced = CharacterRecordCodec.decodePut(buffer, previous.offset());
+            }
+            liveBytes -= recordSize(previous.offset());
+        }
+        liveBytes += recordSize(offset);
+        fire(replaced, character);
+    }
+
+    private void fire(SavedCharacter previous, SavedCharacter current) {
+        for (ChangeListener listener : listeners) {
+            listener.rosterChanged(previous, current);
+        }
+    }
+
+    private int append(byte[] body) {
+        int size = CharacterRecordCodec.HEADER_SIZE + body.length;
+        ensureCapacity(writePosition + size + 4);
+        int offset = writePosition;
+        buffer.put(offset + CharacterRecordCodec.HEADER_SIZE, body);
+        buffer.putInt(offset + size, 0);
+        buffer.putInt(offset + 4, CharacterRecordCodec.checksum(body));
+        buffer.putInt(offset, body.length);
+        writePosition += size;
+        return offset;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityFor(required));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not grow character store " + file, e);
+        }
+    }
+
+    private void compactIfWorthwhile() {
+        long garbage = writePosition - FILE_HEADER_SIZE - liveBytes;
+        if (garbage > MIN_COMPACTION_GARBAGE && garbage > liveBytes) {
+            compact();
+        }
+    }
+
+    private static RosterIndex.Entry entryOf(SavedCharacter character, int offset) {
+        return new RosterIndex.Entry(character.name(), offset, character.archetype(), character.charClass());
+    }
+
+    private int recordSize(int offset) {
+        return CharacterRecordCodec.HEADER_SIZE + buffer.getInt(offset);
+    }
+
+    private Path compactionFile() {
+        return file.resolveSibling(file.getFileName() + ".compact");
+    }
+
+    private static int capacityFor(int required) {
+        long capacity = INITIAL_CAPACITY;
+        while (capacity < required + 4L) {
+            capacity <<= 1;
+        }
+        return (int) Math.min(capacity, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,170 @@
+package de.rowolff.bb_dashboard.storage;
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A sorted set that also knows the position of every element: a treap whose nodes count the elements below
+ * them, so adding, removing, the rank of a value and the element at an index all take O(log n).
+ * <p>
+ * Not thread-safe.
+ */
+final class RankedSet<T> {
+
+    private static final class Node<T> {
+        private final T value;
+        private final int priority;
+        private int size = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    private final Comparator<? super T> order;
+    private Node<T> root;
+    // results of split, the elements before the value and the others
+    private Node<T> before;
+    private Node<T> after;
+
+    RankedSet(Comparator<? super T> order) {
+        this.order = order;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @return whether the value was added, {@code false} if an equal one is in the set
+     */
+    boolean add(T value) {
+        split(root, value);
+        Node<T> head = before;
+        Node<T> tail = after;
+        if (tail != null && order.compare(first(tail), value) == 0) {
+            root = merge(head, tail);
+            return false;
+        }
+        root = merge(merge(head, new Node<>(value, ThreadLocalRandom.current().nextInt())), tail);
+        return true;
+    }
+
+    /**
+     * @return whether an element equal to the value was removed
+     */
+    boolean remove(T value) {
+        split(root, value);
+        Node<T> head = before;
+        Node<T> tail = after;
+        boolean found = tail != null && order.compare(first(tail), value) == 0;
+        if (found) {
+            tail = removeFirst(tail);
+        }
+        root = merge(head, tail);
+        return found;
+    }
+
+    /**
+     * @return the number of elements ordered before the value
+     */
+    int rank(T value) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            if (order.compare(node.value, value) < 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * @return the element at the index in the order of the set
+     */
+    T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    private void split(Node<T> node, T value) {
+        if (node == null) {
+            before = null;
+            after = null;
+        } else if (order.compare(node.value, value) < 0) {
+            split(node.right, value);
+            node.right = before;
+            update(node);
+            before = node;
+        } else {
+            split(node.left, value);
+            node.left = after;
+            update(node);
+            after = node;
+        }
+    }
+
+    private Node<T> merge(Node<T> head, Node<T> tail) {
+        if (head == null) {
+            return tail;
+        }
+        if (tail == null) {
+            return head;
+        }
+        if (head.priority > tail.priority) {
+            head.right = merge(head.right, tail);
+            update(head);
+            return head;
+        }
+        tail.left = merge(head, tail.left);
+        update(tail);
+        return tail;
+    }
+
+    private Node<T> removeFirst(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeFirst(node.left);
+        update(node);
+        return node;
+    }
+
+    private static <T> T first(Node<T> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.value;
+    }
+
+    private static void update(Node<?> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,199 @@
+package de.rowolff.bb_dashboard.storage;
+
+import de.rowolff.bb_dashboard.search.NameIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+
+/**
+ * In-memory index over the saved characters: the log offset of every character by name, plus the entries
+ * kept sorted in every order a roster page can be read in, grouped by the filters that can be fixed in front
+ * of the name. Each of these {@link RankedSet}s knows the position of its entries, so a page or count is
+ * answered by ranking the bounds of the name prefix within each group and reading the page by position. Its
+ * cost grows with the page size and the number of archetypes or classes, not with the roster or the offset.
+ * A {@link NameIndex} over the names answers case-insensitive and typo-tolerant name searches.
+ * <p>
+ * Not thread-safe, the owning repository guards it.
+ */
+final class RosterIndex {
+
+    private static final String NONE = "";
+
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing(Entry::name);
+    private static final Comparator<Entry> BY_ARCHETYPE = Comparator.comparing((Entry e) -> key(e.archetype()));
+    private static final Comparator<Entry> BY_CLASS = Comparator.comparing((Entry e) -> key(e.charClass()));
+
+    record Entry(String name, int offset, String archetype, String charClass) {}
+
+    // a run of positions in one of the sets, read forwards or backwards
+    private record Range(RankedSet<Entry> entries, int from, int to) {}
+
+    private final TreeMap<String, Entry> byName = new TreeMap<>();
+    private final RankedSet<Entry> names = new RankedSet<>(BY_NAME);
+    private final RankedSet<Entry> byArchetype = new RankedSet<>(BY_ARCHETYPE.thenComparing(BY_NAME));
+    private final RankedSet<Entry> byClass = new RankedSet<>(BY_CLASS.thenComparing(BY_NAME));
+    private final RankedSet<Entry> byArchetypeAndClass =
+            new RankedSet<>(BY_ARCHETYPE.thenComparing(BY_CLASS).thenComparing(BY_NAME));
+    private final RankedSet<Entry> byClassAndArchetype =
+            new RankedSet<>(BY_CLASS.thenComparing(BY_ARCHETYPE).thenComparing(BY_NAME));
+    private final List<RankedSet<Entry>> sets =
+            List.of(names, byArchetype, byClass, byArchetypeAndClass, byClassAndArchetype);
+    // the number of characters of every archetype and class in use
+    private final TreeMap<String, Integer> archetypes = new TreeMap<>();
+    private final TreeMap<String, Integer> classes = new TreeMap<>();
+    private final NameIndex nameIndex = new NameIndex();
+
+    /**
+     * @return the entry replaced by this one, or {@code null}
+     */
+    Entry put(Entry entry) {
+        Entry previous = byName.put(entry.name(), entry);
+        if (previous != null) {
+            removeFromGroups(previous);
+        } else {
+            nameIndex.add(entry.name());
+        }
+        for (RankedSet<Entry> set : sets) {
+            set.add(entry);
+        }
+        archetypes.merge(key(entry.archetype()), 1, Integer::sum);
+        classes.merge(key(entry.charClass()), 1, Integer::sum);
+        return previous;
+    }
+
+    Entry remove(String name) {
+        Entry previous = byName.remove(name);
+        if (previous != null) {
+            removeFromGroups(previous);
+            nameIndex.remove(name);
+        }
+        return previous;
+    }
+
+    Entry get(String name) {
+        return byName.get(name);
+    }
+
+    int size() {
+        return byName.size();
+    }
+
+    NavigableSet<String> names() {
+        return byName.navigableKeySet();
+    }
+
+    Collection<Entry> entries() {
+        return byName.values();
+    }
+
+    void clear() {
+        byName.clear();
+        for (RankedSet<Entry> set : sets) {
+            set.clear();
+        }
+        archetypes.clear();
+        classes.clear();
+        nameIndex.clear();
+    }
+
+    List<String> searchNames(String query, int limit) {
+        return nameIndex.search(query, 0, limit);
+    }
+
+    List<Entry> find(RosterQuery query, int offset, int limit) {
+        List<Entry> page = new ArrayList<>(Math.min(limit, 64));
+        for (Range range : select(query)) {
+            int size = range.to() - range.from();
+            if (offset >= size) {
+                offset -= size;
+                continue;
+            }
+            for (int i = offset; i < size && page.size() < limit; i++) {
+                page.add(range.entries().get(query.descending() ? range.to() - 1 - i : range.from() + i));
+            }
+            if (page.size() == limit) {
+                break;
+            }
+            offset = 0;
+        }
+        return page;
+    }
+
+    List<Entry> after(String name, int limit) {
+        return (name == null ? byName : byName.tailMap(name, false)).values().stream().limit(limit).toList();
+    }
+
+    int count(RosterQuery query) {
+        if (!query.isFiltered()) {
+            return byName.size();
+        }
+        int count = 0;
+        for (Range range : select(query)) {
+            count += range.to() - range.from();
+        }
+        return count;
+    }
+
+    /**
+     * @return the non-empty ranges holding the matching entries, in the order of the query
+     */
+    private List<Range> select(RosterQuery query) {
+        String archetype = query.archetype();
+        String charClass = query.charClass();
+        List<Range> ranges = new ArrayList<>();
+        if (query.sortField() == RosterQuery.SortField.ARCHETYPE && archetype == null) {
+            RankedSet<Entry> entries = charClass == null ? byArchetype : byClassAndArchetype;
+            for (String group : groups(archetypes, query.descending())) {
+                addRange(ranges, entries, query.namePrefix(), group, charClass);
+            }
+        } else if (query.sortField() == RosterQuery.SortField.CLASS && charClass == null) {
+            RankedSet<Entry> entries = archetype == null ? byClass : byArchetypeAndClass;
+            for (String group : groups(classes, query.descending())) {
+                addRange(ranges, entries, query.namePrefix(), archetype, group);
+            }
+        } else {
+            // a fixed group sorts like the name
+            RankedSet<Entry> entries;
+            if (archetype != null) {
+                entries = charClass != null ? byArchetypeAndClass : byArchetype;
+            } else {
+                entries = charClass != null ? byClass : names;
+            }
+            addRange(ranges, entries, query.namePrefix(), archetype, charClass);
+        }
+        return ranges;
+    }
+
+    private static void addRange(List<Range> ranges, RankedSet<Entry> entries, String prefix, String archetype,
+                                 String charClass) {
+        int from = entries.rank(new Entry(prefix, -1, archetype, charClass));
+        int to = entries.rank(new Entry(prefix + Character.MAX_VALUE, -1, archetype, charClass));
+        if (to > from) {
+            ranges.add(new Range(entries, from, to));
+        }
+    }
+
+    private static NavigableSet<String> groups(TreeMap<String, Integer> groups, boolean descending) {
+        return descending ? groups.descendingKeySet() : groups.navigableKeySet();
+    }
+
+    private void removeFromGroups(Entry entry) {
+        for (RankedSet<Entry> set : sets) {
+            set.remove(entry);
+        }
+        decrement(archetypes, key(entry.archetype()));
+        decrement(classes, key(entry.charClass()));
+    }
+
+    private static void decrement(TreeMap<String, Integer> counts, String key) {
+        counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static String key(String value) {
+        return value == null ? NONE : value;
+    }
+}
@@ -0,0 +1,31 @@
+package de.rowolff.bb_dashboard.storage;
+
+import java.io.Serializable;
+
+/**
+ * Filter and sort order for a page of the saved character roster.
+ *
+ * @param namePrefix only characters whose name starts with this prefix, empty for all
+ * @param archetype  only characters with this archetype, {@code null} for all
+ * @param charClass  only characters with this class, {@code null} for all
+ * @param sortField  primary sort order, ties are ordered by name
+ * @param descending whether to reverse the whole sort order, including the order of ties
+ */
+public record RosterQuery(String namePrefix, String archetype, String charClass,
+                          SortField sortField, boolean descending) implements Serializable {
+
+    public static final RosterQuery ALL = new RosterQuery("", null, null, SortField.NAME, false);
+
+    public enum SortField {
+        NAME, ARCHETYPE, CLASS
+    }
+
+    public RosterQuery {
+        namePrefix = namePrefix == null ? "" : namePrefix;
+        sortField = sortField == null ? SortField.NAME : sortField;
+    }
+
+    public boolean isFiltered() {
+        return !namePrefix.isEmpty() || archetype != null || charClass != null;
+    }
+}
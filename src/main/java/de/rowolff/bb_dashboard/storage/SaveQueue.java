@@ -0,0 +1,263 @@
+package de.rowolff.bb_dashboard.storage;
+
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.constraints.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind saving of characters, so a click on "Save" never waits for the disk while it holds the session
+ * lock. Saves are queued and written by a single writer thread: a save waits up to the coalescing window for
+ * further saves, later saves of the same name within it replace the earlier one, and everything queued by then
+ * is written as one batch followed by a single {@link CharacterRepository#flush()}. Data saved along with the
+ * characters goes to {@link AlongsideStore}s, which are likewise flushed once per batch.
+ * <p>
+ * The future of a save completes only once the save, or a later one of the same name that replaced it, has been
+ * forced to the storage device. A queued save is not in the repository yet; once its batch is written, the
+ * repository returns it even before the flush, when it may still be lost in a crash. Closing the queue writes
+ * everything still queued before it returns.
+ */
+@Service
+public class SaveQueue implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaveQueue.class);
+
+    private static final long COALESCING_WINDOW_MILLIS = 200;
+    private static final int MAX_BATCH_SIZE = 512;
+
+    private static final Timer BATCH_TIMER = DashboardMetrics.storageOperation("writeBehindBatch");
+    // for data that is durable once it is written
+    private static final AlongsideStore NO_STORE = () -> {};
+
+    /**
+     * Storage of data saved along with the characters. What is written to it alongside a batch only has to be
+     * durable once the store is flushed, after the whole batch is written.
+     */
+    public interface AlongsideStore {
+        void flush();
+    }
+
+    private final CharacterRepository repository;
+    private final long windowNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queueChanged = lock.newCondition();
+    private final Thread writer;
+
+    // guarded by lock, in the order of the first save of each name
+    private final Map<String, PendingSave> pending = new LinkedHashMap<>();
+    private boolean closed;
+
+    @Autowired
+    public SaveQueue(CharacterRepository repository) {
+        this(repository, TimeUnit.MILLISECONDS.toNanos(COALESCING_WINDOW_MILLIS));
+    }
+
+    public SaveQueue(@NotNull CharacterRepository repository, long windowNanos) {
+        this.repository = repository;
+        this.windowNanos = windowNanos;
+        this.writer = new Thread(this::writeBatches, "save-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a save of the character.
+     *
+     * @param store     flushed after the batch with the character, once for all saves of the batch
+     * @param alongside written to the store on the writer thread after the batch with the character and before
+     *                  the flush, e.g. data kept next to the character; replaced along with the character by a
+     *                  later save
+     * @return completes with the character that was written once it is durable, which is a later save of the
+     * same name if it replaced this one
+     * @throws IllegalStateException if the queue is closed
+     */
+    public CompletableFuture<SavedCharacter> save(@NotNull SavedCharacter character, @NotNull AlongsideStore store,
+                                                  @NotNull Runnable alongside) {
+        CompletableFuture<SavedCharacter> saved = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The save queue is closed");
+            }
+            PendingSave previous = pending.get(character.name());
+            if (previous == null) {
+                pending.put(character.name(), new PendingSave(character, store, alongside, System.nanoTime(), saved));
+            } else {
+                previous.replace(character, store, alongside, saved);
+            }
+            queueChanged.signal();
+        } finally {
+            lock.unlock();
+        }
+        return saved;
+    }
+
+    /**
+     * Queues a save of the character along with data that is durable once {@code alongside} has run.
+     */
+    public CompletableFuture<SavedCharacter> save(@NotNull SavedCharacter character, @NotNull Runnable alongside) {
+        return save(character, NO_STORE, alongside);
+    }
+
+    public CompletableFuture<SavedCharacter> save(@NotNull SavedCharacter character) {
+        return save(character, NO_STORE, () -> {});
+    }
+
+    /**
+     * @return the number of queued characters, each counted once however often it was saved
+     */
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting saves and waits until all queued saves are written. If the waiting thread is interrupted, it
+     * returns early with its interrupt flag set while the writer finishes the queue on its own.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            queueChanged.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatches() {
+        List<PendingSave> batch;
+        while ((batch = nextBatch()) != null) {
+            List<PendingSave> written = batch;
+            try {
+                BATCH_TIMER.record(() -> write(written));
+            } catch (RuntimeException e) {
+                LOGGER.error("Could not write {} queued characters", written.size(), e);
+                written.forEach(save -> save.fail(e));
+            }
+        }
+    }
+
+    /**
+     * @return the saves to write next once the window of the oldest one has passed, or {@code null} once the
+     * queue is closed and empty
+     */
+    private List<PendingSave> nextBatch() {
+        lock.lock();
+        try {
+            while (pending.isEmpty()) {
+                if (closed) {
+                    return null;
+                }
+                queueChanged.awaitUninterruptibly();
+            }
+            long deadline = pending.values().iterator().next().queuedNanos + windowNanos;
+            long remaining;
+            while (!closed && pending.size() < MAX_BATCH_SIZE && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    queueChanged.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    // only closing ends the writer, so that nothing queued is lost
+                }
+            }
+            List<PendingSave> batch = new ArrayList<>(pending.values());
+            pending.clear();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(List<PendingSave> batch) {
+        List<SavedCharacter> characters = new ArrayList<>(batch.size());
+        for (PendingSave save : batch) {
+            characters.add(save.character);
+        }
+        repository.saveAll(characters);
+        List<RuntimeException> errors = new ArrayList<>(batch.size());
+        for (PendingSave save : batch) {
+            try {
+                save.alongside.run();
+                errors.add(null);
+            } catch (RuntimeException e) {
+                LOGGER.error("Could not write the data saved along with character {}", save.character.name(), e);
+                errors.add(e);
+            }
+        }
+        repository.flush();
+        Map<AlongsideStore, RuntimeException> flushed = new IdentityHashMap<>();
+        for (PendingSave save : batch) {
+            if (!flushed.containsKey(save.store)) {
+                try {
+                    save.store.flush();
+                    flushed.put(save.store, null);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Could not flush the data saved along with {} characters", batch.size(), e);
+                    flushed.put(save.store, e);
+                }
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            RuntimeException error = errors.get(i) != null ? errors.get(i) : flushed.get(batch.get(i).store);
+            if (error == null) {
+                batch.get(i).complete();
+            } else {
+                batch.get(i).fail(error);
+            }
+        }
+    }
+
+    private static final class PendingSave {
+
+        private final long queuedNanos;
+        private final List<CompletableFuture<SavedCharacter>> waiting = new ArrayList<>(1);
+        private SavedCharacter character;
+        private AlongsideStore store;
+        private Runnable alongside;
+
+        PendingSave(SavedCharacter character, AlongsideStore store, Runnable alongside, long queuedNanos,
+                    CompletableFuture<SavedCharacter> saved) {
+            this.queuedNanos = queuedNanos;
+            replace(character, store, alongside, saved);
+        }
+
+        void replace(SavedCharacter character, AlongsideStore store, Runnable alongside,
+                     CompletableFuture<SavedCharacter> saved) {
+            this.character = character;
+            this.store = store;
+            this.alongside = alongside;
+            waiting.add(saved);
+        }
+
+        void complete() {
+            waiting.forEach(saved -> saved.complete(character));
+        }
+
+        void fail(Throwable error) {
+            waiting.forEach(saved -> saved.completeExceptionally(error));
+        }
+    }
+}
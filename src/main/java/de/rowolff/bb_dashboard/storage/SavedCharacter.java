@@ -0,0 +1,47 @@
+package de.rowolff.bb_dashboard.storage;
+
+import de.rowolff.bb_dashboard.character.Character;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persistent form of a {@link Character}: the picked rule entries by name and the spent points per attribute.
+ *
+ * @param rulePack the rule pack the entries belong to, {@code null} for the default rule pack
+ */
+public record SavedCharacter(String name, String archetype, String charClass, String background,
+                             Map<String, Integer> spentPoints, String rulePack) implements Serializable {
+
+    public SavedCharacter {
+        spentPoints = Collections.unmodifiableMap(new LinkedHashMap<>(spentPoints));
+    }
+
+    public SavedCharacter(String name, String archetype, String charClass, String background,
+                          Map<String, Integer> spentPoints) {
+        this(name, archetype, charClass, background, spentPoints, null);
+    }
+
+    public static SavedCharacter of(@NotNull Character character) {
+        Map<String, Integer> spentPoints = new LinkedHashMap<>();
+        for (int i = 0; i < character.getSchema().size(); i++) {
+            spentPoints.put(character.getSchema().name(i), character.getSpentPoints(i));
+        }
+        return new SavedCharacter(character.getCharacterName(),
+                character.getArchetype().getName(),
+                character.getCharClass().getName(),
+                character.getBackground().getName(),
+                spentPoints);
+    }
+
+    public SavedCharacter withRulePack(String rulePack) {
+        return new SavedCharacter(name, archetype, charClass, background, spentPoints, rulePack);
+    }
+
+    public int getSpentPoints(String statName) {
+        return spentPoints.getOrDefault(statName, 0);
+    }
+}
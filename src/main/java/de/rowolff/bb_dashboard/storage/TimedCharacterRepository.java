@@ -0,0 +1,108 @@
+package de.rowolff.bb_dashboard.storage;
+
+import de.rowolff.bb_dashboard.metrics.DashboardMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * {@link CharacterRepository} recording the duration of every call to the {@link MappedCharacterRepository}
+ * it wraps, tagged by operation.
+ */
+@Primary
+@Repository
+public class TimedCharacterRepository implements CharacterRepository {
+
+    private static final Timer SAVE_TIMER = DashboardMetrics.storageOperation("save");
+    private static final Timer SAVE_ALL_TIMER = DashboardMetrics.storageOperation("saveAll");
+    private static final Timer FIND_BY_NAME_TIMER = DashboardMetrics.storageOperation("findByName");
+    private static final Timer EXISTS_TIMER = DashboardMetrics.storageOperation("exists");
+    private static final Timer FIND_ALL_NAMES_TIMER = DashboardMetrics.storageOperation("findAllNames");
+    private static final Timer FIND_TIMER = DashboardMetrics.storageOperation("find");
+    private static final Timer FIND_AFTER_TIMER = DashboardMetrics.storageOperation("findAfter");
+    private static final Timer COUNT_TIMER = DashboardMetrics.storageOperation("count");
+    private static final Timer DELETE_TIMER = DashboardMetrics.storageOperation("delete");
+    private static final Timer SEARCH_NAMES_TIMER = DashboardMetrics.storageOperation("searchNames");
+    private static final Timer FLUSH_TIMER = DashboardMetrics.storageOperation("flush");
+
+    private final CharacterRepository delegate;
+
+    public TimedCharacterRepository(MappedCharacterRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void save(SavedCharacter character) {
+        SAVE_TIMER.record(() -> delegate.save(character));
+    }
+
+    @Override
+    public void saveAll(Collection<SavedCharacter> characters) {
+        SAVE_ALL_TIMER.record(() -> delegate.saveAll(characters));
+    }
+
+    @Override
+    public Optional<SavedCharacter> findByName(String name) {
+        return FIND_BY_NAME_TIMER.record(() -> delegate.findByName(name));
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return Boolean.TRUE.equals(EXISTS_TIMER.record(() -> delegate.exists(name)));
+    }
+
+    @Override
+    public Collection<String> findAllNames() {
+        return FIND_ALL_NAMES_TIMER.record(delegate::findAllNames);
+    }
+
+    @Override
+    public List<SavedCharacter> find(RosterQuery query, int offset, int limit) {
+        return FIND_TIMER.record(() -> delegate.find(query, offset, limit));
+    }
+
+    @Override
+    public int count(RosterQuery query) {
+        return COUNT_TIMER.record((Supplier<Integer>) () -> delegate.count(query));
+    }
+
+    @Override
+    public List<SavedCharacter> findAfter(String name, int limit) {
+        return FIND_AFTER_TIMER.record(() -> delegate.findAfter(name, limit));
+    }
+
+    @Override
+    public boolean delete(String name) {
+        return Boolean.TRUE.equals(DELETE_TIMER.record(() -> delegate.delete(name)));
+    }
+
+    @Override
+    public int count() {
+        return COUNT_TIMER.record((Supplier<Integer>) delegate::count);
+    }
+
+    @Override
+    public List<String> searchNames(String query, int limit) {
+        return SEARCH_NAMES_TIMER.record(() -> delegate.searchNames(query, limit));
+    }
+
+    @Override
+    public void flush() {
+        FLUSH_TIMER.record(delegate::flush);
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        delegate.addChangeListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        delegate.removeChangeListener(listener);
+    }
+}
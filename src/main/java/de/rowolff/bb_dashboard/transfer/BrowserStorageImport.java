@@ -0,0 +1,160 @@
+package de.rowolff.bb_dashboard.transfer;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.storage.CharacterRepository;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import jakarta.validation.constraints.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Moves the characters that older versions of the dashboard saved in the browser's local storage, one
+ * {@code char.<name>} JSON entry each, to the {@link CharacterRepository}.
+ * <p>
+ * The whole local storage is read in a single round trip: {@link #PACK_SCRIPT} returns all entries packed as
+ * {@code [strings, codes]}, a table of the distinct names and picks and a flat array holding, per character,
+ * the indexes of its name, archetype, class and background followed by the points spent on each attribute of
+ * the default rule pack. Picks shared by many characters are sent once, and no key is repeated per character.
+ * <p>
+ * Characters not yet saved on the server that fit the default rules are imported, and only those are then
+ * removed from the browser with {@link #REMOVE_SCRIPT}, which needs no round trip of its own as it travels with
+ * the response to the import. Name clashes and invalid characters stay in the browser.
+ */
+@Service
+public class BrowserStorageImport {
+
+    /**
+     * Parameters: the key prefix, the attribute names and the fields of the archetype, class and background;
+     * returns the packed entries.
+     */
+    public static final String PACK_SCRIPT = """
+            const strings = [], indexes = new Map(), codes = [];
+            const code = value => {
+                const text = value == null ? '' : String(value);
+                let index = indexes.get(text);
+                if (index === undefined) {
+                    index = strings.length;
+                    strings.push(text);
+                    indexes.set(text, index);
+                }
+                return index;
+            };
+            for (let i = 0; i < localStorage.length; i++) {
+                const key = localStorage.key(i);
+                if (!key.startsWith($0)) {
+                    continue;
+                }
+                let character;
+                try {
+                    character = JSON.parse(localStorage.getItem(key));
+                } catch (e) {
+                    continue;
+                }
+                if (character === null || typeof character !== 'object') {
+                    continue;
+                }
+                codes.push(code(key.substring($0.length)), code(character[$2]), code(character[$3]),
+                        code(character[$4]));
+                $1.forEach(attribute => codes.push(Number(character[attribute]) | 0));
+            }
+            return [strings, codes];
+            """;
+
+    /**
+     * Parameters: the key prefix and the names of the characters to remove.
+     */
+    public static final String REMOVE_SCRIPT = "$1.forEach(name => localStorage.removeItem($0 + name));";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BrowserStorageImport.class);
+
+    private static final int PICKS = 4;
+
+    private final CharacterRepository repository;
+    private final RulePackRegistry rulePacks;
+
+    public BrowserStorageImport(CharacterRepository repository, RulePackRegistry rulePacks) {
+        this.repository = repository;
+        this.rulePacks = rulePacks;
+    }
+
+    /**
+     * @return the parameters of {@link #PACK_SCRIPT} for the current default rules
+     */
+    public Serializable[] packScriptParameters() {
+        JsonArray attributes = Json.createArray();
+        List<String> names = rulePacks.getDefault().attributeSchema().names();
+        for (int i = 0; i < names.size(); i++) {
+            attributes.set(i, names.get(i));
+        }
+        return new Serializable[]{CHAR_PREFIX, attributes, ARCHETYPE, CLASS, BACKGROUND};
+    }
+
+    /**
+     * @return the parameters of {@link #REMOVE_SCRIPT} removing the given characters
+     */
+    public static Serializable[] removeScriptParameters(@NotNull List<String> names) {
+        JsonArray removed = Json.createArray();
+        for (int i = 0; i < names.size(); i++) {
+            removed.set(i, names.get(i));
+        }
+        return new Serializable[]{CHAR_PREFIX, removed};
+    }
+
+    /**
+     * Imports the characters of a {@link #PACK_SCRIPT} result packed with the current default rules.
+     *
+     * @return the names of the imported characters
+     */
+    public List<String> importPacked(@NotNull JsonArray packed) {
+        RuleSnapshot rules = rulePacks.getDefault();
+        List<SavedCharacter> characters = unpack(packed, rules.attributeSchema());
+        List<SavedCharacter> imported = new ArrayList<>(characters.size());
+        for (SavedCharacter character : characters) {
+            if (!repository.exists(character.name())
+                    && RosterTransferService.validate(character, rules) == null) {
+                imported.add(character);
+            }
+        }
+        repository.saveAll(imported);
+        if (!characters.isEmpty()) {
+            LOGGER.info("Imported {} of {} characters from the local storage of a browser", imported.size(),
+                    characters.size());
+        }
+        return imported.stream().map(SavedCharacter::name).toList();
+    }
+
+    static List<SavedCharacter> unpack(JsonArray packed, AttributeSchema schema) {
+        JsonArray strings = packed.getArray(0);
+        JsonArray codes = packed.getArray(1);
+        int stride = PICKS + schema.size();
+        if (codes.length() % stride != 0) {
+            throw new IllegalArgumentException(String.format("%d codes are no multiple of %d", codes.length(),
+                    stride));
+        }
+        List<SavedCharacter> characters = new ArrayList<>(codes.length() / stride);
+        for (int offset = 0; offset < codes.length(); offset += stride) {
+            Map<String, Integer> spentPoints = new LinkedHashMap<>();
+            for (int i = 0; i < schema.size(); i++) {
+                spentPoints.put(schema.name(i), (int) codes.getNumber(offset + PICKS + i));
+            }
+            characters.add(new SavedCharacter(strings.getString((int) codes.getNumber(offset)),
+                    strings.getString((int) codes.getNumber(offset + 1)),
+                    strings.getString((int) codes.getNumber(offset + 2)),
+                    strings.getString((int) codes.getNumber(offset + 3)), spentPoints));
+        }
+        return characters;
+    }
+}
@@ -0,0 +1,15 @@
+package de.rowolff.bb_dashboard.transfer;
+
+import java.util.List;
+
+/**
+ * State of a running or finished roster import.
+ *
+ * @param errors the messages of the first rejected rows, at most {@link RosterTransferService#MAX_REPORTED_ERRORS}
+ */
+public record ImportProgress(long rows, long imported, long rejected, List<String> errors) {
+
+    public ImportProgress {
+        errors = List.copyOf(errors);
+    }
+}
@@ -0,0 +1,29 @@
+package de.rowolff.bb_dashboard.transfer;
+
+import lombok.Getter;
+
+/**
+ * File formats a roster can be exported to and imported from.
+ */
+@Getter
+public enum RosterFormat {
+    /** One JSON object per line. */
+    NDJSON("ndjson", "application/x-ndjson"),
+    /** A header row, then one row per character with a column per attribute. */
+    CSV("csv", "text/csv");
+
+    private final String fileExtension;
+    private final String contentType;
+
+    RosterFormat(String fileExtension, String contentType) {
+        this.fileExtension = fileExtension;
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return the format for the file name by its extension, NDJSON unless it ends with ".csv"
+     */
+    public static RosterFormat ofFileName(String fileName) {
+        return fileName.toLowerCase().endsWith("." + CSV.fileExtension) ? CSV : NDJSON;
+    }
+}
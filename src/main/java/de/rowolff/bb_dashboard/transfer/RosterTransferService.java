@@ -0,0 +1,418 @@
+package de.rowolff.bb_dashboard.transfer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.storage.CharacterRepository;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import de.rowolff.bb_dashboard.validation.RosterValidator;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Streams the whole roster out as NDJSON or CSV and imports such files into the {@link CharacterRepository}.
+ * <p>
+ * Both directions work in batches of {@value #BATCH_SIZE} characters, so memory use does not depend on the
+ * roster or file size. An imported batch is parsed and validated against the current rule data of each
+ * character's rule pack in parallel, then stored at once; invalid rows are skipped and reported.
+ * <p>
+ * CSV has a column per attribute of the default rule pack, NDJSON holds the spent points of any rule pack.
+ */
+@Service
+public class RosterTransferService {
+
+    public static final int BATCH_SIZE = 1_000;
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String NAME_COLUMN = "name";
+    private static final String ARCHETYPE_COLUMN = "archetype";
+    private static final String CLASS_COLUMN = "class";
+    private static final String BACKGROUND_COLUMN = "background";
+    private static final String RULE_PACK_COLUMN = "rulePack";
+    private static final String SPENT_POINTS_FIELD = "spentPoints";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final CharacterRepository repository;
+    private final RulePackRegistry rulePacks;
+    private final Executor executor;
+
+    public RosterTransferService(CharacterRepository repository, RulePackRegistry rulePacks,
+                                 @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                 Executor executor) {
+        this.repository = repository;
+        this.rulePacks = rulePacks;
+        this.executor = executor;
+    }
+
+    /**
+     * Writes all saved characters in alphabetical order. The stream is flushed but not closed.
+     *
+     * @return the number of exported characters
+     */
+    public long export(@NotNull RosterFormat format, @NotNull OutputStream out) throws IOException {
+        AttributeSchema schema = rulePacks.getDefault().attributeSchema();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == RosterFormat.CSV) {
+            List<String> header = new ArrayList<>(List.of(NAME_COLUMN, ARCHETYPE_COLUMN, CLASS_COLUMN, BACKGROUND_COLUMN));
+            header.addAll(schema.names());
+            header.add(RULE_PACK_COLUMN);
+            writeCsvRow(writer, header);
+        }
+        long count = 0;
+        String last = null;
+        List<SavedCharacter> page;
+        while (!(page = repository.findAfter(last, BATCH_SIZE)).isEmpty()) {
+            for (SavedCharacter character : page) {
+                if (format == RosterFormat.CSV) {
+                    writeCsv(writer, schema, character);
+                } else {
+                    writeJson(writer, character);
+                }
+            }
+            count += page.size();
+            last = page.get(page.size() - 1).name();
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Imports the file on the application's task executor.
+     *
+     * @param progress called after every batch, on the importing thread
+     */
+    public CompletableFuture<ImportProgress> importRosterAsync(@NotNull RosterFormat format, @NotNull Path file,
+                                                               @NotNull Consumer<ImportProgress> progress) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = Files.newInputStream(file)) {
+                return importRoster(format, in, progress);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Imports all valid rows, replacing saved characters with the same name.
+     *
+     * @param progress called after every batch
+     * @throws IOException if the input cannot be read or, for CSV, has an invalid header
+     */
+    public ImportProgress importRoster(@NotNull RosterFormat format, @NotNull InputStream in,
+                                       @NotNull Consumer<ImportProgress> progress) throws IOException {
+        RuleSnapshot rules = rulePacks.getDefault();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Import state = new Import(progress);
+        long lineNumber = 0;
+        RowParser parser = RosterTransferService::parseJson;
+        if (format == RosterFormat.CSV) {
+            String header = reader.readLine();
+            lineNumber++;
+            if (header == null) {
+                return state.progress();
+            }
+            parser = csvParser(header, rules.attributeSchema());
+        }
+        List<Line> batch = new ArrayList<>(BATCH_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            batch.add(new Line(lineNumber, line));
+            if (batch.size() == BATCH_SIZE) {
+                state.apply(batch, parser);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            state.apply(batch, parser);
+        }
+        return state.progress();
+    }
+
+    /**
+     * @return why the character cannot be imported with these rules, or {@code null} if it can
+     */
+    static String validate(SavedCharacter character, RuleSnapshot rules) {
+        if (character.name() == null || character.name().isBlank()) {
+            return "Missing name";
+        }
+        List<String> problems = RosterValidator.validate(character, rules);
+        return problems.isEmpty() ? null : problems.get(0);
+    }
+
+    private record Line(long number, String text) {}
+
+    private record Row(SavedCharacter character, String error) {}
+
+    @FunctionalInterface
+    private interface RowParser {
+        SavedCharacter parse(String line) throws IOException;
+    }
+
+    private final class Import {
+        // the rules of every rule pack seen in the file, so that all rows of a pack use the same version
+        private final Map<String, Optional<RuleSnapshot>> rules = new ConcurrentHashMap<>();
+        private final Consumer<ImportProgress> listener;
+        private final List<String> errors = new ArrayList<>();
+        private long rows;
+        private long imported;
+        private long rejected;
+
+        private Import(Consumer<ImportProgress> listener) {
+            this.listener = listener;
+        }
+
+        private void apply(List<Line> batch, RowParser parser) {
+            List<Row> results = batch.parallelStream().map(line -> parseRow(line, parser)).toList();
+            List<SavedCharacter> valid = new ArrayList<>(results.size());
+            for (Row row : results) {
+                if (row.error() == null) {
+                    valid.add(row.character());
+                } else {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(row.error());
+                    }
+                }
+            }
+            repository.saveAll(valid);
+            rows += batch.size();
+            imported += valid.size();
+            listener.accept(progress());
+        }
+
+        private Row parseRow(Line line, RowParser parser) {
+            String error;
+            try {
+                SavedCharacter character = parser.parse(line.text());
+                Optional<RuleSnapshot> packRules = rules.computeIfAbsent(Objects.requireNonNullElse(
+                        character.rulePack(), ""), pack -> rulePacks.find(emptyToNull(pack)));
+                error = packRules.isEmpty()
+                        ? String.format("Unknown rule pack '%s'", character.rulePack())
+                        : validate(character, packRules.get());
+                if (error == null) {
+                    return new Row(character, null);
+                }
+            } catch (JsonProcessingException e) {
+                error = e.getOriginalMessage();
+            } catch (IOException | IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            return new Row(null, String.format("Line %d: %s", line.number(), error));
+        }
+
+        private ImportProgress progress() {
+            return new ImportProgress(rows, imported, rejected, errors);
+        }
+    }
+
+    private static void writeJson(Writer writer, SavedCharacter character) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeStringField(NAME_COLUMN, character.name());
+            generator.writeStringField(ARCHETYPE_COLUMN, character.archetype());
+            generator.writeStringField(CLASS_COLUMN, character.charClass());
+            generator.writeStringField(BACKGROUND_COLUMN, character.background());
+            generator.writeObjectFieldStart(SPENT_POINTS_FIELD);
+            for (Map.Entry<String, Integer> points : character.spentPoints().entrySet()) {
+                generator.writeNumberField(points.getKey(), points.getValue());
+            }
+            generator.writeEndObject();
+            if (character.rulePack() != null) {
+                generator.writeStringField(RULE_PACK_COLUMN, character.rulePack());
+            }
+            generator.writeEndObject();
+        }
+        writer.write('\n');
+    }
+
+    private static SavedCharacter parseJson(String line) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            String name = null;
+            String archetype = "";
+            String charClass = "";
+            String background = "";
+            String rulePack = null;
+            Map<String, Integer> spentPoints = new LinkedHashMap<>();
+            while (parser.nextToken() != JsonToken.END_OBJECT) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case NAME_COLUMN -> name = readText(parser, field);
+                    case ARCHETYPE_COLUMN -> archetype = readText(parser, field);
+                    case CLASS_COLUMN -> charClass = readText(parser, field);
+                    case BACKGROUND_COLUMN -> background = readText(parser, field);
+                    case RULE_PACK_COLUMN -> rulePack = emptyToNull(readText(parser, field));
+                    case SPENT_POINTS_FIELD -> {
+                        if (parser.currentToken() != JsonToken.START_OBJECT) {
+                            throw new IllegalArgumentException("Expected an object for '" + field + "'");
+                        }
+                        while (parser.nextToken() != JsonToken.END_OBJECT) {
+                            String attribute = parser.currentName();
+                            if (parser.nextToken() != JsonToken.VALUE_NUMBER_INT) {
+                                throw new IllegalArgumentException("Expected a number for '" + attribute + "'");
+                            }
+                            spentPoints.put(attribute, parser.getIntValue());
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown field '" + field + "'");
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Unexpected content after the character");
+            }
+            return new SavedCharacter(name, archetype, charClass, background, spentPoints, rulePack);
+        }
+    }
+
+    private static String readText(JsonParser parser, String field) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NULL -> "";
+            default -> throw new IllegalArgumentException("Expected text for '" + field + "'");
+        };
+    }
+
+    private static void writeCsv(Writer writer, AttributeSchema schema, SavedCharacter character) throws IOException {
+        List<String> row = new ArrayList<>(5 + schema.size());
+        row.add(character.name());
+        row.add(character.archetype());
+        row.add(character.charClass());
+        row.add(character.background());
+        for (String attribute : schema.names()) {
+            row.add(String.valueOf(character.getSpentPoints(attribute)));
+        }
+        row.add(character.rulePack());
+        writeCsvRow(writer, row);
+    }
+
+    private static void writeCsvRow(Writer writer, List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields.get(i) == null ? "" : fields.get(i);
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static RowParser csvParser(String header, AttributeSchema schema) throws IOException {
+        List<String> columns = splitCsv(header);
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            boolean known = switch (column) {
+                case NAME_COLUMN, ARCHETYPE_COLUMN, CLASS_COLUMN, BACKGROUND_COLUMN, RULE_PACK_COLUMN -> true;
+                default -> schema.contains(column);
+            };
+            if (!known || indexes.put(column, i) != null) {
+                throw new IOException(String.format("Unexpected CSV column '%s'", column));
+            }
+        }
+        if (!indexes.containsKey(NAME_COLUMN)) {
+            throw new IOException("Missing CSV column '" + NAME_COLUMN + "'");
+        }
+        return line -> {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != columns.size()) {
+                throw new IllegalArgumentException(String.format("Expected %d columns but found %d",
+                        columns.size(), fields.size()));
+            }
+            Map<String, Integer> spentPoints = new LinkedHashMap<>();
+            for (String attribute : schema.names()) {
+                Integer index = indexes.get(attribute);
+                if (index != null && !fields.get(index).isBlank()) {
+                    spentPoints.put(attribute, Integer.parseInt(fields.get(index).trim()));
+                }
+            }
+            return new SavedCharacter(fields.get(indexes.get(NAME_COLUMN)), field(fields, indexes, ARCHETYPE_COLUMN),
+                    field(fields, indexes, CLASS_COLUMN), field(fields, indexes, BACKGROUND_COLUMN), spentPoints,
+                    emptyToNull(field(fields, indexes, RULE_PACK_COLUMN)));
+        };
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> indexes, String column) {
+        Integer index = indexes.get(column);
+        return index == null ? "" : fields.get(index);
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
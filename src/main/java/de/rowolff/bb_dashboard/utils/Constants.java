@@ -7,10 +7,6 @@ public class Constants {
     public static final String ARCHETYPE = "Archetype";
     public static final String CLASS = "Class";
     public static final String BACKGROUND = "Background";
-    public static final String ACCURACY = "Accuracy";
-    public static final String DAMAGE = "Damage";
-    public static final String SPEED = "Speed";
-    public static final String MASTERY = "Mastery";
     public static final String CHAR_PREFIX = "char.";
     public static final String BONUS_LABEL ="%s %s";
     public static final String BONUSES = "Bonuses";
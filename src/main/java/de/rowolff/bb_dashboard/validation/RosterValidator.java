@@ -0,0 +1,257 @@
+package de.rowolff.bb_dashboard.validation;
+
+import de.rowolff.bb_dashboard.character.CharacterResource;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.storage.CharacterRepository;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+/**
+ * Knows which saved characters no longer fit the rules: picks of archetypes, classes, backgrounds or
+ * attributes the rules do not have, and more points spent than allowed.
+ * <p>
+ * The whole roster is validated once, when the service starts; after that every save, overwrite and delete of
+ * the {@link CharacterRepository} validates the affected character. A reverse index from every archetype,
+ * class, background and attribute with spent points to the characters of the default rule pack using it tells
+ * which characters a reload of the rules can affect: the next read after a reload compares the new rules with
+ * the previous ones and revalidates, in parallel, only the characters using an entry that was added or removed.
+ * Characters of other rule packs are validated against their pack, which is never reloaded.
+ */
+@Service
+public class RosterValidator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RosterValidator.class);
+
+    private final CharacterRepository repository;
+    private final RulePackRegistry rulePacks;
+    private final Object revalidationLock = new Object();
+
+    // all guarded by this
+    private RuleSnapshot rules;
+    private final Map<String, Set<String>> byArchetype = new HashMap<>();
+    // class, then background, "" for none
+    private final Map<String, Map<String, Set<String>>> byClass = new HashMap<>();
+    private final Map<String, Set<String>> byAttribute = new HashMap<>();
+    private final Map<String, List<String>> problems = new HashMap<>();
+    // characters being revalidated that have not changed since
+    private final Set<String> revalidating = new HashSet<>();
+
+    public RosterValidator(CharacterRepository repository, RulePackRegistry rulePacks) {
+        this.repository = repository;
+        this.rulePacks = rulePacks;
+        this.rules = rulePacks.getDefault();
+        // replays the whole roster, then keeps reporting changes
+        repository.addChangeListener(this::rosterChanged);
+    }
+
+    /**
+     * @return what is wrong with the character, empty if it fits the rules
+     */
+    public List<String> getProblems(String name) {
+        revalidateIfReloaded();
+        synchronized (this) {
+            return problems.getOrDefault(name, List.of());
+        }
+    }
+
+    public int getInvalidCount() {
+        revalidateIfReloaded();
+        synchronized (this) {
+            return problems.size();
+        }
+    }
+
+    /**
+     * @return everything wrong with the character under these rules, empty if it fits them
+     */
+    public static List<String> validate(SavedCharacter character, RuleSnapshot rules) {
+        List<String> found = new ArrayList<>(1);
+        if (!character.archetype().isEmpty() && rules.archetypeStats(character.archetype()) == null) {
+            found.add(String.format("Unknown archetype '%s'", character.archetype()));
+        }
+        if (!character.charClass().isEmpty() && rules.classStats(character.charClass()) == null) {
+            found.add(String.format("Unknown class '%s'", character.charClass()));
+        } else if (!character.background().isEmpty()
+                && rules.backgroundStats(character.charClass(), character.background()) == null) {
+            found.add(String.format("Unknown background '%s' of class '%s'", character.background(),
+                    character.charClass()));
+        }
+        int spent = 0;
+        for (Map.Entry<String, Integer> points : character.spentPoints().entrySet()) {
+            // nothing is lost by the points of a removed attribute as long as there are none
+            if (points.getValue() != 0 && !rules.attributeSchema().contains(points.getKey())) {
+                found.add(String.format("Unknown attribute '%s'", points.getKey()));
+            }
+            if (points.getValue() < 0) {
+                found.add(String.format("Negative points for '%s'", points.getKey()));
+            }
+            spent += points.getValue();
+        }
+        if (spent > MAX_SPENDABLE_POINTS) {
+            found.add(String.format("%d points spent, at most %d allowed", spent, MAX_SPENDABLE_POINTS));
+        }
+        return found;
+    }
+
+    private synchronized void rosterChanged(SavedCharacter previous, SavedCharacter current) {
+        if (previous != null) {
+            unindex(previous);
+            problems.remove(previous.name());
+            revalidating.remove(previous.name());
+        }
+        if (current != null) {
+            RuleSnapshot characterRules = rules;
+            if (current.rulePack() == null) {
+                index(current);
+            } else {
+                // only loads a rule pack the first time one of its characters is seen
+                Optional<RuleSnapshot> packRules = rulePacks.find(current.rulePack());
+                if (packRules.isEmpty()) {
+                    problems.put(current.name(), List.of(String.format("Unknown rule pack '%s'", current.rulePack())));
+                    return;
+                }
+                characterRules = packRules.get();
+            }
+            record(current.name(), validate(current, characterRules));
+        }
+    }
+
+    /**
+     * Revalidates the characters affected by a reload of the rules since the last read. The characters are read
+     * and validated without holding the lock, as reading them waits for saves, which report to this validator.
+     */
+    private void revalidateIfReloaded() {
+        RuleSnapshot current = rulePacks.getDefault();
+        synchronized (this) {
+            if (current == rules) {
+                return;
+            }
+        }
+        synchronized (revalidationLock) {
+            Set<String> affected;
+            synchronized (this) {
+                if (current == rules) {
+                    return;
+                }
+                affected = affectedBy(rules, current);
+                rules = current;
+                revalidating.clear();
+                revalidating.addAll(affected);
+            }
+            long start = System.nanoTime();
+            Map<String, List<String>> results = new HashMap<>();
+            affected.parallelStream()
+                    .map(repository::findByName)
+                    .flatMap(Optional::stream)
+                    .map(character -> Map.entry(character.name(), validate(character, current)))
+                    .toList()
+                    .forEach(result -> results.put(result.getKey(), result.getValue()));
+            synchronized (this) {
+                results.forEach((name, found) -> {
+                    if (revalidating.contains(name)) {
+                        record(name, found);
+                    }
+                });
+                revalidating.clear();
+            }
+            LOGGER.info("Revalidated {} characters affected by rule data version {} in {} ms", affected.size(),
+                    current.version(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * @return the characters using an archetype, class, background or attribute that exists in only one of the
+     * rule snapshots
+     */
+    private Set<String> affectedBy(RuleSnapshot before, RuleSnapshot after) {
+        Set<String> affected = new HashSet<>();
+        for (String archetype : changedKeys(before.archetypes().keySet(), after.archetypes().keySet())) {
+            affected.addAll(byArchetype.getOrDefault(archetype, Set.of()));
+        }
+        Set<String> classes = new HashSet<>(before.classes().keySet());
+        classes.addAll(after.classes().keySet());
+        for (String charClass : classes) {
+            Map<String, Set<String>> backgrounds = byClass.getOrDefault(charClass, Map.of());
+            CharacterResource beforeClass = before.classes().get(charClass);
+            CharacterResource afterClass = after.classes().get(charClass);
+            if (beforeClass == null || afterClass == null) {
+                backgrounds.values().forEach(affected::addAll);
+            } else {
+                for (String background : changedKeys(beforeClass.getBackgrounds().keySet(),
+                        afterClass.getBackgrounds().keySet())) {
+                    affected.addAll(backgrounds.getOrDefault(background, Set.of()));
+                }
+            }
+        }
+        for (String attribute : changedKeys(Set.copyOf(before.attributeSchema().names()),
+                Set.copyOf(after.attributeSchema().names()))) {
+            affected.addAll(byAttribute.getOrDefault(attribute, Set.of()));
+        }
+        return affected;
+    }
+
+    private static Set<String> changedKeys(Set<String> before, Set<String> after) {
+        Set<String> changed = new HashSet<>(before);
+        changed.addAll(after);
+        Set<String> unchanged = new HashSet<>(before);
+        unchanged.retainAll(after);
+        changed.removeAll(unchanged);
+        return changed;
+    }
+
+    private void record(String name, List<String> found) {
+        if (found.isEmpty()) {
+            problems.remove(name);
+        } else {
+            problems.put(name, Collections.unmodifiableList(found));
+        }
+    }
+
+    private void index(SavedCharacter character) {
+        byArchetype.computeIfAbsent(character.archetype(), key -> new HashSet<>()).add(character.name());
+        byClass.computeIfAbsent(character.charClass(), key -> new HashMap<>())
+                .computeIfAbsent(character.background(), key -> new HashSet<>()).add(character.name());
+        character.spentPoints().forEach((attribute, points) -> {
+            if (points != 0) {
+                byAttribute.computeIfAbsent(attribute, key -> new HashSet<>()).add(character.name());
+            }
+        });
+    }
+
+    private void unindex(SavedCharacter character) {
+        if (character.rulePack() != null) {
+            return;
+        }
+        remove(byArchetype, character.archetype(), character.name());
+        Map<String, Set<String>> backgrounds = byClass.get(character.charClass());
+        if (backgrounds != null) {
+            remove(backgrounds, character.background(), character.name());
+            if (backgrounds.isEmpty()) {
+                byClass.remove(character.charClass());
+            }
+        }
+        character.spentPoints().forEach((attribute, points) -> remove(byAttribute, attribute, character.name()));
+    }
+
+    private static void remove(Map<String, Set<String>> index, String key, String name) {
+        Set<String> names = index.get(key);
+        if (names != null && names.remove(name) && names.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
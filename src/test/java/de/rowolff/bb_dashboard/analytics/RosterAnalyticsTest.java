@@ -0,0 +1,69 @@
+package de.rowolff.bb_dashboard.analytics;
+
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.storage.MappedCharacterRepository;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+public class RosterAnalyticsTest {
+
+    private final CharacterResourceService loader = new CharacterResourceService();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void statisticsFollowSavesOverwritesAndDeletes() throws IOException {
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("roster.log"))) {
+            repository.save(new SavedCharacter("Ada", "Enforcer", "Assassin", "Ghost", Map.of("Damage", 2)));
+            RosterAnalytics analytics = new RosterAnalytics(repository, loader);
+
+            repository.save(new SavedCharacter("Bob", "Enforcer", "Assassin", "Ghost", Map.of("Speed", 1)));
+            repository.save(new SavedCharacter("Ada", "Enforcer", "Assassin", "Ghost", Map.of("Damage", 3)));
+            repository.save(new SavedCharacter("Cyd", "Enforcer", "Assassin", "Ghost", Map.of()));
+            repository.delete("Cyd");
+
+            RosterStatistics statistics = analytics.getStatistics();
+            int damage = statistics.getSchema().indexOf("Damage");
+            int speed = statistics.getSchema().indexOf("Speed");
+            Assertions.assertEquals(2, statistics.getCharacters());
+            Assertions.assertEquals(Map.of("Enforcer", 2L), statistics.getArchetypes());
+            Assertions.assertEquals(3, statistics.getSpentPoints(damage));
+            Assertions.assertEquals(1, statistics.getSpenders(damage));
+            Assertions.assertEquals(1, statistics.getSpenders(speed));
+            Assertions.assertEquals(3, statistics.getTotals(damage).max() - statistics.getTotals(damage).min());
+
+            // the incrementally maintained statistics match a fresh scan of the roster
+            RosterStatistics rescanned = new RosterAnalytics(repository, loader).getStatistics();
+            for (int i = 0; i < statistics.getSchema().size(); i++) {
+                Assertions.assertEquals(rescanned.getTotals(i).mean(), statistics.getTotals(i).mean());
+                Assertions.assertEquals(rescanned.getTotals(i).percentile(0.5),
+                        statistics.getTotals(i).percentile(0.5));
+            }
+        }
+    }
+
+    @Test
+    public void histogramPercentilesSurviveRemovalAndMerge() {
+        ValueHistogram histogram = new ValueHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.add(value);
+        }
+        histogram.remove(100);
+        Assertions.assertEquals(50, histogram.percentile(0.5));
+        Assertions.assertEquals(99, histogram.max());
+
+        ValueHistogram other = new ValueHistogram();
+        other.add(-5);
+        histogram.merge(other);
+        Assertions.assertEquals(100, histogram.count());
+        Assertions.assertEquals(-5, histogram.percentile(0));
+        Assertions.assertEquals((4950 - 5) / 100.0, histogram.mean());
+    }
+}
@@ -0,0 +1,84 @@
+package de.rowolff.bb_dashboard.api;
+
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResource;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class BuildCalculationTest {
+
+    private final RuleSnapshot rules = new CharacterResourceService().getSnapshot();
+
+    private BuildCalculation parse(String json) throws IOException {
+        return BuildCalculation.parse(rules, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void totalsMatchACharacterWithTheSameBuild() throws IOException {
+        BuildCalculation calculation = parse("{\"archetype\": \"Enforcer\", \"class\": \"Assassin\","
+                + " \"background\": \"Ghost\", \"spentPoints\": {\"Damage\": 2, \"Speed\": 1}}");
+
+        CharacterResource assassin = rules.classes().get("Assassin");
+        Character character = new Character(rules.attributeSchema());
+        character.setArchetype(rules.archetypeStats("Enforcer"));
+        character.setCharClass(rules.classStats("Assassin"));
+        character.setBackground(rules.backgroundStats(assassin.name(), "Ghost"));
+        character.spendPoint("Damage");
+        character.spendPoint("Damage");
+        character.spendPoint("Speed");
+
+        Assertions.assertFalse(calculation.isBatch());
+        Assertions.assertEquals(0, calculation.getInvalidCount());
+        StringBuilder expected = new StringBuilder("{\"totals\":{");
+        for (int i = 0; i < rules.attributeSchema().size(); i++) {
+            Assertions.assertEquals(character.getTotalStat(i), calculation.getTotal(0, i));
+            expected.append(i > 0 ? "," : "").append('"').append(rules.attributeSchema().name(i)).append("\":")
+                    .append(character.getTotalStat(i));
+        }
+        expected.append("},\"modifiers\":{");
+        for (int i = 0; i < rules.attributeSchema().size(); i++) {
+            expected.append(i > 0 ? "," : "").append('"').append(rules.attributeSchema().name(i)).append("\":")
+                    .append(character.getModifier(i));
+        }
+        expected.append("}}");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        calculation.writeTo(out);
+        Assertions.assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void invalidBuildsOfABatchAreReportedInOrder() throws IOException {
+        BuildCalculation calculation = parse("[{\"class\": \"Nobody\"}, {\"archetype\": \"Enforcer\"},"
+                + " {\"spentPoints\": {\"Damage\": 4}}, {\"spentPoints\": {\"Luck\": 1}}]");
+
+        Assertions.assertTrue(calculation.isBatch());
+        Assertions.assertEquals(4, calculation.size());
+        Assertions.assertEquals(3, calculation.getInvalidCount());
+        Assertions.assertEquals("Unknown class 'Nobody'", calculation.getError(0));
+        Assertions.assertNull(calculation.getError(1));
+        Assertions.assertEquals("4 points spent, at most 3 allowed", calculation.getError(2));
+        Assertions.assertEquals("Unknown attribute 'Luck'", calculation.getError(3));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        calculation.writeTo(out);
+        Assertions.assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("[{\"error\":\"Unknown class 'Nobody'\"},"
+                + "{\"totals\":{"));
+    }
+
+    @Test
+    public void malformedRequestsAreRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parse("42"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parse("{\"name\": \"Hero\"}"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parse("{\"spentPoints\": {\"Damage\": \"1\"}}"));
+        Assertions.assertThrows(IOException.class, () -> parse("[{}"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> parse("[" + "{},".repeat(BuildCalculation.MAX_BUILDS) + "{}]"));
+    }
+}
@@ -0,0 +1,92 @@
+package de.rowolff.bb_dashboard.character;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CharacterResourceServiceTest {
+
+    private static final int CLASS_COUNT = 200;
+
+    @TempDir
+    Path rulesDirectory;
+
+    private void writeRules(int value) throws IOException {
+        StringJoiner classes = new StringJoiner(",", "{", "}");
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            classes.add(String.format("\"Class %d\": {\"attributes\": {\"Accuracy\": %d},"
+                    + " \"backgrounds\": {\"Background\": {\"Damage\": %d}}}", i, value, value));
+        }
+        Path temp = rulesDirectory.resolve("classes.json.tmp");
+        Files.writeString(temp, classes.toString());
+        Files.move(temp, rulesDirectory.resolve("classes.json"), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Test
+    public void readersNeverSeeHalfLoadedRules() throws Exception {
+        writeRules(0);
+        CharacterResourceService service = new CharacterResourceService(rulesDirectory);
+        AtomicBoolean reloading = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            results.add(readers.submit(() -> {
+                long lastVersion = 0;
+                while (reloading.get()) {
+                    RuleSnapshot rules = service.getSnapshot();
+                    Assertions.assertTrue(rules.version() >= lastVersion, "versions only move forward");
+                    lastVersion = rules.version();
+                    Assertions.assertEquals(CLASS_COUNT, rules.classes().size());
+                    int expected = rules.classes().get("Class 0").getAttributes().get("Accuracy");
+                    for (CharacterResource charClass : rules.classes().values()) {
+                        Assertions.assertEquals(expected, charClass.getAttributes().get("Accuracy"));
+                        Assertions.assertEquals(expected,
+                                charClass.getBackgrounds().get("Background").getAttributes().get("Damage"));
+                    }
+                }
+                return lastVersion;
+            }));
+        }
+        try {
+            for (int value = 1; value <= 50; value++) {
+                writeRules(value);
+                Assertions.assertTrue(service.reload());
+            }
+        } finally {
+            reloading.set(false);
+            readers.shutdown();
+        }
+        for (Future<Long> result : results) {
+            Assertions.assertTrue(result.get() <= 51);
+        }
+        Assertions.assertEquals(51, service.getSnapshot().version());
+        Assertions.assertEquals(50, service.getClasses().get("Class 7").getAttributes().get("Accuracy"));
+    }
+
+    @Test
+    public void brokenRulesKeepThePreviousSnapshot() throws IOException {
+        writeRules(1);
+        CharacterResourceService service = new CharacterResourceService(rulesDirectory);
+        RuleSnapshot before = service.getSnapshot();
+
+        Files.writeString(rulesDirectory.resolve("classes.json"), "{\"Class 0\": {\"attributes\": ");
+
+        Assertions.assertFalse(service.reload());
+        Assertions.assertSame(before, service.getSnapshot());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> before.classes().clear());
+        Assertions.assertEquals(Map.of("Accuracy", 1), before.classes().get("Class 0").getAttributes());
+    }
+}
@@ -0,0 +1,114 @@
+package de.rowolff.bb_dashboard.character;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+public class CharacterTest {
+
+    private final AttributeSchema schema = new AttributeSchema(
+            List.of("Accuracy", "Damage", "Speed", "Mastery", "Luck"),
+            List.of("ACC", "DMG", "SPD", "MST", "LCK"));
+
+    @Test
+    public void totalsFollowRuleEntriesAndSpentPoints() {
+        Character character = new Character(schema);
+        character.setArchetype(Character.Stats.of("Enforcer", schema, Map.of("Accuracy", 1, "Damage", 4)));
+        character.setCharClass(Character.Stats.of("Assassin", schema, Map.of("Accuracy", 2, "Luck", 1)));
+
+        Assertions.assertEquals(3, character.getTotalStatByName("Accuracy"));
+        Assertions.assertEquals(1, character.getModifierByName("Accuracy"));
+
+        character.spendPoint("Luck");
+        character.setBackground(Character.Stats.of("Ghost", schema, Map.of("Luck", 2)));
+
+        Assertions.assertEquals(4, character.getTotalStatByName("Luck"));
+        Assertions.assertEquals(2, character.getModifier(schema.indexOf("Luck")));
+        Assertions.assertEquals(MAX_SPENDABLE_POINTS - 1, character.getAvailablePointsToSpend());
+    }
+
+    @Test
+    public void pointsCanOnlyBeSpentAndRefundedWithinLimits() {
+        Character character = new Character(schema);
+        int damage = schema.indexOf("Damage");
+        for (int i = 0; i <= MAX_SPENDABLE_POINTS; i++) {
+            character.spendPoint(damage);
+        }
+        Assertions.assertEquals(MAX_SPENDABLE_POINTS, character.getSpentPoints(damage));
+        Assertions.assertEquals(0, character.getAvailablePointsToSpend());
+
+        for (int i = 0; i <= MAX_SPENDABLE_POINTS; i++) {
+            character.refundPoint(damage);
+        }
+        Assertions.assertEquals(0, character.getTotalStat(damage));
+        Assertions.assertEquals(MAX_SPENDABLE_POINTS, character.getAvailablePointsToSpend());
+    }
+
+    @Test
+    public void operationsAreTimed() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            Character character = new Character(schema);
+            character.spendPoint(0);
+            character.spendPoint(1);
+            character.refundPoint(0);
+
+            Assertions.assertEquals(2, registry.get("dashboard.character.operation")
+                    .tag("operation", "spendPoint").timer().count());
+            Assertions.assertEquals(1, registry.get("dashboard.character.operation")
+                    .tag("operation", "refundPoint").timer().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Test
+    public void unknownAttributesAreRejected() {
+        Character character = new Character(schema);
+        Assertions.assertThrows(IllegalStateException.class, () -> character.spendPoint("Charisma"));
+    }
+
+    @Test
+    public void changesArePublishedPerAttribute() {
+        Character character = new Character(schema);
+        List<String> changes = new ArrayList<>();
+        character.addChangeListener((change, attributeIndex) -> changes.add(change + ":" + attributeIndex));
+
+        character.setArchetype(Character.Stats.of("Enforcer", schema, Map.of("Damage", 4)));
+        character.spendPoint("Luck");
+
+        Assertions.assertEquals(List.of("ARCHETYPE:-1", "TOTAL:1", "SPENT_POINTS:4", "TOTAL:4", "AVAILABLE_POINTS:-1"),
+                changes);
+        Assertions.assertEquals(4, character.getTotalStatByName("Damage"));
+    }
+
+    @Test
+    public void charactersShareTheRuleEntries() {
+        CharacterResource assassin = new CharacterResourceImpl("Assassin", Map.of("Accuracy", 2),
+                Map.of("Ghost", new CharacterResourceImpl.BackgroundImpl("Ghost", Map.of("Luck", 2))));
+        RuleSnapshot rules = new RuleSnapshot(1, schema, Map.of("Enforcer", Map.of("Damage", 4)),
+                Map.of("Assassin", assassin));
+        Character first = new Character(schema);
+        Character second = new Character(schema);
+
+        for (Character character : List.of(first, second)) {
+            character.setArchetype(rules.archetypeStats("Enforcer"));
+            character.setCharClass(rules.classStats("Assassin"));
+            character.setBackground(rules.backgroundStats("Assassin", "Ghost"));
+        }
+        second.spendPoint("Luck");
+
+        Assertions.assertSame(first.getBackground(), second.getBackground());
+        Assertions.assertEquals(2, first.getTotalStatByName("Luck"));
+        Assertions.assertEquals(3, second.getTotalStatByName("Luck"));
+        Assertions.assertNull(rules.backgroundStats("Enforcer", "Ghost"));
+    }
+}
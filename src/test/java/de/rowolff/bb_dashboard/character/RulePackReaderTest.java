@@ -0,0 +1,48 @@
+package de.rowolff.bb_dashboard.character;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class RulePackReaderTest {
+
+    private final AttributeSchema schema = new AttributeSchema(List.of("Accuracy", "Damage"), List.of("ACC", "DMG"));
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void classesAreReadIntoTypedRecords() throws IOException {
+        RulePackReader reader = new RulePackReader();
+        Map<String, CharacterResource> classes = reader.readClasses(json("""
+                {"Assassin": {"attributes": {"Accuracy": 2}, "backgrounds": {"Ghost": {"Damage": 1}}},
+                 "Brawler": {"attributes": {"Damage": 3}, "backgrounds": {"Ghost": {"Accuracy": 1}}}}
+                """), schema);
+
+        Assertions.assertEquals(List.of("Assassin", "Brawler"), List.copyOf(classes.keySet()));
+        CharacterResource.Background ghost = classes.get("Assassin").getBackgrounds().get("Ghost");
+        Assertions.assertEquals(Map.of("Damage", 1), ghost.getAttributes());
+        Assertions.assertSame(schema.name(1), ghost.getAttributes().keySet().iterator().next());
+        Assertions.assertSame(ghost.getName(), classes.get("Brawler").getBackgrounds().get("Ghost").getName());
+    }
+
+    @Test
+    public void badDataFailsWithItsPosition() {
+        JsonParseException e = Assertions.assertThrows(JsonParseException.class,
+                () -> new RulePackReader().readArchetypes(json("""
+                        {"Enforcer": {"Accuracy": 1},
+                         "Deadeye": {"Accuracy": 4, "Luck": 2}}
+                        """), schema));
+
+        Assertions.assertTrue(e.getOriginalMessage().contains("Luck"));
+        Assertions.assertEquals(2, e.getLocation().getLineNr());
+    }
+}
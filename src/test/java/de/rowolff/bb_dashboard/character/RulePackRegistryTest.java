@@ -0,0 +1,78 @@
+package de.rowolff.bb_dashboard.character;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+public class RulePackRegistryTest {
+
+    private final CharacterResourceService defaultRules = new CharacterResourceService();
+
+    @TempDir
+    Path packsDirectory;
+
+    private void writePack(String name, String className) throws IOException {
+        Path pack = Files.createDirectories(packsDirectory.resolve(name));
+        Files.writeString(pack.resolve("classes.json"), String.format(
+                "{\"%s\": {\"attributes\": {\"Accuracy\": 1}, \"backgrounds\": {\"Ghost\": {\"Damage\": 1}}}}",
+                className));
+    }
+
+    private RulePackRegistry registry(int packsInBudget) {
+        long packSize = new CharacterResourceService(packsDirectory.resolve("first")).getSnapshot().estimatedSize();
+        return new RulePackRegistry(defaultRules, packsDirectory, packsInBudget * packSize);
+    }
+
+    @Test
+    public void packsAreLoadedOnceAndShared() throws IOException {
+        writePack("first", "Duelist");
+        writePack("second", "Brawler");
+        Files.createDirectories(packsDirectory.resolve("empty"));
+        RulePackRegistry registry = registry(2);
+
+        Assertions.assertEquals(List.of(RuleSnapshot.BUNDLED_RULE_PACK, "first", "second"), registry.availablePacks());
+        Assertions.assertSame(defaultRules.getSnapshot(), registry.find(null).orElseThrow());
+        Assertions.assertSame(defaultRules.getSnapshot(), registry.find(RuleSnapshot.BUNDLED_RULE_PACK).orElseThrow());
+
+        RuleSnapshot first = registry.find("first").orElseThrow();
+        Assertions.assertEquals("first", first.rulePack());
+        Assertions.assertNotNull(first.classStats("Duelist"));
+        Assertions.assertSame(first, registry.find("first").orElseThrow());
+        Assertions.assertEquals(first.estimatedSize(), registry.getResidentBytes());
+
+        Assertions.assertEquals(Optional.empty(), registry.find("empty"));
+        Assertions.assertEquals(Optional.empty(), registry.find("missing"));
+        Assertions.assertEquals(Optional.empty(), registry.find("../" + packsDirectory.getFileName() + "/first/.."));
+        // names that are no plain directory names are rejected, and asking again does not wait for a stuck load
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals(Optional.empty(), registry.find("first\0"));
+            Assertions.assertEquals(Optional.empty(), registry.find(".."));
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedPacksAreEvictedOverBudget() throws IOException {
+        writePack("first", "Duelist");
+        writePack("second", "Brawler");
+        writePack("third", "Sniper");
+        RulePackRegistry registry = registry(2);
+
+        RuleSnapshot first = registry.find("first").orElseThrow();
+        RuleSnapshot second = registry.find("second").orElseThrow();
+        registry.find("first");
+        registry.find("third");
+        Assertions.assertEquals(2, registry.getCachedCount());
+        Assertions.assertTrue(registry.getResidentBytes() <= 2 * first.estimatedSize());
+
+        // the evicted pack is still in use, so it is handed out again instead of being loaded a second time
+        Assertions.assertSame(second, registry.find("second").orElseThrow());
+        Assertions.assertSame(first, registry.find("first").orElseThrow());
+        Assertions.assertEquals(2, registry.getCachedCount());
+    }
+}
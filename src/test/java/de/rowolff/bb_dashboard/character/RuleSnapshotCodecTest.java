@@ -0,0 +1,97 @@
+package de.rowolff.bb_dashboard.character;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RuleSnapshotCodecTest {
+
+    private static RuleSnapshot loadJsonRules() throws IOException {
+        RulePackReader reader = new RulePackReader();
+        try (InputStream attributes = RuleSnapshotCodecTest.class.getResourceAsStream("/attributes.json");
+             InputStream archetypes = RuleSnapshotCodecTest.class.getResourceAsStream("/archetypes.json");
+             InputStream classes = RuleSnapshotCodecTest.class.getResourceAsStream("/classes.json")) {
+            AttributeSchema schema = reader.readAttributes(attributes);
+            return new RuleSnapshot(1, schema, reader.readArchetypes(archetypes, schema),
+                    reader.readClasses(classes, schema));
+        }
+    }
+
+    private static void assertSameRules(RuleSnapshot expected, RuleSnapshot actual) {
+        Assertions.assertEquals(expected.attributeSchema().names(), actual.attributeSchema().names());
+        Assertions.assertEquals(expected.archetypes(), actual.archetypes());
+        Assertions.assertEquals(expected.classes().keySet(), actual.classes().keySet());
+        for (Map.Entry<String, CharacterResource> entry : expected.classes().entrySet()) {
+            CharacterResource charClass = actual.classes().get(entry.getKey());
+            Assertions.assertEquals(entry.getValue().getAttributes(), charClass.getAttributes());
+            Assertions.assertEquals(entry.getValue().getBackgrounds().keySet(), charClass.getBackgrounds().keySet());
+            entry.getValue().getBackgrounds().forEach((name, background) -> Assertions.assertEquals(
+                    background.getAttributes(), charClass.getBackgrounds().get(name).getAttributes()));
+        }
+    }
+
+    @Test
+    public void decodedRulesMatchTheJsonRules() throws IOException {
+        RuleSnapshot json = loadJsonRules();
+
+        RuleSnapshot decoded = RuleSnapshotCodec.decode(ByteBuffer.wrap(RuleSnapshotCodec.encode(json)), 7);
+
+        Assertions.assertEquals(7, decoded.version());
+        assertSameRules(json, decoded);
+        // the build compiles the bundled rules, and the service prefers them
+        assertSameRules(json, new CharacterResourceService().getSnapshot());
+    }
+
+    @Test
+    public void truncatedSnapshotsAreRejected() throws IOException {
+        byte[] bytes = RuleSnapshotCodec.encode(loadJsonRules());
+
+        Assertions.assertThrows(IOException.class,
+                () -> RuleSnapshotCodec.decode(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length / 2)), 1));
+    }
+
+    @Test
+    public void packsWithManyAttributesRoundTrip() throws IOException {
+        List<String> names = new ArrayList<>();
+        List<String> shortNames = new ArrayList<>();
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (int i = 0; i < 300; i++) {
+            names.add("Attribute " + i);
+            shortNames.add("A" + i);
+            values.put("Attribute " + i, i);
+        }
+        AttributeSchema schema = new AttributeSchema(names, shortNames);
+        RuleSnapshot rules = new RuleSnapshot(1, schema, Map.of("Titan", values), Map.of());
+
+        RuleSnapshot decoded = RuleSnapshotCodec.decode(ByteBuffer.wrap(RuleSnapshotCodec.encode(rules)), 1);
+
+        Assertions.assertEquals(names, decoded.attributeSchema().names());
+        Assertions.assertEquals(values, decoded.archetypes().get("Titan"));
+    }
+
+    @Test
+    public void corruptedSnapshotsAreRejected() throws IOException {
+        byte[] bytes = RuleSnapshotCodec.encode(loadJsonRules());
+
+        // whatever a damaged byte turns into, decoding either succeeds or reports an unusable snapshot
+        for (int position = 0; position < bytes.length; position++) {
+            for (byte damage : new byte[]{(byte) 0xFF, (byte) 0x80, 0x7F}) {
+                byte[] corrupted = bytes.clone();
+                corrupted[position] = damage;
+                try {
+                    RuleSnapshotCodec.decode(ByteBuffer.wrap(corrupted), 1);
+                } catch (IOException e) {
+                    // rejected, the service falls back to the JSON files
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.rowolff.bb_dashboard.components;
+
+import com.vaadin.flow.component.html.Div;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import elemental.json.Json;
+import elemental.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AttributeEditorTest {
+
+    private final Character character = new Character(new CharacterResourceService().getSnapshot().attributeSchema());
+    private final AttributeEditor editor = new AttributeEditor(character, new CharacterBinder(new Div(), character));
+
+    private JsonObject state() {
+        return (JsonObject) editor.getElement().getPropertyRaw("state");
+    }
+
+    @Test
+    public void batchesAreReplayedInOrderByTheRules() {
+        // the third spend and the refund of an attribute without points are rejected, the refund of Damage
+        // frees a point for Speed
+        editor.applyChanges(1, Json.instance().parse("[1, 2, 1, 2, -4, -2, 3]"));
+
+        Assertions.assertEquals(2, character.getSpentPoints(0));
+        Assertions.assertEquals(0, character.getSpentPoints(1));
+        Assertions.assertEquals(1, character.getSpentPoints(2));
+        Assertions.assertEquals(0, character.getSpentPoints(3));
+        Assertions.assertEquals(0, character.getAvailablePointsToSpend());
+        JsonObject state = state();
+        Assertions.assertEquals(1, (int) state.getNumber("batch"));
+        Assertions.assertEquals(0, (int) state.getNumber("availablePoints"));
+        Assertions.assertEquals("[2,0,1,0]", state.getArray("spent").toJson());
+    }
+
+    @Test
+    public void resentBatchesAndUnknownAttributesAreIgnored() {
+        editor.applyChanges(1, Json.instance().parse("[1]"));
+        editor.applyChanges(1, Json.instance().parse("[1]"));
+        editor.applyChanges(2, Json.instance().parse("[0, 99, -99]"));
+
+        Assertions.assertEquals(1, character.getSpentPoints(0));
+        Assertions.assertEquals(2, (int) state().getNumber("batch"));
+
+        // changes made on the server reach the browser with the last applied batch
+        character.setSpentPoints(3, 1);
+        Assertions.assertEquals("[1,0,0,1]", state().getArray("spent").toJson());
+        Assertions.assertEquals(2, (int) state().getNumber("batch"));
+    }
+}
@@ -0,0 +1,182 @@
+package de.rowolff.bb_dashboard.history;
+
+import de.rowolff.bb_dashboard.character.AttributeSchema;
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class CharacterHistoryTest {
+
+    private final RuleSnapshot rules = new CharacterResourceService().getSnapshot();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void undoRedoAndJumpsRestoreEveryStep() {
+        Character character = new Character(rules.attributeSchema());
+        CharacterHistory history = new CharacterHistory(character, saved -> apply(character, saved));
+        character.addChangeListener(history);
+
+        List<SavedCharacter> states = new ArrayList<>();
+        states.add(SavedCharacter.of(character));
+        character.setArchetype(rules.archetypeStats("Enforcer"));
+        history.commit();
+        states.add(SavedCharacter.of(character));
+        // enough steps for several snapshots
+        for (int i = 0; i < CharacterHistory.SNAPSHOT_INTERVAL * 3; i++) {
+            int attribute = i % character.getSchema().size();
+            character.setSpentPoints(attribute, character.getSpentPoints(attribute) + (i % 3 == 0 ? -1 : 1));
+            history.commit();
+            states.add(SavedCharacter.of(character));
+        }
+        Assertions.assertEquals(states.size(), history.getStepCount());
+
+        for (int step = states.size() - 1; step >= 0; step -= 7) {
+            history.moveTo(step);
+            Assertions.assertEquals(states.get(step), SavedCharacter.of(character));
+        }
+        history.moveTo(10);
+        history.undo();
+        Assertions.assertEquals(states.get(9), SavedCharacter.of(character));
+        history.redo();
+        history.redo();
+        Assertions.assertEquals(states.get(11), SavedCharacter.of(character));
+
+        // a change after an undo drops the undone steps
+        character.setCharClass(rules.classStats("Assassin"));
+        history.commit();
+        Assertions.assertEquals(13, history.getStepCount());
+        Assertions.assertFalse(history.canRedo());
+        history.undo();
+        Assertions.assertEquals(states.get(11), SavedCharacter.of(character));
+    }
+
+    @Test
+    public void storedHistoriesReplayFromTheLastSnapshot() {
+        Character character = new Character(rules.attributeSchema());
+        CharacterHistory history = new CharacterHistory(character, saved -> apply(character, saved));
+        character.addChangeListener(history);
+        character.setArchetype(rules.archetypeStats("Enforcer"));
+        history.commit();
+        for (int i = 0; i < CharacterHistory.SNAPSHOT_INTERVAL + 5; i++) {
+            character.setSpentPoints(0, i);
+            history.commit();
+        }
+        CharacterHistoryStore store = new CharacterHistoryStore(tempDir);
+        store.save("Ada", history);
+        SavedCharacter saved = SavedCharacter.of(character);
+
+        Character loaded = new Character(rules.attributeSchema());
+        CharacterHistory loadedHistory = store.load("Ada", loaded, state -> apply(loaded, state)).orElseThrow();
+        Assertions.assertTrue(loadedHistory.endsAt(saved));
+        loadedHistory.restoreLatest();
+        Assertions.assertEquals(saved, SavedCharacter.of(loaded));
+        Assertions.assertEquals(history.getStepCount(), loadedHistory.getStepCount());
+        loadedHistory.moveTo(1);
+        Assertions.assertEquals(0, loaded.getSpentPoints(0));
+        Assertions.assertEquals("Enforcer", loaded.getArchetype().getName());
+
+        Assertions.assertTrue(store.load("Bob", loaded, state -> apply(loaded, state)).isEmpty());
+    }
+
+    @Test
+    public void historiesOfRemovedAttributesStillLoad() {
+        AttributeSchema before = new AttributeSchema(List.of("Accuracy", "Damage", "Speed", "Mastery", "Luck"),
+                List.of("ACC", "DMG", "SPD", "MST", "LCK"));
+        Character character = new Character(before);
+        CharacterHistory history = new CharacterHistory(character, saved -> {});
+        character.addChangeListener(history);
+        int damage = 0;
+        for (int i = 0; i < CharacterHistory.SNAPSHOT_INTERVAL + 5; i++) {
+            damage = i % 2 == 0 ? i : damage;
+            character.setSpentPoints(i % 2 == 0 ? 1 : 4, i);
+            history.commit();
+        }
+        CharacterHistoryStore store = new CharacterHistoryStore(tempDir);
+        store.save("Ada", history);
+
+        // the rules were reloaded without "Luck" since
+        Character loaded = new Character(rules.attributeSchema());
+        CharacterHistory loadedHistory = store.load("Ada", loaded, state -> apply(loaded, state)).orElseThrow();
+        loadedHistory.restoreLatest();
+        Assertions.assertEquals(damage, loaded.getSpentPoints(1));
+        loadedHistory.moveTo(2);
+        Assertions.assertEquals(0, loaded.getSpentPoints(1));
+        Assertions.assertEquals(history.getStepCount(), loadedHistory.getSteps(0, history.getStepCount()).size());
+    }
+
+    @Test
+    public void corruptedHistoriesAreIgnored() throws IOException {
+        Character character = new Character(rules.attributeSchema());
+        CharacterHistory history = new CharacterHistory(character, saved -> apply(character, saved));
+        character.addChangeListener(history);
+        character.setArchetype(rules.archetypeStats("Enforcer"));
+        history.commit();
+        for (int i = 0; i < CharacterHistory.SNAPSHOT_INTERVAL + 5; i++) {
+            character.setSpentPoints(i % 4, i);
+            history.commit();
+        }
+        CharacterHistoryStore store = new CharacterHistoryStore(tempDir);
+        store.save("Ada", history);
+        Path file;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            file = files.findFirst().orElseThrow();
+        }
+        byte[] intact = Files.readAllBytes(file);
+
+        // whatever damaged the file, a history either loads and replays or is not loaded at all; a log cut at the
+        // end of a step is a valid shorter history, which MainView tells apart by endsAt
+        List<byte[]> damaged = new ArrayList<>();
+        for (int length = 0; length < intact.length; length++) {
+            damaged.add(Arrays.copyOf(intact, length));
+        }
+        for (int position = 8; position < intact.length; position++) {
+            for (byte damage : new byte[]{(byte) 0xFF, (byte) 0x80, 0x7F, 0}) {
+                byte[] corrupted = intact.clone();
+                corrupted[position] = damage;
+                damaged.add(corrupted);
+            }
+        }
+        Character loaded = new Character(rules.attributeSchema());
+        SavedCharacter saved = SavedCharacter.of(character);
+        int ignored = 0;
+        for (byte[] content : damaged) {
+            Files.write(file, content);
+            Optional<CharacterHistory> read = store.load("Ada", loaded, state -> apply(loaded, state));
+            if (read.isPresent()) {
+                read.get().endsAt(saved);
+                read.get().getSteps(0, read.get().getStepCount());
+            } else {
+                ignored++;
+            }
+        }
+        Assertions.assertTrue(ignored > damaged.size() / 2, ignored + " of " + damaged.size() + " ignored");
+    }
+
+    private void apply(Character character, SavedCharacter saved) {
+        character.reset();
+        if (!saved.archetype().isEmpty()) {
+            character.setArchetype(rules.archetypeStats(saved.archetype()));
+        }
+        if (!saved.charClass().isEmpty()) {
+            character.setCharClass(rules.classStats(saved.charClass()));
+        }
+        for (int i = 0; i < character.getSchema().size(); i++) {
+            character.setSpentPoints(i, saved.getSpentPoints(character.getSchema().name(i)));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.rowolff.bb_dashboard.optimizer;
+
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+public class BuildOptimizerTest {
+
+    private final CharacterResourceService loader = new CharacterResourceService();
+    private final BuildOptimizer optimizer = new BuildOptimizer(loader);
+
+    @Test
+    public void prunedSearchFindsSameScoresAsExhaustiveSearch() {
+        BuildObjective objective = new BuildObjective(Map.of("Accuracy", 2d, "Damage", 1.5, "Speed", -1d), Map.of());
+        int backgrounds = loader.getClasses().values().stream().mapToInt(c -> c.getBackgrounds().size()).sum();
+        // 20 ways to spend 3 points on 4 attributes
+        int combinations = loader.getArchetypes().size() * backgrounds * 20;
+
+        // the limit exceeds the number of builds, so nothing gets pruned
+        List<Build> all = optimizer.findBestBuilds(objective, 100_000);
+        List<Build> best = optimizer.findBestBuilds(objective, 10);
+
+        Assertions.assertEquals(combinations, all.size());
+        // ties are broken the same way however the tasks are scheduled, so even the order of equal scores matches
+        Assertions.assertEquals(all.subList(0, 10), best);
+    }
+
+    @Test
+    public void tiedBuildsComeOutInTheSameOrder() {
+        // without weights every build scores the same
+        BuildObjective objective = new BuildObjective(Map.of(), Map.of());
+        List<Build> first = optimizer.findBestBuilds(objective, 25);
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(first, optimizer.findBestBuilds(objective, 25));
+        }
+        Assertions.assertEquals(optimizer.findBestBuilds(objective, 100_000).subList(0, 25), first);
+    }
+
+    @Test
+    public void buildsBelowMinimumsAreExcluded() {
+        BuildObjective objective = new BuildObjective(Map.of("Damage", 1d), Map.of("Speed", 6, "Mastery", 2));
+
+        List<Build> builds = optimizer.findBestBuilds(objective, 50);
+
+        Assertions.assertFalse(builds.isEmpty());
+        for (Build build : builds) {
+            Assertions.assertTrue(build.totals().get("Speed") >= 6);
+            Assertions.assertTrue(build.totals().get("Mastery") >= 2);
+            int spent = build.spentPoints().values().stream().mapToInt(Integer::intValue).sum();
+            Assertions.assertEquals(MAX_SPENDABLE_POINTS, spent);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package de.rowolff.bb_dashboard.party;
+
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class PartyBroadcasterTest {
+
+    private final RuleSnapshot rules = new CharacterResourceService().getSnapshot();
+    private final PartyBroadcaster broadcaster = new PartyBroadcaster(Executors.newSingleThreadScheduledExecutor(),
+            Runnable::run, TimeUnit.MILLISECONDS.toNanos(20), TimeUnit.MILLISECONDS.toNanos(200));
+
+    @AfterEach
+    public void tearDown() {
+        broadcaster.close();
+    }
+
+    @Test
+    public void changesWithinAFrameAreCoalesced() throws InterruptedException {
+        BlockingQueue<PartyUpdate> updates = new LinkedBlockingQueue<>();
+        PartyBroadcaster.Subscription ada = broadcaster.join("raid", member("Ada"), new PartyListener() {
+            @Override
+            public void deliver(PartyUpdate update, Runnable done) {
+                updates.add(update);
+                done.run();
+            }
+
+            @Override
+            public void shed() {
+                Assertions.fail("Ada keeps up with the party");
+            }
+        });
+        PartyBroadcaster.Subscription bob = broadcaster.join("raid", member("Bob"), ignoring());
+        for (int i = 0; i < 100; i++) {
+            bob.publish(member("Bob " + i));
+        }
+
+        // normally a single update, more only if a frame ended while publishing
+        PartyUpdate update = updates.poll(1, TimeUnit.SECONDS);
+        int count = 0;
+        PartyMember latest = null;
+        while (update != null) {
+            count++;
+            Assertions.assertEquals(1, update.changed().size());
+            latest = update.changed().iterator().next();
+            update = updates.poll(100, TimeUnit.MILLISECONDS);
+        }
+        Assertions.assertTrue(count > 0 && count < 5, count + " updates");
+        Assertions.assertEquals("Bob 99", latest.characterName());
+        Assertions.assertEquals(bob.getId(), latest.id());
+        Assertions.assertSame(rules.attributeSchema(), latest.schema());
+
+        bob.close();
+        update = updates.poll(1, TimeUnit.SECONDS);
+        Assertions.assertNotNull(update);
+        Assertions.assertEquals(Set.of(bob.getId()), update.left());
+        ada.close();
+        Assertions.assertEquals(0, broadcaster.getMemberCount("raid"));
+    }
+
+    @Test
+    public void slowConsumersAreShed() throws InterruptedException {
+        CountDownLatch shed = new CountDownLatch(1);
+        PartyBroadcaster.Subscription slow = broadcaster.join("raid", member("Slow"), new PartyListener() {
+            @Override
+            public void deliver(PartyUpdate update, Runnable done) {
+                // never finishes
+            }
+
+            @Override
+            public void shed() {
+                shed.countDown();
+            }
+        });
+        BlockingQueue<PartyUpdate> updates = new LinkedBlockingQueue<>();
+        PartyBroadcaster.Subscription fast = broadcaster.join("raid", member("Fast"), new PartyListener() {
+            @Override
+            public void deliver(PartyUpdate update, Runnable done) {
+                updates.add(update);
+                done.run();
+            }
+
+            @Override
+            public void shed() {
+                Assertions.fail("Fast keeps up with the party");
+            }
+        });
+
+        for (int i = 0; i < 20 && shed.getCount() > 0; i++) {
+            fast.publish(member("Fast " + i));
+            Thread.sleep(20);
+        }
+        Assertions.assertTrue(shed.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, broadcaster.getMemberCount("raid"));
+        PartyUpdate update;
+        do {
+            update = updates.poll(1, TimeUnit.SECONDS);
+            Assertions.assertNotNull(update);
+        } while (!update.left().contains(slow.getId()));
+        fast.close();
+    }
+
+    private PartyMember member(String name) {
+        Character character = new Character(rules.attributeSchema());
+        character.setCharacterName(name);
+        character.setArchetype(rules.archetypeStats("Enforcer"));
+        return PartyMember.of("", character);
+    }
+
+    private static PartyListener ignoring() {
+        return new PartyListener() {
+            @Override
+            public void deliver(PartyUpdate update, Runnable done) {
+                done.run();
+            }
+
+            @Override
+            public void shed() {
+            }
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package de.rowolff.bb_dashboard.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class NameIndexTest {
+
+    private final NameIndex index = NameIndex.of(List.of("Enforcer", "Engineer", "enchanter", "Assassin",
+            "Assault", "Gunslinger", "Ghost", "Gambler"));
+
+    @Test
+    public void prefixMatchesIgnoreCaseAndComeFirst() {
+        Assertions.assertEquals(List.of("enchanter", "Enforcer", "Engineer"), index.search("EN", 0, 10));
+        Assertions.assertEquals(List.of("Enforcer", "Engineer"), index.search("en", 1, 10));
+        Assertions.assertEquals(List.of("Assassin"), index.search("ass", 0, 1));
+        Assertions.assertEquals(8, index.search("", 0, 100).size());
+        Assertions.assertEquals(List.of(), index.search("x", 0, 10));
+
+        // exact prefix matches before the ones with a typo
+        Assertions.assertEquals(List.of("Assault", "Assassin"), index.search("Assau", 0, 10));
+    }
+
+    @Test
+    public void typosAreToleratedAndUpdatesAreSeen() {
+        Assertions.assertEquals(List.of("Enforcer"), index.search("Emforcer", 0, 10));
+        Assertions.assertEquals(List.of("Enforcer"), index.search("Enforcre", 0, 10));
+        Assertions.assertEquals(List.of("Gunslinger"), index.search("gunsl1ng", 0, 10));
+        Assertions.assertEquals(List.of("Gambler"), index.search("gamb1", 0, 10));
+        // too short for a typo
+        Assertions.assertEquals(List.of(), index.search("gxm", 0, 10));
+
+        index.add("Emfrocer");
+        index.remove("Enforcer");
+        index.remove("Nobody");
+        Assertions.assertEquals(List.of("Emfrocer"), index.search("Emforcer", 0, 10));
+        Assertions.assertEquals(8, index.size());
+    }
+}
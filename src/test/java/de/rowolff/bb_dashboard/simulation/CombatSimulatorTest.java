@@ -0,0 +1,46 @@
+package de.rowolff.bb_dashboard.simulation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CombatSimulatorTest {
+
+    private static final CombatProfile AVERAGE = new CombatProfile(0, 0, 0, 0);
+    private static final CombatProfile STRONG = new CombatProfile(2, 2, 1, 1);
+
+    private final CombatSimulator simulator = new CombatSimulator(200_000, 50_000, 16);
+
+    @Test
+    public void attacksFollowTheDice() {
+        AttackReport average = simulator.attack(AVERAGE);
+        Assertions.assertEquals(200_000, average.rounds());
+        Assertions.assertEquals(200_000, average.damagePerRound().count());
+        // needs 11 on a d20 against defense 11, or the critical 20
+        Assertions.assertEquals(0.5, average.hitRate(), 0.01);
+        Assertions.assertEquals(0.05, average.criticalRate(), 0.005);
+        Assertions.assertEquals(0.45 * 4.5 + 0.05 * 9, average.damagePerRound().mean(), 0.05);
+        Assertions.assertEquals(16, average.damagePerRound().max());
+
+        AttackReport strong = simulator.attack(STRONG);
+        Assertions.assertEquals(0.6, strong.hitRate(), 0.01);
+        Assertions.assertEquals(0.1, strong.criticalRate(), 0.005);
+
+        // cached, and the same when simulated again
+        Assertions.assertSame(average, simulator.attack(AVERAGE));
+        AttackReport again = new CombatSimulator(200_000, 50_000, 0).attack(AVERAGE);
+        Assertions.assertEquals(average.hitRate(), again.hitRate());
+        Assertions.assertEquals(average.damagePerRound().mean(), again.damagePerRound().mean());
+    }
+
+    @Test
+    public void betterBuildsWinMoreDuels() {
+        DuelReport even = simulator.duel(AVERAGE, AVERAGE);
+        Assertions.assertEquals(50_000, even.firstWins() + even.secondWins() + even.draws());
+        Assertions.assertEquals(even.firstWinRate(), even.secondWinRate(), 0.02);
+
+        DuelReport uneven = simulator.duel(STRONG, AVERAGE);
+        Assertions.assertTrue(uneven.firstWinRate() > 0.8, "strong build won " + uneven.firstWinRate());
+        Assertions.assertEquals(1, uneven.firstWinRate() + uneven.secondWinRate() + uneven.drawRate(), 1e-9);
+        Assertions.assertSame(uneven, simulator.duel(STRONG, AVERAGE));
+    }
+}
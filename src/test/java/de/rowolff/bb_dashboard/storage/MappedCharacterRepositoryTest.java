@@ -0,0 +1,171 @@
+package de.rowolff.bb_dashboard.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class MappedCharacterRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static SavedCharacter character(String name, int spentAccuracy) {
+        return new SavedCharacter(name, "Enforcer", "Assassin", "Ghost",
+                Map.of("Accuracy", spentAccuracy, "Damage", 0, "Speed", 0, "Mastery", 0));
+    }
+
+    @Test
+    public void savedCharactersSurviveReopening() throws IOException {
+        Path file = tempDir.resolve("characters.log");
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(file)) {
+            repository.save(character("Zed", 1));
+            repository.save(character("Amara", 2));
+            repository.save(character("Zed", 3));
+            repository.save(character("Moze", 0));
+            repository.save(character("Fl4k", 1).withRulePack("homebrew"));
+            Assertions.assertTrue(repository.delete("Moze"));
+        }
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(file)) {
+            Assertions.assertEquals(List.of("Amara", "Fl4k", "Zed"), List.copyOf(repository.findAllNames()));
+            Assertions.assertNull(repository.findByName("Zed").orElseThrow().rulePack());
+            Assertions.assertEquals("homebrew", repository.findByName("Fl4k").orElseThrow().rulePack());
+            Assertions.assertEquals(3, repository.findByName("Zed").orElseThrow().getSpentPoints("Accuracy"));
+            Assertions.assertEquals("Ghost", repository.findByName("Amara").orElseThrow().background());
+            Assertions.assertFalse(repository.exists("Moze"));
+        }
+    }
+
+    @Test
+    public void tornTailIsDiscardedOnRecovery() throws IOException {
+        Path file = tempDir.resolve("characters.log");
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(file)) {
+            repository.save(character("Zed", 1));
+        }
+        byte[] content = Files.readAllBytes(file);
+        long validEnd = 4 + 8 + ByteBuffer.wrap(content, 4, 4).getInt();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // a record header claiming a body that was never completely written
+            channel.write(ByteBuffer.allocate(12).putInt(0, 40).putInt(4, 12345).putInt(8, 0x01020304), validEnd);
+        }
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(file)) {
+            Assertions.assertEquals(1, repository.count());
+            repository.save(character("Amara", 2));
+        }
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(file)) {
+            Assertions.assertEquals(List.of("Amara", "Zed"), List.copyOf(repository.findAllNames()));
+        }
+    }
+
+    @Test
+    public void compactionKeepsOnlyLatestRecords() throws IOException {
+        Path file = tempDir.resolve("characters.log");
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(file)) {
+            for (int i = 0; i < 1000; i++) {
+                repository.save(character("Zed", i % 3));
+            }
+            repository.save(character("Amara", 2));
+            repository.compact();
+            Assertions.assertEquals(2, repository.count());
+            Assertions.assertEquals(0, repository.findByName("Zed").orElseThrow().getSpentPoints("Accuracy"));
+        }
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(file)) {
+            Assertions.assertEquals(List.of("Amara", "Zed"), List.copyOf(repository.findAllNames()));
+        }
+    }
+
+    @Test
+    public void rosterPagesAreFilteredAndSorted() throws IOException {
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("characters.log"))) {
+            repository.save(new SavedCharacter("Zane", "Deadeye", "Commando", "Veteran", Map.of()));
+            repository.save(new SavedCharacter("Amara", "Enforcer", "Berserker", "Leader", Map.of()));
+            repository.save(new SavedCharacter("Zed", "Enforcer", "Assassin", "Ghost", Map.of()));
+            repository.save(new SavedCharacter("Zero", "Guardian", "Assassin", "Enigma", Map.of()));
+            repository.save(new SavedCharacter("Zero", "Enforcer", "Assassin", "Enigma", Map.of()));
+
+            RosterQuery byArchetype = new RosterQuery("", null, null, RosterQuery.SortField.ARCHETYPE, true);
+            Assertions.assertEquals(List.of("Zero", "Zed"), names(repository.find(byArchetype, 0, 2)));
+            Assertions.assertEquals(List.of("Amara", "Zane"), names(repository.find(byArchetype, 2, 10)));
+
+            RosterQuery enforcersStartingWithZ = new RosterQuery("Z", "Enforcer", null, RosterQuery.SortField.NAME, false);
+            Assertions.assertEquals(List.of("Zed", "Zero"), names(repository.find(enforcersStartingWithZ, 0, 10)));
+            Assertions.assertEquals(2, repository.count(enforcersStartingWithZ));
+
+            RosterQuery assassins = new RosterQuery("", null, "Assassin", RosterQuery.SortField.NAME, true);
+            Assertions.assertEquals(List.of("Zero", "Zed"), names(repository.find(assassins, 0, 10)));
+            Assertions.assertEquals(0, repository.count(new RosterQuery("", "Guardian", null, null, false)));
+        }
+    }
+
+    @Test
+    public void pagesAtAnyOffsetMatchTheSortedRoster() throws IOException {
+        List<String> archetypes = Arrays.asList("Deadeye", "Enforcer", null);
+        List<String> classes = List.of("Assassin", "Berserker", "Commando");
+        List<SavedCharacter> roster = new ArrayList<>();
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("characters.log"))) {
+            for (int i = 0; i < 120; i++) {
+                SavedCharacter character = new SavedCharacter((i % 2 == 0 ? "Z" : "A") + (i * 7919 % 1000),
+                        archetypes.get(i % 3), classes.get(i / 3 % 3), "", Map.of());
+                repository.save(character);
+                roster.add(character);
+            }
+            // replaced and deleted characters leave every order
+            repository.save(new SavedCharacter(roster.get(0).name(), "Enforcer", "Commando", "", Map.of()));
+            roster.set(0, new SavedCharacter(roster.get(0).name(), "Enforcer", "Commando", "", Map.of()));
+            repository.delete(roster.remove(1).name());
+
+            for (RosterQuery.SortField sortField : RosterQuery.SortField.values()) {
+                for (String prefix : List.of("", "Z", "A1", "Q")) {
+                    for (String archetype : List.of("Enforcer", "")) {
+                        for (String charClass : Arrays.asList("Commando", null)) {
+                            for (boolean descending : List.of(false, true)) {
+                                RosterQuery query = new RosterQuery(prefix, archetype, charClass, sortField, descending);
+                                List<String> expected = sorted(roster, query);
+                                Assertions.assertEquals(expected.size(), repository.count(query), query.toString());
+                                for (int offset = 0; offset <= expected.size(); offset += 7) {
+                                    Assertions.assertEquals(
+                                            expected.subList(offset, Math.min(expected.size(), offset + 5)),
+                                            names(repository.find(query, offset, 5)), query + " at " + offset);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String> sorted(List<SavedCharacter> roster, RosterQuery query) {
+        Function<SavedCharacter, String> group = switch (query.sortField()) {
+            case NAME -> character -> "";
+            case ARCHETYPE -> character -> character.archetype() == null ? "" : character.archetype();
+            case CLASS -> SavedCharacter::charClass;
+        };
+        Comparator<SavedCharacter> order = Comparator.comparing(group)
+                .thenComparing(SavedCharacter::name);
+        return roster.stream()
+                .filter(character -> character.name().startsWith(query.namePrefix()))
+                .filter(character -> query.archetype() == null || query.archetype()
+                        .equals(character.archetype() == null ? "" : character.archetype()))
+                .filter(character -> query.charClass() == null || query.charClass().equals(character.charClass()))
+                .sorted(query.descending() ? order.reversed() : order)
+                .map(SavedCharacter::name)
+                .toList();
+    }
+
+    private static List<String> names(List<SavedCharacter> characters) {
+        return characters.stream().map(SavedCharacter::name).toList();
+    }
+}
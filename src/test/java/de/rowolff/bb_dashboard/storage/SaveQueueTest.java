@@ -0,0 +1,150 @@
+package de.rowolff.bb_dashboard.storage;
+
+import de.rowolff.bb_dashboard.history.CharacterHistoryStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SaveQueueTest {
+
+    private static final long SLOW_FLUSH_MILLIS = 300;
+
+    @TempDir
+    Path tempDir;
+
+    private static SavedCharacter character(String name, int spentAccuracy) {
+        return new SavedCharacter(name, "Enforcer", "Assassin", "Ghost",
+                Map.of("Accuracy", spentAccuracy, "Damage", 0, "Speed", 0, "Mastery", 0));
+    }
+
+    @Test
+    public void savingDoesNotWaitForSlowStorage() throws Exception {
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("roster.log")) {
+            @Override
+            public void saveAll(Collection<SavedCharacter> characters) {
+                batches.incrementAndGet();
+                written.addAndGet(characters.size());
+                super.saveAll(characters);
+            }
+
+            @Override
+            public void flush() {
+                try {
+                    Thread.sleep(SLOW_FLUSH_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.flush();
+            }
+        }) {
+            SaveQueue queue = new SaveQueue(repository, TimeUnit.MILLISECONDS.toNanos(50));
+            List<CompletableFuture<SavedCharacter>> saves = new ArrayList<>();
+            long slowestSave = 0;
+            long start = System.nanoTime();
+            // keeps saving while earlier batches are stuck in the slow flush
+            for (int i = 0; i < 40; i++) {
+                long saveStart = System.nanoTime();
+                saves.add(queue.save(character("Hero " + i % 4, i / 4)));
+                slowestSave = Math.max(slowestSave, System.nanoTime() - saveStart);
+                Thread.sleep(10);
+            }
+            Assertions.assertTrue(slowestSave < TimeUnit.MILLISECONDS.toNanos(50),
+                    "a save took " + TimeUnit.NANOSECONDS.toMillis(slowestSave) + " ms");
+
+            CompletableFuture.allOf(saves.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+            Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(SLOW_FLUSH_MILLIS));
+            // replaced saves complete with the save that replaced them
+            for (int i = 0; i < saves.size(); i++) {
+                SavedCharacter saved = saves.get(i).get();
+                Assertions.assertEquals("Hero " + i % 4, saved.name());
+                Assertions.assertTrue(saved.getSpentPoints("Accuracy") >= i / 4);
+            }
+            Assertions.assertEquals(9, repository.findByName("Hero 0").orElseThrow().getSpentPoints("Accuracy"));
+            Assertions.assertEquals(4, repository.count());
+            Assertions.assertTrue(batches.get() < 10, batches + " batches");
+            Assertions.assertTrue(written.get() < 40, written + " characters written");
+            queue.close();
+        }
+    }
+
+    @Test
+    public void closingWritesEverythingQueued() throws IOException {
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("roster.log"))) {
+            SaveQueue queue = new SaveQueue(repository, TimeUnit.SECONDS.toNanos(30));
+            AtomicInteger alongside = new AtomicInteger();
+            CompletableFuture<SavedCharacter> saved = queue.save(character("Ada", 1), alongside::incrementAndGet);
+            queue.save(character("Bob", 2));
+            Assertions.assertEquals(2, queue.getQueuedCount());
+            Assertions.assertFalse(repository.exists("Ada"));
+
+            queue.close();
+            Assertions.assertTrue(saved.isDone());
+            Assertions.assertEquals(1, alongside.get());
+            Assertions.assertEquals(2, repository.count());
+            Assertions.assertThrows(IllegalStateException.class, () -> queue.save(character("Cyd", 0)));
+        }
+    }
+
+    @Test
+    public void historyWritesShareTheBatchFlush() throws IOException {
+        Path historyDirectory = tempDir.resolve("histories");
+        AtomicInteger repositoryFlushes = new AtomicInteger();
+        AtomicInteger historyFlushes = new AtomicInteger();
+        CharacterHistoryStore historyStore = new CharacterHistoryStore(historyDirectory) {
+            @Override
+            public synchronized void flush() {
+                historyFlushes.incrementAndGet();
+                // every history of the batch is written but none replaced yet
+                Assertions.assertEquals(List.of(".tmp", ".tmp", ".tmp"), extensions(historyDirectory));
+                super.flush();
+            }
+        };
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("roster.log")) {
+            @Override
+            public void flush() {
+                repositoryFlushes.incrementAndGet();
+                super.flush();
+            }
+        }) {
+            SaveQueue queue = new SaveQueue(repository, TimeUnit.SECONDS.toNanos(30));
+            List<CompletableFuture<SavedCharacter>> saves = new ArrayList<>();
+            for (String name : List.of("Ada", "Bob", "Cyd")) {
+                saves.add(queue.save(character(name, 1), historyStore,
+                        () -> historyStore.write(name, new byte[]{1, 2, 3})));
+            }
+            queue.close();
+
+            for (CompletableFuture<SavedCharacter> saved : saves) {
+                Assertions.assertTrue(saved.isDone() && !saved.isCompletedExceptionally());
+            }
+            Assertions.assertEquals(1, repositoryFlushes.get());
+            Assertions.assertEquals(1, historyFlushes.get());
+            Assertions.assertEquals(List.of(".history", ".history", ".history"), extensions(historyDirectory));
+        }
+    }
+
+    private static List<String> extensions(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .map(name -> name.substring(name.lastIndexOf('.')))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.rowolff.bb_dashboard.transfer;
+
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.storage.MappedCharacterRepository;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class BrowserStorageImportTest {
+
+    private final RulePackRegistry rulePacks = new RulePackRegistry(new CharacterResourceService());
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void newValidCharactersAreImported() throws IOException {
+        // as packed by the script: Zed and Moze are new, Amara is saved already, Fl4k spent too many points
+        JsonArray packed = Json.instance().parse("[[\"Zed\",\"Enforcer\",\"Assassin\",\"Ghost\",\"Moze\","
+                + "\"Amara\",\"Fl4k\"],[0,1,2,3,1,2,0,0, 4,1,2,3,0,0,3,0, 5,1,2,3,0,0,0,0, 6,1,2,3,2,2,0,0]]");
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("roster.log"))) {
+            SavedCharacter amara = new SavedCharacter("Amara", "Enforcer", "Assassin", "", Map.of());
+            repository.save(amara);
+
+            List<String> imported = new BrowserStorageImport(repository, rulePacks).importPacked(packed);
+
+            Assertions.assertEquals(List.of("Zed", "Moze"), imported);
+            Assertions.assertEquals(new SavedCharacter("Zed", "Enforcer", "Assassin", "Ghost",
+                            Map.of("Accuracy", 1, "Damage", 2, "Speed", 0, "Mastery", 0)),
+                    repository.findByName("Zed").orElseThrow());
+            Assertions.assertEquals(3, repository.findByName("Moze").orElseThrow().getSpentPoints("Speed"));
+            Assertions.assertEquals(amara, repository.findByName("Amara").orElseThrow());
+            Assertions.assertFalse(repository.exists("Fl4k"));
+        }
+    }
+
+    @Test
+    public void truncatedCodesAreRejected() {
+        JsonArray packed = Json.instance().parse("[[\"Zed\"],[0,0,0,0,1]]");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BrowserStorageImport.unpack(packed, rulePacks.getDefault().attributeSchema()));
+    }
+}
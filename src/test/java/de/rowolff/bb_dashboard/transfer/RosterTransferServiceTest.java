@@ -0,0 +1,112 @@
+package de.rowolff.bb_dashboard.transfer;
+
+import de.rowolff.bb_dashboard.character.Character;
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.character.RuleSnapshot;
+import de.rowolff.bb_dashboard.storage.MappedCharacterRepository;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static de.rowolff.bb_dashboard.utils.Constants.*;
+
+public class RosterTransferServiceTest {
+
+    private final RulePackRegistry rulePacks = new RulePackRegistry(new CharacterResourceService());
+
+    @TempDir
+    Path tempDir;
+
+    private static SavedCharacter character(int i) {
+        return new SavedCharacter(String.format("Hero, \"%05d\"", i), "Enforcer", "Assassin", "Ghost",
+                Map.of("Accuracy", i % 2, "Damage", 1, "Speed", 0, "Mastery", 0));
+    }
+
+    @Test
+    public void exportedRostersImportUnchanged() throws IOException {
+        int count = RosterTransferService.BATCH_SIZE * 2 + 17;
+        try (MappedCharacterRepository source = new MappedCharacterRepository(tempDir.resolve("source.log"))) {
+            for (int i = 0; i < count; i++) {
+                source.save(character(i));
+            }
+            RosterTransferService exporter = new RosterTransferService(source, rulePacks, Runnable::run);
+            for (RosterFormat format : RosterFormat.values()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                Assertions.assertEquals(count, exporter.export(format, out));
+
+                try (MappedCharacterRepository target = new MappedCharacterRepository(tempDir.resolve(format + ".log"))) {
+                    List<ImportProgress> progress = new ArrayList<>();
+                    ImportProgress result = new RosterTransferService(target, rulePacks, Runnable::run)
+                            .importRoster(format, new ByteArrayInputStream(out.toByteArray()), progress::add);
+
+                    Assertions.assertEquals(new ImportProgress(count, count, 0, List.of()), result);
+                    Assertions.assertEquals(3, progress.size());
+                    Assertions.assertEquals(source.findAllNames(), target.findAllNames());
+                    Assertions.assertEquals(character(7).spentPoints(),
+                            target.findByName(character(7).name()).orElseThrow().spentPoints());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void invalidRowsAreRejectedWithTheirLine() throws IOException {
+        String csv = """
+                name,archetype,class,background,Accuracy,Damage
+                Zed,Enforcer,Assassin,Ghost,1,1
+                Moze,Enforcer,Wizard,,0,0
+                Amara,Enforcer,Assassin,,3,1
+                Fl4k,Enforcer
+                """;
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("roster.log"))) {
+            ImportProgress result = new RosterTransferService(repository, rulePacks, Runnable::run).importRoster(
+                    RosterFormat.CSV, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), progress -> {});
+
+            Assertions.assertEquals(1, result.imported());
+            Assertions.assertEquals(3, result.rejected());
+            Assertions.assertEquals(List.of("Line 3: Unknown class 'Wizard'", "Line 4: 4 points spent, at most 3 allowed",
+                    "Line 5: Expected 6 columns but found 2"), result.errors());
+            Assertions.assertTrue(repository.exists("Zed"));
+        }
+    }
+
+    @Test
+    public void charactersWithRefundedPointsImportUnchanged() throws IOException {
+        RuleSnapshot rules = rulePacks.getDefault();
+        Character character = new Character(rules.attributeSchema());
+        character.setCharacterName("Refunder");
+        character.setArchetype(rules.archetypeStats("Enforcer"));
+        int damage = rules.attributeSchema().indexOf("Damage");
+        character.spendPoint(damage);
+        // the second refund would only take away the archetype's bonus
+        character.refundPoint(damage);
+        character.refundPoint(damage);
+        Assertions.assertTrue(character.getTotalStat(damage) > 0);
+        Assertions.assertEquals(0, character.getSpentPoints(damage));
+        Assertions.assertEquals(MAX_SPENDABLE_POINTS, character.getAvailablePointsToSpend());
+
+        SavedCharacter saved = SavedCharacter.of(character);
+        try (MappedCharacterRepository source = new MappedCharacterRepository(tempDir.resolve("source.log"));
+             MappedCharacterRepository target = new MappedCharacterRepository(tempDir.resolve("target.log"))) {
+            source.save(saved);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new RosterTransferService(source, rulePacks, Runnable::run).export(RosterFormat.NDJSON, out);
+            ImportProgress result = new RosterTransferService(target, rulePacks, Runnable::run).importRoster(
+                    RosterFormat.NDJSON, new ByteArrayInputStream(out.toByteArray()), progress -> {});
+
+            Assertions.assertEquals(new ImportProgress(1, 1, 0, List.of()), result);
+            Assertions.assertEquals(saved, target.findByName("Refunder").orElseThrow());
+        }
+    }
+}
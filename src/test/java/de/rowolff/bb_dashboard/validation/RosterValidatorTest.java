@@ -0,0 +1,91 @@
+package de.rowolff.bb_dashboard.validation;
+
+import de.rowolff.bb_dashboard.character.CharacterResourceService;
+import de.rowolff.bb_dashboard.character.RulePackRegistry;
+import de.rowolff.bb_dashboard.storage.MappedCharacterRepository;
+import de.rowolff.bb_dashboard.storage.SavedCharacter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class RosterValidatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static SavedCharacter character(String name, String charClass, String background, int spentAccuracy) {
+        return new SavedCharacter(name, "Enforcer", charClass, background,
+                Map.of("Accuracy", spentAccuracy, "Damage", 0, "Speed", 0, "Mastery", 0));
+    }
+
+    private void writeClasses(Path rulesDirectory, String... classes) throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (String charClass : classes) {
+            entries.add(String.format("\"%s\": {\"attributes\": {\"Accuracy\": 1}, \"backgrounds\": "
+                    + "{\"Ghost\": {\"Damage\": 1}}}", charClass));
+        }
+        Files.writeString(rulesDirectory.resolve("classes.json"), "{" + String.join(",", entries) + "}");
+    }
+
+    @Test
+    public void savedCharactersAreCheckedAgainstTheRules() throws IOException {
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("roster.log"))) {
+            repository.save(character("Zed", "Assassin", "Ghost", 1));
+            repository.save(character("Moze", "Wizard", "Ghost", 1));
+            RosterValidator validator = new RosterValidator(repository,
+                    new RulePackRegistry(new CharacterResourceService()));
+
+            Assertions.assertEquals(List.of(), validator.getProblems("Zed"));
+            Assertions.assertEquals(List.of("Unknown class 'Wizard'"), validator.getProblems("Moze"));
+
+            repository.save(character("Amara", "Assassin", "Monk", 4));
+            repository.save(character("Zed", "Assassin", "Ghost", 1).withRulePack("missing"));
+            repository.delete("Moze");
+            Assertions.assertEquals(List.of("Unknown background 'Monk' of class 'Assassin'",
+                    "4 points spent, at most 3 allowed"), validator.getProblems("Amara"));
+            Assertions.assertEquals(List.of("Unknown rule pack 'missing'"), validator.getProblems("Zed"));
+            Assertions.assertEquals(2, validator.getInvalidCount());
+        }
+    }
+
+    @Test
+    public void reloadsOnlyRevalidateAffectedCharacters() throws IOException {
+        Path rulesDirectory = Files.createDirectories(tempDir.resolve("rules"));
+        writeClasses(rulesDirectory, "Duelist", "Brawler");
+        CharacterResourceService rules = new CharacterResourceService(rulesDirectory);
+        List<String> reads = new ArrayList<>();
+        try (MappedCharacterRepository repository = new MappedCharacterRepository(tempDir.resolve("roster.log")) {
+            @Override
+            public Optional<SavedCharacter> findByName(String name) {
+                synchronized (reads) {
+                    reads.add(name);
+                }
+                return super.findByName(name);
+            }
+        }) {
+            for (int i = 0; i < 100; i++) {
+                repository.save(character("Duelist " + i, "Duelist", "Ghost", 1));
+            }
+            repository.save(character("Brawler", "Brawler", "Ghost", 1));
+            repository.save(character("Sniper", "Sniper", "Ghost", 1));
+            RosterValidator validator = new RosterValidator(repository, new RulePackRegistry(rules));
+            Assertions.assertEquals(1, validator.getInvalidCount());
+
+            writeClasses(rulesDirectory, "Duelist", "Sniper");
+            Assertions.assertTrue(rules.reload());
+            Assertions.assertEquals(List.of("Unknown class 'Brawler'"), validator.getProblems("Brawler"));
+            Assertions.assertEquals(List.of(), validator.getProblems("Sniper"));
+            Assertions.assertEquals(List.of(), validator.getProblems("Duelist 7"));
+            reads.sort(null);
+            Assertions.assertEquals(List.of("Brawler", "Sniper"), reads);
+        }
+    }
+}